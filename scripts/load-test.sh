@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# Compares platform-thread and virtual-thread mode under a login storm.
+#
+# For each mode the application is started from the packaged jar, then a burst of
+# logins (BCrypt + user lookup) runs in the background while book reads are measured.
+# Requires hey (https://github.com/rakyll/hey) and a Java 21 runtime: on older
+# runtimes the virtual-threads profile silently runs on platform threads. The
+# summary is also written to target/load-test-results.txt.
+#
+# usage: scripts/load-test.sh [duration] [login-concurrency] [read-concurrency]
+set -euo pipefail
+
+DURATION=${1:-30s}
+LOGIN_CONCURRENCY=${2:-400}
+READ_CONCURRENCY=${3:-50}
+PORT=18081
+JAR=$(ls target/library-management-*.jar | grep -v original | head -1)
+SECRET=load-test-secret-load-test-secret-load-test-secret-load-test-secret
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+[ -f "$JAR" ] || { echo "Build the jar first: mvn -DskipTests package" >&2; exit 1; }
+JAVA_VERSION=$(java -XshowSettings:properties -version 2>&1 | sed -n 's/^ *java.specification.version = //p')
+[ "${JAVA_VERSION%%.*}" -ge 21 ] || { echo "Java 21 is required for the virtual-thread run, found $JAVA_VERSION" >&2; exit 1; }
+
+run() {
+    local mode=$1
+    local profiles=$2
+    local log="target/load-test-$mode.log"
+    # The per-user rate limit would otherwise cap the single load-test user
+    java -jar "$JAR" --server.port=$PORT --app.jwtSecret=$SECRET --logging.level.com.library=WARN \
+        --app.web.rate-limit.enabled=false \
+        --logging.level.org.springframework.security=WARN \
+        --spring.profiles.active=$profiles > "$log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null" EXIT
+    until curl -sf localhost:$PORT/actuator/health >/dev/null; do sleep 1; done
+
+    local login='{"email":"user@library.com","password":"password"}'
+    local token
+    token=$(curl -s -H 'Content-Type: application/json' -d "$login" localhost:$PORT/api/auth/login \
+        | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+    echo "=== $mode: logins x$LOGIN_CONCURRENCY in the background, book reads x$READ_CONCURRENCY for $DURATION ==="
+    hey -z "$DURATION" -c "$LOGIN_CONCURRENCY" -m POST -T application/json -d "$login" \
+        http://localhost:$PORT/api/auth/login > "target/load-test-$mode-logins.txt" &
+    local storm=$!
+    hey -z "$DURATION" -c "$READ_CONCURRENCY" -H "Authorization: Bearer $token" \
+        "http://localhost:$PORT/api/books?size=20" | grep -E "Requests/sec|Latency distribution|(50|95|99)% in|\[[0-9]{3}\]"
+    wait $storm
+    echo "--- logins"
+    grep -E "Requests/sec|99% in|\[[0-9]{3}\]" "target/load-test-$mode-logins.txt"
+
+    kill $pid
+    wait $pid 2>/dev/null || true
+    trap - EXIT
+}
+
+{
+    echo "Java $JAVA_VERSION, $(nproc) CPUs"
+    run platform seed
+    run virtual seed,virtual-threads
+} | tee target/load-test-results.txt
@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# Compares the blocking /api/books reads on Tomcat with the R2DBC-backed
+# /api/reactive/books on the WebFlux/Netty port under a large number of concurrent
+# clients.
+#
+# The application is started once from the packaged jar with rate limiting and
+# request coalescing off, then each endpoint is driven by hey while
+# /actuator/prometheus is sampled every second for the peak number of live JVM
+# threads, busy Tomcat threads, JDBC connections in use and R2DBC connections in
+# use. Requires hey (https://github.com/rakyll/hey) and enough file descriptors
+# for the client count (ulimit -n). The summary is also written to
+# target/reactive-load-test-results.txt.
+#
+# usage: scripts/reactive-load-test.sh [duration] [clients]
+set -euo pipefail
+
+DURATION=${1:-30s}
+CLIENTS=${2:-10000}
+PORT=18082
+REACTIVE_PORT=18083
+JAR=$(ls target/library-management-*.jar | grep -v original | head -1)
+SECRET=load-test-secret-load-test-secret-load-test-secret-load-test-secret
+
+command -v hey >/dev/null || { echo "hey is required: go install github.com/rakyll/hey@latest" >&2; exit 1; }
+[ -f "$JAR" ] || { echo "Build the jar first: mvn -DskipTests package" >&2; exit 1; }
+
+java -jar "$JAR" --server.port=$PORT --app.reactive.server.port=$REACTIVE_PORT --app.jwtSecret=$SECRET --spring.profiles.active=seed \
+    --logging.level.com.library=WARN --logging.level.org.springframework.security=WARN \
+    --app.web.rate-limit.enabled=false --app.web.coalescing.enabled=false \
+    --server.tomcat.max-connections=$((CLIENTS + 1000)) --server.tomcat.accept-count=1000 \
+    --server.tomcat.mbeanregistry.enabled=true > target/reactive-load-test.log 2>&1 &
+PID=$!
+trap "kill $PID 2>/dev/null" EXIT
+until curl -sf localhost:$PORT/actuator/health >/dev/null; do sleep 1; done
+
+curl -s -H 'Content-Type: application/json' -d '{"firstName":"Load","lastName":"Test","email":"load@test.local","password":"load-test"}' \
+    localhost:$PORT/api/auth/register >/dev/null
+TOKEN=$(curl -s -H 'Content-Type: application/json' -d '{"email":"load@test.local","password":"load-test"}' \
+    localhost:$PORT/api/auth/login | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+# Prints the peak of each gauge until the sampler is killed
+sample() {
+    local peaks=target/reactive-load-test-peaks.txt
+    : > "$peaks"
+    while true; do
+        curl -s localhost:$PORT/actuator/prometheus | awk '
+            /^jvm_threads_live_threads /                        { print "jvm-threads", $2 }
+            /^tomcat_threads_busy_threads/                      { print "tomcat-busy-threads", $2 }
+            /^hikaricp_connections_active/                      { print "jdbc-connections", $2 }
+            /^library_reactive_connections\{state="acquired"/   { print "r2dbc-connections", $2 }' >> "$peaks"
+        sleep 1
+    done
+}
+
+run() {
+    local name=$1
+    local port=$2
+    local path=$3
+    echo "=== $name: $CLIENTS clients for $DURATION on :$port$path ==="
+    sample &
+    local sampler=$!
+    hey -z "$DURATION" -c "$CLIENTS" -H "Authorization: Bearer $TOKEN" "http://localhost:$port$path" \
+        | grep -E "Requests/sec|(50|99)% in|\[[0-9]{3}\]|Error distribution" || true
+    kill $sampler
+    wait $sampler 2>/dev/null || true
+    echo "--- peaks"
+    sort -k1,1 -k2,2nr target/reactive-load-test-peaks.txt | awk '!seen[$1]++ { printf "%-20s %s\n", $1, $2 }'
+}
+
+{
+    echo "Java $(java -XshowSettings:properties -version 2>&1 | sed -n 's/^ *java.version = //p'), $(nproc) CPUs, ulimit -n $(ulimit -n)"
+    run mvc $PORT "/api/books?size=20"
+    run reactive $REACTIVE_PORT "/api/reactive/books?size=20"
+} | tee target/reactive-load-test-results.txt
@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+# Measures time to first request: from launching the JVM until an authenticated-free
+# API call (/actuator/health) first answers 200. Each variant is started RUNS times
+# and the individual and average times are printed.
+#
+# Variants: the packaged jar, the jar with eager bean initialisation, and the
+# unpacked application with the AppCDS archive (run scripts/cds.sh train first,
+# or build with mvn -Pcds package).
+#
+# usage: scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+RUNS=${1:-3}
+PORT=18082
+JAR=$(ls target/library-management-*.jar | grep -v original | head -1)
+ARGS="--server.port=$PORT --app.jwtSecret=startup-benchmark-secret-startup-benchmark-secret-startup-bench
+      --app.auth.bcrypt.strength=10 --spring.main.banner-mode=off --logging.level.root=WARN --logging.level.com.library=WARN"
+
+[ -f "$JAR" ] || { echo "Build the jar first: mvn -DskipTests package" >&2; exit 1; }
+
+measure() {
+    local name=$1
+    shift
+    local total=0
+    printf '%-22s' "$name"
+    for _ in $(seq 1 "$RUNS"); do
+        local start
+        start=$(date +%s%N)
+        "$@" $ARGS > target/startup-benchmark.log 2>&1 &
+        local pid=$!
+        until curl -sf -o /dev/null localhost:$PORT/actuator/health; do
+            kill -0 $pid 2>/dev/null || { echo " failed, see target/startup-benchmark.log" >&2; exit 1; }
+            sleep 0.05
+        done
+        local elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+        total=$((total + elapsed))
+        printf ' %6d ms' "$elapsed"
+        kill $pid
+        wait $pid 2>/dev/null || true
+    done
+    printf '   avg %6d ms\n' $((total / RUNS))
+}
+
+measure "jar (lazy init)" java -jar "$JAR"
+measure "jar (eager init)" java -jar "$JAR" --spring.main.lazy-initialization=false
+if [ -f target/cds/application.jsa ]; then
+    measure "unpacked + AppCDS" scripts/cds.sh run
+else
+    echo "No AppCDS archive, skipping; run scripts/cds.sh train" >&2
+fi
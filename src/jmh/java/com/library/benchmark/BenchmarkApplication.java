@@ -0,0 +1,83 @@
+package com.library.benchmark;
+
+import com.library.LibraryManagementApplication;
+import com.library.search.BookSearchIndex;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application on a random port against a private in-memory H2
+ * database seeded with a given number of books.
+ */
+final class BenchmarkApplication {
+    
+    static final int CATEGORY_COUNT = 5;
+    static final int USER_COUNT = 1000;
+    
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final String[] WORDS = {
+            "great", "silent", "river", "empire", "shadow", "garden", "winter", "code",
+            "history", "ocean", "machine", "stars", "secret", "city", "forest", "light"
+    };
+    
+    private BenchmarkApplication() {
+    }
+    
+    static ConfigurableApplicationContext start(String database, int bookCount) {
+        // Passed as arguments so they take precedence over application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LibraryManagementApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                        "--app.reactive.url=r2dbc:h2:mem:///" + database,
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.library=WARN",
+                        "--logging.level.org.springframework.security=WARN",
+                        "--app.jwtSecret=benchmark-secret-benchmark-secret-benchmark-secret-benchmark-secret");
+        if (bookCount > 0) {
+            seed(context.getBean(JdbcTemplate.class), bookCount);
+            context.getBean(BookSearchIndex.class).rebuild();
+        }
+        return context;
+    }
+    
+    static String title(long bookId) {
+        return WORDS[(int) (bookId % WORDS.length)] + " " + WORDS[(int) ((bookId / WORDS.length) % WORDS.length)]
+                + " " + bookId;
+    }
+    
+    private static void seed(JdbcTemplate jdbcTemplate, int bookCount) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 1; i <= CATEGORY_COUNT; i++) {
+            jdbcTemplate.update("INSERT INTO categories (id, name, description, created_at, updated_at) VALUES (?, ?, ?, ?, ?)",
+                    i, "Category " + i, "Benchmark category", now, now);
+        }
+        
+        List<Object[]> users = new ArrayList<>(USER_COUNT);
+        for (int i = 1; i <= USER_COUNT; i++) {
+            users.add(new Object[]{i, "user" + i + "@bench.local", "Bench", "User" + i, "x", "USER", true, now, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (id, email, first_name, last_name, password, role, active, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", users);
+        
+        List<Object[]> books = new ArrayList<>(SEED_BATCH_SIZE);
+        for (long id = 1; id <= bookCount; id++) {
+            books.add(new Object[]{id, title(id), "Author " + (id % 5000), "BENCH-" + id, "Benchmark book",
+                    1_000_000, 1_000_000, id % CATEGORY_COUNT + 1, now, now});
+            if (books.size() == SEED_BATCH_SIZE || id == bookCount) {
+                jdbcTemplate.batchUpdate("INSERT INTO books (id, title, author, isbn, description, total_copies, " +
+                        "available_copies, category_id, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", books);
+                books.clear();
+            }
+        }
+        // Pooled ids are the 50 values ending at the next sequence value, so start past the seeded range
+        jdbcTemplate.execute("ALTER SEQUENCE books_seq RESTART WITH " + (bookCount + 50));
+    }
+}
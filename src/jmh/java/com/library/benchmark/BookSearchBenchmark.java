@@ -0,0 +1,52 @@
+package com.library.benchmark;
+
+import com.library.entity.Book;
+import com.library.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookSearchBenchmark {
+    
+    private static final Pageable PAGE = PageRequest.of(0, 20);
+    
+    @Benchmark
+    public Page<Book> searchByTitle(CatalogueState state) {
+        long bookId = ThreadLocalRandom.current().nextLong(1, state.bookCount + 1);
+        String title = BenchmarkApplication.title(bookId);
+        return state.bean(BookService.class).searchBooks(title.substring(0, title.indexOf(' ') + 4), null, null, null, PAGE);
+    }
+    
+    @Benchmark
+    public Page<Book> searchByAuthorAndCategory(CatalogueState state) {
+        int author = ThreadLocalRandom.current().nextInt(5000);
+        long categoryId = ThreadLocalRandom.current().nextLong(1, BenchmarkApplication.CATEGORY_COUNT + 1);
+        return state.bean(BookService.class).searchBooks(null, "Author " + author, null, categoryId, PAGE);
+    }
+    
+    @Benchmark
+    public Page<Book> searchByIsbn(CatalogueState state) {
+        long bookId = ThreadLocalRandom.current().nextLong(1, state.bookCount + 1);
+        return state.bean(BookService.class).searchBooks(null, null, "BENCH-" + bookId, null, PAGE);
+    }
+    
+    @Benchmark
+    public Page<Book> findAvailable(CatalogueState state) {
+        return state.bean(BookService.class).getAvailableBooks(PAGE);
+    }
+}
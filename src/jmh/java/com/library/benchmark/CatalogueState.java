@@ -0,0 +1,36 @@
+package com.library.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Application context with a catalogue of {@link #bookCount} books, shared by all
+ * benchmark threads of a trial.
+ */
+@State(Scope.Benchmark)
+public class CatalogueState {
+    
+    @Param({"10000", "1000000", "10000000"})
+    public int bookCount;
+    
+    ConfigurableApplicationContext context;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("catalogue" + bookCount, bookCount);
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,59 @@
+package com.library.benchmark;
+
+import com.library.enums.Role;
+import com.library.security.JwtUtils;
+import com.library.security.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+    
+    private ConfigurableApplicationContext context;
+    private JwtUtils jwtUtils;
+    private String token;
+    
+    @Setup(Level.Trial)
+    public void start() {
+        context = BenchmarkApplication.start("jwt", 0);
+        jwtUtils = context.getBean(JwtUtils.class);
+        UserPrincipal principal = new UserPrincipal(1L, "user1@bench.local", "Bench", "User", "x", Role.USER, true);
+        token = jwtUtils.generateJwtToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+    
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+    
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+    
+    // What JwtAuthenticationFilter does for every authenticated request
+    @Benchmark
+    public String validateAndReadSubject() {
+        return jwtUtils.validateJwtToken(token) ? jwtUtils.getEmailFromJwtToken(token) : null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.library.benchmark;
+
+import com.library.entity.Loan;
+import com.library.service.LoanService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoanBenchmark {
+    
+    // Returning straight away keeps every user below the active loan limit
+    @Benchmark
+    public Loan createAndReturnLoan(CatalogueState state) {
+        long userId = ThreadLocalRandom.current().nextLong(1, BenchmarkApplication.USER_COUNT + 1);
+        long bookId = ThreadLocalRandom.current().nextLong(1, state.bookCount + 1);
+        LoanService loanService = state.bean(LoanService.class);
+        Loan loan = loanService.createLoan(userId, bookId);
+        return loanService.returnBook(loan.getId());
+    }
+}
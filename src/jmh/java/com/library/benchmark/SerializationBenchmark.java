@@ -0,0 +1,77 @@
+package com.library.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.response.ApiResponse;
+import com.library.entity.Book;
+import com.library.entity.Category;
+import com.library.web.SparseFields;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    
+    @Param({"20", "100"})
+    public int pageSize;
+    
+    private ObjectMapper objectMapper;
+    private ApiResponse<Page<Book>> response;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Book carries @JsonFilter, so the mapper needs the filters JacksonConfig registers
+        objectMapper = Jackson2ObjectMapperBuilder.json().filters(SparseFields.ALL).build();
+        Category category = Category.builder()
+                .id(1L)
+                .name("Fiction")
+                .description("Fictional literature and novels")
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        List<Book> books = new ArrayList<>(pageSize);
+        for (long id = 1; id <= pageSize; id++) {
+            books.add(Book.builder()
+                    .id(id)
+                    .title(BenchmarkApplication.title(id))
+                    .author("Author " + id)
+                    .isbn("BENCH-" + id)
+                    .description("A moderately long description of the book that is serialized on every list call. ".repeat(4))
+                    .totalCopies(5)
+                    .availableCopies(3)
+                    .category(category)
+                    .createdAt(LocalDateTime.now())
+                    .updatedAt(LocalDateTime.now())
+                    .build());
+        }
+        response = ApiResponse.success(new PageImpl<>(books, PageRequest.of(0, pageSize), 10_000));
+    }
+    
+    @Benchmark
+    public byte[] serializeBookPage() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
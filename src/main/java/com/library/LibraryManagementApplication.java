@@ -2,11 +2,13 @@ package com.library;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// R2DBC is only used by ReactiveBookRepository; an auto-configured ConnectionFactory would replace the JDBC DataSource
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @EnableJpaAuditing
 @EnableAsync
 @EnableScheduling
@@ -0,0 +1,14 @@
+package com.library.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Orders the cache interceptor outside the transaction interceptor, so that
+ * evictions run after the surrounding transaction has committed.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+}
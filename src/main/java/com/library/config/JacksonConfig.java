@@ -0,0 +1,28 @@
+package com.library.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.library.web.SparseFields;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Registers the {@code fields} filter on the application's mappers and serves
+ * {@code application/cbor} to clients that ask for it, using the same Jackson
+ * settings as JSON.
+ */
+@Configuration
+public class JacksonConfig {
+    
+    @Bean
+    Jackson2ObjectMapperBuilderCustomizer sparseFieldsCustomizer() {
+        return builder -> builder.filters(SparseFields.ALL);
+    }
+    
+    @Bean
+    MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
@@ -0,0 +1,58 @@
+package com.library.config;
+
+import com.library.repository.LoanArchiveShard;
+import com.library.repository.LoanArchiveShards;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sets up the stores archived loans are spread over: the {@code loan_archive}
+ * table of the application's database, plus one database per URL in
+ * {@code app.loans.archive.shard-urls}. Those get their own pool and their
+ * schema from {@code db/loan-archive}.
+ */
+@Configuration
+public class LoanArchiveConfig {
+    
+    @Bean(destroyMethod = "close")
+    LoanArchiveShards loanArchiveShards(DataSource dataSource,
+                                        TransactionTemplate transactionTemplate,
+                                        @Value("${app.loans.archive.shard-urls:}") List<String> shardUrls,
+                                        @Value("${app.loans.archive.shard-username:${spring.datasource.username}}") String username,
+                                        @Value("${app.loans.archive.shard-password:${spring.datasource.password}}") String password,
+                                        @Value("${app.loans.archive.shard-pool-size:5}") int poolSize) {
+        List<LoanArchiveShard> shards = new ArrayList<>();
+        List<HikariDataSource> pools = new ArrayList<>();
+        shards.add(new LoanArchiveShard(0, new JdbcTemplate(dataSource), transactionTemplate));
+        for (String url : shardUrls) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(url.trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            pool.setPoolName("loan-archive-" + shards.size());
+            pool.setMaximumPoolSize(poolSize);
+            pools.add(pool);
+            Flyway.configure()
+                    .dataSource(pool)
+                    .locations("classpath:db/loan-archive")
+                    .load()
+                    .migrate();
+            shards.add(new LoanArchiveShard(shards.size(), new JdbcTemplate(pool),
+                    new TransactionTemplate(new DataSourceTransactionManager(pool))));
+        }
+        return new LoanArchiveShards(shards, pools);
+    }
+}
@@ -0,0 +1,93 @@
+package com.library.config;
+
+import com.library.datasource.ReadYourWrites;
+import com.library.datasource.ReplicaLagMonitor;
+import com.library.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Splits the application's {@code DataSource} into a primary pool, configured by
+ * {@code spring.datasource.*}, and a read-only replica pool configured by
+ * {@code app.datasource.replica.*}. Read-only transactions are routed to the
+ * replica by {@link ReplicaRoutingDataSource}; Flyway and everything else use the
+ * primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    @Bean
+    @ConfigurationProperties("app.datasource.replica.hikari")
+    HikariDataSource replicaDataSource(DataSourceProperties properties,
+                                       @Value("${app.datasource.replica.url}") String url,
+                                       @Value("${app.datasource.replica.username}") String username,
+                                       @Value("${app.datasource.replica.password}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+    
+    @Bean
+    ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                        @Qualifier("replicaDataSource") DataSource replica,
+                                        @Value("${app.datasource.replica.max-lag-ms:2000}") long maxLagMs,
+                                        MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(primary, replica, maxLagMs, meterRegistry);
+    }
+    
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                          @Qualifier("replicaDataSource") DataSource replica,
+                          ReplicaLagMonitor replicaLagMonitor,
+                          ReadYourWrites readYourWrites,
+                          MeterRegistry meterRegistry) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replica, replicaLagMonitor,
+                readYourWrites, meterRegistry);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+    
+    /**
+     * Hibernate otherwise keeps the first connection of a request for the whole
+     * open-in-view session, so a write after a replica read would go to the replica.
+     */
+    @Bean
+    HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
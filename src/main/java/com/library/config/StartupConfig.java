@@ -0,0 +1,31 @@
+package com.library.config;
+
+import com.library.datasource.ReplicaLagMonitor;
+import com.library.events.OutboxDispatcher;
+import com.library.repository.LoanArchiveShards;
+import com.library.search.BookSearchIndex;
+import com.library.service.HoldService;
+import com.library.service.LoanArchiver;
+import com.library.service.OverdueLoanSweeper;
+import com.library.stats.CirculationStats;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans that must be created at startup even with
+ * {@code spring.main.lazy-initialization=true}: scheduled jobs are only
+ * registered once their bean exists, the search index should be built before
+ * the first search rather than during it, and the loan archive stores should be
+ * migrated before the first loan listing.
+ */
+@Configuration
+public class StartupConfig {
+    
+    @Bean
+    static LazyInitializationExcludeFilter eagerStartupBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(OverdueLoanSweeper.class, OutboxDispatcher.class,
+                CirculationStats.class, HoldService.class, BookSearchIndex.class, ReplicaLagMonitor.class,
+                LoanArchiver.class, LoanArchiveShards.class);
+    }
+}
@@ -8,6 +8,7 @@ import com.library.entity.User;
 import com.library.service.AuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
@@ -24,16 +25,18 @@ public class AuthController {
     
     @PostMapping("/register")
     @Operation(summary = "Register a new user")
-    public ResponseEntity<ApiResponse<User>> register(@Valid @RequestBody RegisterRequest request) {
-        User user = authService.register(request);
+    public ResponseEntity<ApiResponse<User>> register(@Valid @RequestBody RegisterRequest request,
+                                                      HttpServletRequest httpRequest) {
+        User user = authService.register(request, httpRequest.getRemoteAddr());
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("User registered successfully", user));
     }
     
     @PostMapping("/login")
     @Operation(summary = "Login user")
-    public ResponseEntity<ApiResponse<JwtResponse>> login(@Valid @RequestBody LoginRequest request) {
-        JwtResponse response = authService.login(request);
+    public ResponseEntity<ApiResponse<JwtResponse>> login(@Valid @RequestBody LoginRequest request,
+                                                          HttpServletRequest httpRequest) {
+        JwtResponse response = authService.login(request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok(ApiResponse.success("Login successful", response));
     }
 }
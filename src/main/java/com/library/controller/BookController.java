@@ -2,19 +2,30 @@ package com.library.controller;
 
 import com.library.dto.request.BookRequest;
 import com.library.dto.response.ApiResponse;
+import com.library.dto.response.BookImportResult;
+import com.library.dto.response.BookSummary;
+import com.library.dto.response.CursorPage;
+import com.library.dto.response.PageResponse;
 import com.library.entity.Book;
+import com.library.service.BookImportService;
 import com.library.service.BookService;
+import com.library.service.CatalogueVersions;
+import com.library.web.ConditionalGet;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/books")
@@ -24,40 +35,81 @@ import org.springframework.web.bind.annotation.*;
 public class BookController {
     
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final CatalogueVersions catalogueVersions;
     
     @GetMapping
     @Operation(summary = "Get all books")
-    public ResponseEntity<ApiResponse<Page<Book>>> getAllBooks(Pageable pageable) {
-        Page<Book> books = bookService.getAllBooks(pageable);
+    public ResponseEntity<ApiResponse<PageResponse<BookSummary>>> getAllBooks(Pageable pageable, ServletWebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, catalogueVersions.collectionVersion())) {
+            return null;
+        }
+        PageResponse<BookSummary> books = PageResponse.of(bookService.getAllBooks(pageable), BookSummary::from);
+        return ResponseEntity.ok(ApiResponse.success(books));
+    }
+    
+    @GetMapping("/cursor")
+    @Operation(summary = "Get all books using keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<BookSummary>>> getBooksAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            ServletWebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, catalogueVersions.collectionVersion())) {
+            return null;
+        }
+        CursorPage<BookSummary> books = bookService.getBooksAfter(after, size, sort).map(BookSummary::from);
         return ResponseEntity.ok(ApiResponse.success(books));
     }
     
     @GetMapping("/search")
     @Operation(summary = "Search books")
-    public ResponseEntity<ApiResponse<Page<Book>>> searchBooks(
+    public ResponseEntity<ApiResponse<PageResponse<BookSummary>>> searchBooks(
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String isbn,
             @RequestParam(required = false) Long categoryId,
-            Pageable pageable) {
-        Page<Book> books = bookService.searchBooks(title, author, isbn, categoryId, pageable);
+            Pageable pageable,
+            ServletWebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, catalogueVersions.collectionVersion())) {
+            return null;
+        }
+        PageResponse<BookSummary> books = PageResponse.of(
+                bookService.searchBooks(title, author, isbn, categoryId, pageable), BookSummary::from);
         return ResponseEntity.ok(ApiResponse.success(books));
     }
     
     @GetMapping("/available")
     @Operation(summary = "Get available books")
-    public ResponseEntity<ApiResponse<Page<Book>>> getAvailableBooks(Pageable pageable) {
-        Page<Book> books = bookService.getAvailableBooks(pageable);
+    public ResponseEntity<ApiResponse<PageResponse<BookSummary>>> getAvailableBooks(Pageable pageable, ServletWebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, catalogueVersions.collectionVersion())) {
+            return null;
+        }
+        PageResponse<BookSummary> books = PageResponse.of(bookService.getAvailableBooks(pageable), BookSummary::from);
         return ResponseEntity.ok(ApiResponse.success(books));
     }
     
     @GetMapping("/{id}")
     @Operation(summary = "Get book by ID")
-    public ResponseEntity<ApiResponse<Book>> getBookById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<Book>> getBookById(@PathVariable Long id, ServletWebRequest webRequest) {
+        if (ConditionalGet.notModified(webRequest, catalogueVersions.bookVersion(id))) {
+            return null;
+        }
         Book book = bookService.getBookById(id);
         return ResponseEntity.ok(ApiResponse.success(book));
     }
     
+    @GetMapping("/isbn/{isbn}")
+    @Operation(summary = "Get book by ISBN")
+    public ResponseEntity<ApiResponse<Book>> getBookByIsbn(@PathVariable String isbn, ServletWebRequest webRequest) {
+        // The id is not known before the lookup, so any catalogue change invalidates
+        if (ConditionalGet.notModified(webRequest, catalogueVersions.collectionVersion())) {
+            return null;
+        }
+        Book book = bookService.getBookByIsbn(isbn);
+        return ResponseEntity.ok(ApiResponse.success(book));
+    }
+    
     @PostMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     @Operation(summary = "Create a new book")
@@ -67,6 +119,16 @@ public class BookController {
                 .body(ApiResponse.success("Book created successfully", book));
     }
     
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    @Operation(summary = "Bulk import books from a CSV or JSON body")
+    public ResponseEntity<ApiResponse<BookImportResult>> importBooks(HttpServletRequest request) throws IOException {
+        BookImportResult result = request.getContentType().startsWith("text/csv")
+                ? bookImportService.importCsv(request.getInputStream())
+                : bookImportService.importJson(request.getInputStream());
+        return ResponseEntity.ok(ApiResponse.success("Import completed", result));
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     @Operation(summary = "Update book")
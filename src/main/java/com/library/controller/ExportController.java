@@ -0,0 +1,78 @@
+package com.library.controller;
+
+import com.library.service.ExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStream;
+import java.util.function.ToLongFunction;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/api/export")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Export", description = "Bulk NDJSON export APIs")
+public class ExportController {
+    
+    private final ExportService exportService;
+    
+    @GetMapping("/books")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    @Operation(summary = "Export all books as NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream(exportService::exportBooks, acceptEncoding);
+    }
+    
+    @GetMapping("/loans")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    @Operation(summary = "Export all loans as NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportLoans(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream(exportService::exportLoans, acceptEncoding);
+    }
+    
+    @GetMapping("/loans/archive")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    @Operation(summary = "Export archived loans as NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportArchivedLoans(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream(exportService::exportArchivedLoans, acceptEncoding);
+    }
+    
+    @GetMapping("/users")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export all users as NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return stream(exportService::exportUsers, acceptEncoding);
+    }
+    
+    private ResponseEntity<StreamingResponseBody> stream(ToLongFunction<OutputStream> export, String acceptEncoding) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return response.body(out -> {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                    export.applyAsLong(compressed);
+                }
+            });
+        }
+        return response.body(export::applyAsLong);
+    }
+}
@@ -0,0 +1,61 @@
+package com.library.controller;
+
+import com.library.dto.response.ApiResponse;
+import com.library.dto.response.HoldResponse;
+import com.library.entity.Hold;
+import com.library.service.HoldService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/holds")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Holds", description = "Hold queue APIs")
+public class HoldController {
+    
+    private final HoldService holdService;
+    
+    @GetMapping("/user/{userId}")
+    @Operation(summary = "Get waiting and ready holds of a user with their queue positions")
+    public ResponseEntity<ApiResponse<List<HoldResponse>>> getHoldsByUser(@PathVariable Long userId) {
+        List<HoldResponse> holds = holdService.getOpenHoldsByUser(userId).stream()
+                .map(this::toResponse)
+                .toList();
+        return ResponseEntity.ok(ApiResponse.success(holds));
+    }
+    
+    @GetMapping("/book/{bookId}")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    @Operation(summary = "Get the number of holds waiting for a book")
+    public ResponseEntity<ApiResponse<Integer>> getQueueLength(@PathVariable Long bookId) {
+        return ResponseEntity.ok(ApiResponse.success(holdService.getQueueLength(bookId)));
+    }
+    
+    @PostMapping("/user/{userId}/book/{bookId}")
+    @Operation(summary = "Place a hold on a book with no copies available")
+    public ResponseEntity<ApiResponse<HoldResponse>> placeHold(@PathVariable Long userId, @PathVariable Long bookId) {
+        HoldResponse hold = toResponse(holdService.placeHold(userId, bookId));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Hold placed successfully", hold));
+    }
+    
+    @DeleteMapping("/{holdId}")
+    @Operation(summary = "Cancel a hold")
+    public ResponseEntity<ApiResponse<HoldResponse>> cancelHold(@PathVariable Long holdId) {
+        HoldResponse hold = toResponse(holdService.cancelHold(holdId));
+        return ResponseEntity.ok(ApiResponse.success("Hold cancelled successfully", hold));
+    }
+    
+    private HoldResponse toResponse(Hold hold) {
+        return HoldResponse.from(hold, holdService.getPosition(hold));
+    }
+}
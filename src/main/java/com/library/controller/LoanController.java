@@ -1,14 +1,20 @@
 package com.library.controller;
 
+import com.library.dto.request.BatchCheckoutRequest;
+import com.library.dto.request.BatchReturnRequest;
 import com.library.dto.response.ApiResponse;
-import com.library.entity.Loan;
+import com.library.dto.response.BatchLoanResult;
+import com.library.dto.response.CursorPage;
+import com.library.dto.response.LoanResponse;
+import com.library.dto.response.LoanSummary;
+import com.library.dto.response.PageResponse;
 import com.library.enums.LoanStatus;
 import com.library.service.LoanService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -27,38 +33,86 @@ public class LoanController {
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     @Operation(summary = "Get all loans")
-    public ResponseEntity<ApiResponse<Page<Loan>>> getAllLoans(Pageable pageable) {
-        Page<Loan> loans = loanService.getAllLoans(pageable);
+    public ResponseEntity<ApiResponse<PageResponse<LoanSummary>>> getAllLoans(Pageable pageable) {
+        PageResponse<LoanSummary> loans = PageResponse.of(loanService.getAllLoans(pageable));
+        return ResponseEntity.ok(ApiResponse.success(loans));
+    }
+    
+    @GetMapping("/cursor")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    @Operation(summary = "Get all loans using keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<LoanSummary>>> getLoansAfter(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<LoanSummary> loans = loanService.getLoansAfter(after, size);
         return ResponseEntity.ok(ApiResponse.success(loans));
     }
     
     @GetMapping("/user/{userId}")
     @Operation(summary = "Get loans by user")
-    public ResponseEntity<ApiResponse<Page<Loan>>> getLoansByUser(@PathVariable Long userId, Pageable pageable) {
-        Page<Loan> loans = loanService.getLoansByUser(userId, pageable);
+    public ResponseEntity<ApiResponse<PageResponse<LoanSummary>>> getLoansByUser(@PathVariable Long userId, Pageable pageable) {
+        PageResponse<LoanSummary> loans = PageResponse.of(loanService.getLoansByUser(userId, pageable));
+        return ResponseEntity.ok(ApiResponse.success(loans));
+    }
+    
+    @GetMapping("/user/{userId}/cursor")
+    @Operation(summary = "Get loans by user using keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<LoanSummary>>> getLoansByUserAfter(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<LoanSummary> loans = loanService.getLoansByUserAfter(userId, after, size);
         return ResponseEntity.ok(ApiResponse.success(loans));
     }
     
     @GetMapping("/status/{status}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     @Operation(summary = "Get loans by status")
-    public ResponseEntity<ApiResponse<Page<Loan>>> getLoansByStatus(@PathVariable LoanStatus status, Pageable pageable) {
-        Page<Loan> loans = loanService.getLoansByStatus(status, pageable);
+    public ResponseEntity<ApiResponse<PageResponse<LoanSummary>>> getLoansByStatus(@PathVariable LoanStatus status, Pageable pageable) {
+        PageResponse<LoanSummary> loans = PageResponse.of(loanService.getLoansByStatus(status, pageable));
+        return ResponseEntity.ok(ApiResponse.success(loans));
+    }
+    
+    @GetMapping("/status/{status}/cursor")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    @Operation(summary = "Get loans by status using keyset pagination")
+    public ResponseEntity<ApiResponse<CursorPage<LoanSummary>>> getLoansByStatusAfter(
+            @PathVariable LoanStatus status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        CursorPage<LoanSummary> loans = loanService.getLoansByStatusAfter(status, after, size);
         return ResponseEntity.ok(ApiResponse.success(loans));
     }
     
     @PostMapping("/user/{userId}/book/{bookId}")
     @Operation(summary = "Create a new loan")
-    public ResponseEntity<ApiResponse<Loan>> createLoan(@PathVariable Long userId, @PathVariable Long bookId) {
-        Loan loan = loanService.createLoan(userId, bookId);
+    public ResponseEntity<ApiResponse<LoanResponse>> createLoan(@PathVariable Long userId, @PathVariable Long bookId) {
+        LoanResponse loan = LoanResponse.from(loanService.createLoan(userId, bookId));
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("Loan created successfully", loan));
     }
     
+    @PostMapping("/user/{userId}/batch")
+    @Operation(summary = "Check out several books for a user")
+    public ResponseEntity<ApiResponse<BatchLoanResult>> createLoans(@PathVariable Long userId,
+                                                                    @Valid @RequestBody BatchCheckoutRequest request) {
+        BatchLoanResult result = loanService.createLoans(userId, request.getBookIds());
+        return ResponseEntity.ok(ApiResponse.success(
+                "Checked out " + result.getSucceeded() + " of " + request.getBookIds().size() + " books", result));
+    }
+    
+    @PutMapping("/return")
+    @Operation(summary = "Return several loans")
+    public ResponseEntity<ApiResponse<BatchLoanResult>> returnBooks(@Valid @RequestBody BatchReturnRequest request) {
+        BatchLoanResult result = loanService.returnBooks(request.getLoanIds());
+        return ResponseEntity.ok(ApiResponse.success(
+                "Returned " + result.getSucceeded() + " of " + request.getLoanIds().size() + " loans", result));
+    }
+    
     @PutMapping("/{loanId}/return")
     @Operation(summary = "Return a book")
-    public ResponseEntity<ApiResponse<Loan>> returnBook(@PathVariable Long loanId) {
-        Loan loan = loanService.returnBook(loanId);
+    public ResponseEntity<ApiResponse<LoanResponse>> returnBook(@PathVariable Long loanId) {
+        LoanResponse loan = LoanResponse.from(loanService.returnBook(loanId));
         return ResponseEntity.ok(ApiResponse.success("Book returned successfully", loan));
     }
 }
@@ -0,0 +1,41 @@
+package com.library.controller;
+
+import com.library.dto.response.ApiResponse;
+import com.library.dto.response.CirculationDashboard;
+import com.library.service.StatisticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.YearMonth;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+@Tag(name = "Statistics", description = "Circulation statistics APIs")
+public class StatisticsController {
+    
+    private final StatisticsService statisticsService;
+    
+    @GetMapping("/dashboard")
+    @Operation(summary = "Get circulation statistics for the current or previous month")
+    public ResponseEntity<ApiResponse<CirculationDashboard>> getDashboard(
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(defaultValue = "10") int top) {
+        CirculationDashboard dashboard = statisticsService.getDashboard(month != null ? month : YearMonth.now(), top);
+        return ResponseEntity.ok(ApiResponse.success(dashboard));
+    }
+    
+    @GetMapping("/users/{userId}")
+    @Operation(summary = "Get loan and overdue counts of a user")
+    public ResponseEntity<ApiResponse<CirculationDashboard.UserCirculation>> getUserCirculation(@PathVariable Long userId) {
+        return ResponseEntity.ok(ApiResponse.success(statisticsService.getUserCirculation(userId)));
+    }
+}
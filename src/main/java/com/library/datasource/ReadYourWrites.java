@@ -0,0 +1,79 @@
+package com.library.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Users who have just written through this instance, or whose data someone else
+ * just changed through it. Their read-only transactions stay on the primary for
+ * {@code app.datasource.replica.sticky-ms} after the write commits, so they see
+ * the change even while the replica catches up.
+ */
+@Component
+public class ReadYourWrites {
+    
+    private final Cache<String, Boolean> recentWriters;
+    
+    public ReadYourWrites(@Value("${app.datasource.replica.sticky-ms:5000}") long stickyMs) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(stickyMs))
+                .maximumSize(100_000)
+                .build();
+    }
+    
+    /**
+     * Records a write by the current user on behalf of {@code affectedUser}, who may
+     * be the same user or, for a librarian's checkout, the patron. Takes effect when
+     * the surrounding transaction commits.
+     */
+    public void recordWrite(String affectedUser) {
+        recordWrite(List.of(affectedUser));
+    }
+    
+    /**
+     * Records a write by the current user and, since their own reads must reflect
+     * it too, by every user whose data it changed, identified by username.
+     */
+    public void recordWrite(Collection<String> affectedUsers) {
+        Set<String> users = new HashSet<>(affectedUsers);
+        String user = currentUser();
+        if (user != null) {
+            users.add(user);
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            users.forEach(writer -> recentWriters.put(writer, Boolean.TRUE));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                users.forEach(writer -> recentWriters.put(writer, Boolean.TRUE));
+            }
+        });
+    }
+    
+    public boolean isRecentWriter() {
+        String user = currentUser();
+        return user != null && recentWriters.getIfPresent(user) != null;
+    }
+    
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+}
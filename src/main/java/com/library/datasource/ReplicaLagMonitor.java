@@ -0,0 +1,69 @@
+package com.library.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+
+/**
+ * Measures replication lag with a heartbeat row: each check writes the current
+ * time on the primary and reads the row back from the replica. The replica is
+ * usable while the check succeeds and the lag stays within
+ * {@code app.datasource.replica.max-lag-ms}; it starts out unusable until the
+ * first check, so startup reads go to the primary.
+ * <p>
+ * The measured lag has the resolution of the heartbeat interval, which must
+ * therefore stay well below the maximum lag.
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final long maxLagMs;
+    
+    private volatile boolean usable;
+    private volatile double lagSeconds = Double.NaN;
+    
+    public ReplicaLagMonitor(DataSource primary, DataSource replica, long maxLagMs, MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.maxLagMs = maxLagMs;
+        Gauge.builder("library.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag seen by the last heartbeat check, NaN if the replica could not be read")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+    
+    public boolean isReplicaUsable() {
+        return usable;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.datasource.replica.heartbeat-interval-ms:1000}")
+    public void check() {
+        boolean wasUsable = usable;
+        try {
+            primary.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", new Timestamp(System.currentTimeMillis()));
+            Timestamp seen = replica.queryForObject("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Timestamp.class);
+            long lagMs = Math.max(0, System.currentTimeMillis() - seen.getTime());
+            lagSeconds = lagMs / 1000.0;
+            usable = lagMs <= maxLagMs;
+            if (wasUsable && !usable) {
+                log.warn("Replica is {} ms behind, reading from the primary", lagMs);
+            }
+        } catch (RuntimeException e) {
+            lagSeconds = Double.NaN;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Replica heartbeat failed, reading from the primary: {}", e.getMessage());
+            }
+        }
+        if (!wasUsable && usable) {
+            log.info("Replica is in sync, routing read-only transactions to it");
+        }
+    }
+}
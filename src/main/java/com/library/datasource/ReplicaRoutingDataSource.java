@@ -0,0 +1,66 @@
+package com.library.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Sends connections for read-only transactions to the replica and all others to
+ * the primary. A read-only transaction still goes to the primary while the
+ * replica is lagging or the current user has just written.
+ * <p>
+ * The decision is made when a connection is taken from the pool, so this must sit
+ * behind a {@code LazyConnectionDataSourceProxy}: transaction managers open the
+ * connection before the read-only flag of a new transaction is published.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    private static final String PRIMARY = "primary";
+    private static final String REPLICA = "replica";
+    
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWrites readYourWrites;
+    private final Counter replicaReads;
+    private final Counter laggingReads;
+    private final Counter stickyReads;
+    
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+                                    ReadYourWrites readYourWrites, MeterRegistry meterRegistry) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWrites = readYourWrites;
+        this.replicaReads = reads(meterRegistry, REPLICA, "replica", "Read-only connections served by the replica");
+        this.laggingReads = reads(meterRegistry, PRIMARY, "lagging", "Read-only connections sent to the primary because the replica is behind");
+        this.stickyReads = reads(meterRegistry, PRIMARY, "sticky", "Read-only connections sent to the primary after the user's own write");
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+    
+    private static Counter reads(MeterRegistry meterRegistry, String target, String reason, String description) {
+        return Counter.builder("library.datasource.reads")
+                .tag("target", target)
+                .tag("reason", reason)
+                .description(description)
+                .register(meterRegistry);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARY;
+        }
+        if (!lagMonitor.isReplicaUsable()) {
+            laggingReads.increment();
+            return PRIMARY;
+        }
+        if (readYourWrites.isRecentWriter()) {
+            stickyReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return REPLICA;
+    }
+}
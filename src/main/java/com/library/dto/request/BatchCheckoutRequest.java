@@ -0,0 +1,16 @@
+package com.library.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchCheckoutRequest {
+    
+    @NotEmpty(message = "At least one book ID is required")
+    @Size(max = 50, message = "At most 50 books can be checked out at once")
+    private List<@NotNull Long> bookIds;
+}
@@ -0,0 +1,26 @@
+package com.library.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * One record of a bulk import file. The category may be given either by id or by name.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BookImportRow {
+    
+    private String title;
+    
+    private String author;
+    
+    private String isbn;
+    
+    private String description;
+    
+    private Integer totalCopies;
+    
+    private Long categoryId;
+    
+    private String category;
+}
@@ -0,0 +1,49 @@
+package com.library.dto.request;
+
+import com.library.exception.BusinessException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: the value of the sort key and the id
+ * that breaks ties. Clients only ever see the opaque encoded form.
+ */
+@Value
+public class KeysetCursor {
+    
+    private static final char SEPARATOR = '|';
+    
+    String sortKey;
+    long id;
+    
+    public static KeysetCursor ofId(long id) {
+        return new KeysetCursor(null, id);
+    }
+    
+    /**
+     * Id to continue after, or 0 to start from the beginning.
+     */
+    public static long afterId(String token) {
+        return token == null || token.isEmpty() ? 0L : decode(token).getId();
+    }
+    
+    public String encode() {
+        String raw = sortKey == null ? Long.toString(id) : id + String.valueOf(SEPARATOR) + sortKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                return ofId(Long.parseLong(raw));
+            }
+            return new KeysetCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+}
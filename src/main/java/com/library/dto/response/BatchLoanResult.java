@@ -0,0 +1,46 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch checkout or return, with one item per requested book or
+ * loan in request order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLoanResult {
+    private int succeeded;
+    private int failed;
+    private List<Item> items;
+    
+    public static BatchLoanResult of(List<Item> items) {
+        int succeeded = (int) items.stream().filter(Item::isSuccess).count();
+        return new BatchLoanResult(succeeded, items.size() - succeeded, items);
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private Long bookId;
+        private Long loanId;
+        private boolean success;
+        private String error;
+        private LoanResponse loan;
+        
+        public static Item succeeded(LoanResponse loan) {
+            return new Item(loan.getBookId(), loan.getId(), true, null, loan);
+        }
+        
+        public static Item failed(Long bookId, Long loanId, String error) {
+            return new Item(bookId, loanId, false, error, null);
+        }
+    }
+}
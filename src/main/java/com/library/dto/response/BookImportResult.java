@@ -0,0 +1,31 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResult {
+    private long rowsRead;
+    private long imported;
+    private long failed;
+    private long elapsedMs;
+    private long rowsPerSecond;
+    private List<RowError> errors;
+    private boolean errorsTruncated;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private long row;
+        private String isbn;
+        private String message;
+    }
+}
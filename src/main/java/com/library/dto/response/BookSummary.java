@@ -0,0 +1,44 @@
+package com.library.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.library.entity.Book;
+import com.library.entity.Category;
+import com.library.web.SparseFields;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Book as listed by the API: the catalogue fields without the description and
+ * audit timestamps, which {@code GET /api/books/{id}} still returns.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonFilter(SparseFields.FILTER)
+public class BookSummary {
+    private Long id;
+    private String title;
+    private String author;
+    private String isbn;
+    private Integer totalCopies;
+    private Integer availableCopies;
+    private Long categoryId;
+    private String categoryName;
+    
+    public static BookSummary from(Book book) {
+        Category category = book.getCategory();
+        return BookSummary.builder()
+                .id(book.getId())
+                .title(book.getTitle())
+                .author(book.getAuthor())
+                .isbn(book.getIsbn())
+                .totalCopies(book.getTotalCopies())
+                .availableCopies(book.getAvailableCopies())
+                .categoryId(category != null ? category.getId() : null)
+                .categoryName(category != null ? category.getName() : null)
+                .build();
+    }
+}
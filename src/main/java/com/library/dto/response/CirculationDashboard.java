@@ -0,0 +1,63 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationDashboard {
+    private String month;
+    private List<BookCount> mostBorrowedBooks;
+    private List<CategoryCount> activeLoansByCategory;
+    private List<UserCirculation> mostOverdueUsers;
+    private List<DayCount> days;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class BookCount {
+        private Long bookId;
+        private String title;
+        private long loans;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryCount {
+        private Long categoryId;
+        private String name;
+        private long activeLoans;
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserCirculation {
+        private Long userId;
+        private long loans;
+        private long overdue;
+        private double overdueRate;
+        
+        public static UserCirculation of(Long userId, long loans, long overdue) {
+            return new UserCirculation(userId, loans, overdue, loans > 0 ? (double) overdue / loans : 0);
+        }
+    }
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class DayCount {
+        private LocalDate date;
+        private long checkouts;
+        private long returns;
+        private long overdue;
+    }
+}
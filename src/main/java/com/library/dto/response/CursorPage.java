@@ -0,0 +1,45 @@
+package com.library.dto.response;
+
+import com.library.dto.request.KeysetCursor;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A slice of a keyset-paginated listing. Unlike {@code Page} it carries no total
+ * count, so producing it never needs a COUNT query.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    
+    public static final int MAX_SIZE = 1000;
+    
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    
+    public static int clampSize(int requested) {
+        return Math.min(Math.max(requested, 1), MAX_SIZE);
+    }
+    
+    /**
+     * Builds a page from rows fetched with a limit of {@code size + 1}; the extra
+     * row only signals that another page exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)).encode() : null;
+        return new CursorPage<>(content, content.size(), hasNext, nextCursor);
+    }
+    
+    public <R> CursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new CursorPage<>(content.stream().<R>map(mapper).toList(), size, hasNext, nextCursor);
+    }
+}
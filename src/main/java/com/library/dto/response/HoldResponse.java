@@ -0,0 +1,46 @@
+package com.library.dto.response;
+
+import com.library.entity.Book;
+import com.library.entity.Hold;
+import com.library.enums.HoldStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hold as returned by the API. {@code position} is the 1-based place in the
+ * title's queue while the hold is waiting, and 0 otherwise.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HoldResponse {
+    private Long id;
+    private Long userId;
+    private Long bookId;
+    private String bookTitle;
+    private HoldStatus status;
+    private int position;
+    private LocalDateTime readyAt;
+    private LocalDateTime expiresAt;
+    private LocalDateTime createdAt;
+    
+    public static HoldResponse from(Hold hold, int position) {
+        Book book = hold.getBook();
+        return HoldResponse.builder()
+                .id(hold.getId())
+                .userId(hold.getUser().getId())
+                .bookId(book.getId())
+                .bookTitle(book.getTitle())
+                .status(hold.getStatus())
+                .position(position)
+                .readyAt(hold.getReadyAt())
+                .expiresAt(hold.getExpiresAt())
+                .createdAt(hold.getCreatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,62 @@
+package com.library.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.library.entity.Book;
+import com.library.entity.Loan;
+import com.library.entity.User;
+import com.library.enums.LoanStatus;
+import com.library.web.SparseFields;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Loan as returned by the API, flattened so serializing it never walks into
+ * lazy associations beyond the loan's user and book.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonFilter(SparseFields.FILTER)
+public class LoanResponse {
+    private Long id;
+    private Long userId;
+    private String userEmail;
+    private String userName;
+    private Long bookId;
+    private String bookTitle;
+    private String bookAuthor;
+    private String bookIsbn;
+    private LocalDate loanDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private LoanStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    
+    public static LoanResponse from(Loan loan) {
+        User user = loan.getUser();
+        Book book = loan.getBook();
+        return LoanResponse.builder()
+                .id(loan.getId())
+                .userId(user.getId())
+                .userEmail(user.getEmail())
+                .userName(user.getFirstName() + " " + user.getLastName())
+                .bookId(book.getId())
+                .bookTitle(book.getTitle())
+                .bookAuthor(book.getAuthor())
+                .bookIsbn(book.getIsbn())
+                .loanDate(loan.getLoanDate())
+                .dueDate(loan.getDueDate())
+                .returnDate(loan.getReturnDate())
+                .status(loan.getStatus())
+                .createdAt(loan.getCreatedAt())
+                .updatedAt(loan.getUpdatedAt())
+                .build();
+    }
+}
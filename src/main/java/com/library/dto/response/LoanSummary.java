@@ -0,0 +1,59 @@
+package com.library.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.library.entity.ArchivedLoan;
+import com.library.entity.Loan;
+import com.library.enums.LoanStatus;
+import com.library.web.SparseFields;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Loan as listed by the API: the loan row and the book's title, without the
+ * user and book details {@link LoanResponse} carries.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonFilter(SparseFields.FILTER)
+public class LoanSummary {
+    private Long id;
+    private Long userId;
+    private Long bookId;
+    private String bookTitle;
+    private LocalDate loanDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private LoanStatus status;
+    
+    public static LoanSummary from(Loan loan) {
+        return LoanSummary.builder()
+                .id(loan.getId())
+                .userId(loan.getUser().getId())
+                .bookId(loan.getBook().getId())
+                .bookTitle(loan.getBook().getTitle())
+                .loanDate(loan.getLoanDate())
+                .dueDate(loan.getDueDate())
+                .returnDate(loan.getReturnDate())
+                .status(loan.getStatus())
+                .build();
+    }
+    
+    public static LoanSummary from(ArchivedLoan loan) {
+        return LoanSummary.builder()
+                .id(loan.getId())
+                .userId(loan.getUserId())
+                .bookId(loan.getBookId())
+                .bookTitle(loan.getBookTitle())
+                .loanDate(loan.getLoanDate())
+                .dueDate(loan.getDueDate())
+                .returnDate(loan.getReturnDate())
+                .status(loan.getStatus())
+                .build();
+    }
+}
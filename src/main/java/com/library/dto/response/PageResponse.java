@@ -0,0 +1,35 @@
+package com.library.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A page of an offset-paginated listing with only the paging fields clients
+ * use, instead of everything a serialized {@code Page} carries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    
+    private List<T> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+    
+    public static <T, R> PageResponse<R> of(Page<T> page, Function<? super T, ? extends R> mapper) {
+        return new PageResponse<>(page.getContent().stream().<R>map(mapper).toList(),
+                page.getNumber(), page.getSize(), page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -0,0 +1,54 @@
+package com.library.entity;
+
+import com.library.enums.LoanStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A returned loan moved out of the {@code loans} table. It keeps the id of the
+ * original loan and the book's title at the time it was archived, so reading the
+ * archive never joins the live tables.
+ * <p>
+ * Not a JPA entity: archived loans are spread over several stores that need not
+ * be the database Hibernate runs on, and are read with JDBC by
+ * {@link com.library.repository.LoanArchiveShard}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedLoan {
+    
+    private Long id;
+    private Long userId;
+    private Long bookId;
+    private String bookTitle;
+    private LocalDate loanDate;
+    private LocalDate dueDate;
+    private LocalDate returnDate;
+    private LoanStatus status;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime archivedAt;
+    
+    public static ArchivedLoan from(Loan loan, LocalDateTime archivedAt) {
+        return ArchivedLoan.builder()
+                .id(loan.getId())
+                .userId(loan.getUser().getId())
+                .bookId(loan.getBook().getId())
+                .bookTitle(loan.getBook().getTitle())
+                .loanDate(loan.getLoanDate())
+                .dueDate(loan.getDueDate())
+                .returnDate(loan.getReturnDate())
+                .status(loan.getStatus())
+                .createdAt(loan.getCreatedAt())
+                .updatedAt(loan.getUpdatedAt())
+                .archivedAt(archivedAt)
+                .build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.library.entity;
+
+import com.library.enums.HoldStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * A patron's place in the queue for a title with no copies available. Holds are
+ * served in id order; a served hold is {@code READY} with a copy set aside until
+ * {@code expiresAt}.
+ */
+@Entity
+@Table(name = "holds", indexes = {
+        @Index(name = "idx_holds_book_status_id", columnList = "book_id, status, id"),
+        @Index(name = "idx_holds_user_book_status", columnList = "user_id, book_id, status"),
+        @Index(name = "idx_holds_status_expires_at", columnList = "status, expires_at")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@EntityListeners(AuditingEntityListener.class)
+public class Hold {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private User user;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "book_id", nullable = false)
+    private Book book;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private HoldStatus status;
+    
+    private LocalDateTime readyAt;
+    
+    private LocalDateTime expiresAt;
+    
+    @CreatedDate
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
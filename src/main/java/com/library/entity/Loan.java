@@ -14,7 +14,12 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+        @Index(name = "idx_loans_status_due_date", columnList = "status, due_date"),
+        @Index(name = "idx_loans_user_status", columnList = "user_id, status"),
+        @Index(name = "idx_loans_user_book_status", columnList = "user_id, book_id, status"),
+        @Index(name = "idx_loans_book_id", columnList = "book_id")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,67 @@
+package com.library.entity;
+
+import com.library.enums.DomainEventType;
+import com.library.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A domain event stored in the same transaction as the change it describes and
+ * delivered to consumers afterwards by the {@code OutboxDispatcher}.
+ * <p>
+ * The id only identifies the event: it comes from a pooled sequence, so ids of
+ * concurrent transactions, or of different instances, are not in commit order.
+ * {@code aggregateSequence} is, for the events of one {@code aggregateKey}.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_events_status_id", columnList = "status, id"),
+        @Index(name = "idx_outbox_events_aggregate", columnList = "aggregate_key, aggregate_sequence")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 50)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private DomainEventType type;
+    
+    @Column(nullable = false)
+    private Long aggregateId;
+    
+    @Column(nullable = false, length = 64)
+    private String aggregateKey;
+    
+    @Column(nullable = false)
+    private Long aggregateSequence;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OutboxStatus status;
+    
+    @Column(nullable = false)
+    private int attempts;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime processedAt;
+}
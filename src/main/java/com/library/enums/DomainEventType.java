@@ -0,0 +1,20 @@
+package com.library.enums;
+
+public enum DomainEventType {
+    LOAN_CREATED("Loan"),
+    LOAN_RETURNED("Loan"),
+    LOAN_OVERDUE("Loan"),
+    BOOK_CREATED("Book"),
+    BOOK_UPDATED("Book"),
+    BOOK_DELETED("Book");
+    
+    private final String aggregateType;
+    
+    DomainEventType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+    
+    public String getAggregateType() {
+        return aggregateType;
+    }
+}
@@ -0,0 +1,9 @@
+package com.library.enums;
+
+public enum HoldStatus {
+    WAITING,
+    READY,
+    FULFILLED,
+    CANCELLED,
+    EXPIRED
+}
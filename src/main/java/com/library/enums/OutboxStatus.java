@@ -0,0 +1,7 @@
+package com.library.enums;
+
+public enum OutboxStatus {
+    PENDING,
+    PROCESSED,
+    FAILED
+}
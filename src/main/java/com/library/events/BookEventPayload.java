@@ -0,0 +1,12 @@
+package com.library.events;
+
+import com.library.entity.Book;
+
+public record BookEventPayload(Long bookId, String title, String author, String isbn, Long categoryId,
+                               Integer totalCopies) {
+    
+    public static BookEventPayload from(Book book) {
+        return new BookEventPayload(book.getId(), book.getTitle(), book.getAuthor(), book.getIsbn(),
+                book.getCategory() != null ? book.getCategory().getId() : null, book.getTotalCopies());
+    }
+}
@@ -0,0 +1,35 @@
+package com.library.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.OutboxEvent;
+import com.library.enums.DomainEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event as handed to {@link DomainEventConsumer}s. The id identifies
+ * redeliveries; the sequence increases in commit order for events of the same
+ * aggregate, which is the order they are delivered in. Ids carry no ordering.
+ */
+public record DomainEvent(Long id, DomainEventType type, Long aggregateId, long sequence,
+                          JsonNode payload, LocalDateTime occurredAt) {
+    
+    public static DomainEvent from(OutboxEvent event, ObjectMapper objectMapper) {
+        try {
+            return new DomainEvent(event.getId(), event.getType(), event.getAggregateId(), event.getAggregateSequence(),
+                    objectMapper.readTree(event.getPayload()), event.getCreatedAt());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable payload in outbox event " + event.getId(), e);
+        }
+    }
+    
+    public static String aggregateKey(DomainEventType type, Long aggregateId) {
+        return type.getAggregateType() + ":" + aggregateId;
+    }
+    
+    public String aggregateKey() {
+        return aggregateKey(type, aggregateId);
+    }
+}
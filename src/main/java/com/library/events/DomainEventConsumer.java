@@ -0,0 +1,21 @@
+package com.library.events;
+
+import com.library.enums.DomainEventType;
+
+/**
+ * An in-process subscriber to domain events. Every bean implementing this interface
+ * is called by the {@link OutboxDispatcher} for each event it supports.
+ * <p>
+ * Delivery is at least once: an event is redelivered to all consumers if any of
+ * them throws, and after a crash between handling and acknowledging, so handlers
+ * must tolerate duplicates, for example by tracking {@link DomainEvent#id()}.
+ * Events of one aggregate arrive in order, on one thread at a time.
+ */
+public interface DomainEventConsumer {
+    
+    default boolean supports(DomainEventType type) {
+        return true;
+    }
+    
+    void handle(DomainEvent event);
+}
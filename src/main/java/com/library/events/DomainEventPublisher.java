@@ -0,0 +1,122 @@
+package com.library.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.OutboxEvent;
+import com.library.enums.DomainEventType;
+import com.library.enums.OutboxStatus;
+import com.library.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writes domain events to the outbox table. Must be called inside the transaction
+ * that makes the change, so the event is stored if and only if the change commits.
+ * After the commit the dispatcher is woken up to deliver the events without
+ * waiting for its next poll.
+ * <p>
+ * Each event gets the next sequence number of its aggregate from the
+ * {@code outbox_aggregates} row, which stays locked until the transaction ends, so
+ * transactions publishing for the same aggregate commit in sequence order.
+ */
+@Component
+public class DomainEventPublisher {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxDispatcher outboxDispatcher;
+    private final Counter published;
+    
+    public DomainEventPublisher(OutboxEventRepository outboxEventRepository,
+                                ObjectMapper objectMapper,
+                                JdbcTemplate jdbcTemplate,
+                                @Lazy OutboxDispatcher outboxDispatcher,
+                                MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxDispatcher = outboxDispatcher;
+        this.published = Counter.builder("library.events.published")
+                .description("Domain events written to the outbox")
+                .register(meterRegistry);
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(DomainEventType type, Long aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize " + type + " payload", e);
+        }
+        
+        String aggregateKey = DomainEvent.aggregateKey(type, aggregateId);
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(type)
+                .aggregateId(aggregateId)
+                .aggregateKey(aggregateKey)
+                .aggregateSequence(nextSequence(aggregateKey))
+                .payload(json)
+                .status(OutboxStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build());
+        registerAfterCommit();
+    }
+    
+    private long nextSequence(String aggregateKey) {
+        if (incrementSequence(aggregateKey) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO outbox_aggregates (aggregate_key, last_sequence) VALUES (?, 1)", aggregateKey);
+                return 1;
+            } catch (DuplicateKeyException e) {
+                // Another transaction published the aggregate's first event meanwhile and has committed
+                incrementSequence(aggregateKey);
+            }
+        }
+        return jdbcTemplate.queryForObject("SELECT last_sequence FROM outbox_aggregates WHERE aggregate_key = ?",
+                Long.class, aggregateKey);
+    }
+    
+    private int incrementSequence(String aggregateKey) {
+        return jdbcTemplate.update("UPDATE outbox_aggregates SET last_sequence = last_sequence + 1 WHERE aggregate_key = ?",
+                aggregateKey);
+    }
+    
+    // One synchronization per transaction, however many events it publishes
+    private void registerAfterCommit() {
+        PendingEvents pending = (PendingEvents) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingEvents();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        pending.count++;
+    }
+    
+    private final class PendingEvents implements TransactionSynchronization {
+        
+        private int count;
+        
+        @Override
+        public void afterCommit() {
+            published.increment(count);
+            outboxDispatcher.wakeUp();
+        }
+        
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(DomainEventPublisher.this);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.library.events;
+
+import com.library.entity.Book;
+import com.library.entity.Loan;
+
+import java.time.LocalDate;
+
+public record LoanEventPayload(Long loanId, Long userId, Long bookId, Long categoryId, LocalDate loanDate,
+                               LocalDate dueDate, LocalDate returnDate) {
+    
+    public static LoanEventPayload from(Loan loan) {
+        Book book = loan.getBook();
+        return new LoanEventPayload(loan.getId(), loan.getUser().getId(), book.getId(),
+                book.getCategory() != null ? book.getCategory().getId() : null,
+                loan.getLoanDate(), loan.getDueDate(), loan.getReturnDate());
+    }
+}
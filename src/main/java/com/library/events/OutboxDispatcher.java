@@ -0,0 +1,310 @@
+package com.library.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.OutboxEvent;
+import com.library.enums.OutboxStatus;
+import com.library.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers outbox events to the registered {@link DomainEventConsumer}s.
+ * <p>
+ * Pending events are read in id order, {@code app.events.batch-size} at a time,
+ * and split into {@code app.events.parallelism} lanes by aggregate, so events of
+ * one aggregate are always handled by a single thread while different aggregates
+ * proceed in parallel. Ids are not in commit order, so each lane is sorted by the
+ * aggregate sequence, and earlier pending events of an aggregate that fell outside
+ * the batch are pulled into it before any later one is delivered. Delivered events are acknowledged with one bulk
+ * UPDATE per batch. When a consumer fails, the remaining events of that aggregate
+ * are held back until the failed one succeeds, or is parked as FAILED after
+ * {@code app.events.max-attempts}.
+ * <p>
+ * Only one batch is in memory at a time: producers never wait on consumers, the
+ * backlog simply stays in the table and shows up in the pending and lag gauges.
+ * Run a single dispatcher per database; {@code app.events.dispatcher.enabled}
+ * turns it off on the other instances.
+ */
+@Component
+@Slf4j
+public class OutboxDispatcher {
+    
+    private final OutboxEventRepository outboxEventRepository;
+    private final List<DomainEventConsumer> consumers;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+    private final ObjectMapper objectMapper;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicBoolean signalled = new AtomicBoolean();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private final AtomicLong oldestPendingMillis = new AtomicLong();
+    private final Counter dispatched;
+    private final Counter failed;
+    private final Timer batchTimer;
+    
+    @Value("${app.events.dispatcher.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.events.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${app.events.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${app.events.max-attempts:10}")
+    private int maxAttempts;
+    
+    @Value("${app.events.retention-hours:24}")
+    private long retentionHours;
+    
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            List<DomainEventConsumer> consumers,
+                            TransactionTemplate transactionTemplate,
+                            AsyncTaskExecutor applicationTaskExecutor,
+                            ObjectMapper objectMapper,
+                            MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.consumers = consumers;
+        this.transactionTemplate = transactionTemplate;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+        this.objectMapper = objectMapper;
+        this.dispatched = Counter.builder("library.events.dispatched")
+                .description("Domain events delivered to all consumers")
+                .register(meterRegistry);
+        this.failed = Counter.builder("library.events.failed")
+                .description("Failed domain event deliveries, each retried later")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("library.events.dispatch.duration")
+                .description("Time to deliver and acknowledge one batch of domain events")
+                .register(meterRegistry);
+        Gauge.builder("library.events.pending", pending, AtomicLong::get)
+                .description("Domain events waiting for delivery")
+                .register(meterRegistry);
+        Gauge.builder("library.events.parked", parked, AtomicLong::get)
+                .description("Domain events given up on after the maximum number of attempts")
+                .register(meterRegistry);
+        Gauge.builder("library.events.lag", oldestPendingMillis,
+                        oldest -> oldest.get() == 0 ? 0 : (System.currentTimeMillis() - oldest.get()) / 1000.0)
+                .description("Age of the oldest undelivered domain event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Requests a drain as soon as possible; called after a transaction that published events commits.
+     */
+    public void wakeUp() {
+        if (!enabled) {
+            return;
+        }
+        signalled.set(true);
+        // A wake-up racing with the end of a drain is picked up by the next scheduled poll
+        if (!running.get()) {
+            applicationTaskExecutor.execute(this::drain);
+        }
+    }
+    
+    @Scheduled(fixedDelayString = "${app.events.poll-interval-ms:1000}")
+    public void scheduledDrain() {
+        if (enabled) {
+            drain();
+            refreshBacklog();
+        }
+    }
+    
+    /**
+     * Delivers pending events until the outbox is empty and returns how many were
+     * delivered, or 0 if a drain is already running.
+     */
+    public int drain() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            int delivered = 0;
+            do {
+                signalled.set(false);
+                BatchOutcome batch;
+                do {
+                    batch = dispatchBatch();
+                    delivered += batch.delivered();
+                    // After a failure the rest waits for the next poll, which spaces out the retries
+                } while (batch.delivered() > 0 && batch.failures() == 0);
+            } while (signalled.get());
+            return delivered;
+        } catch (RuntimeException e) {
+            log.error("Outbox dispatch failed: {}", e.getMessage());
+            return 0;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    @Scheduled(cron = "${app.events.purge-cron:0 0 * * * *}")
+    public void purgeProcessed() {
+        Integer purged = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minusHours(retentionHours)));
+        if (purged != null && purged > 0) {
+            log.info("Purged {} delivered outbox events", purged);
+        }
+    }
+    
+    private BatchOutcome dispatchBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.findByStatusOrderByIdAsc(OutboxStatus.PENDING, Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return new BatchOutcome(0, 0);
+        }
+        long start = System.nanoTime();
+        
+        Map<Integer, List<DomainEvent>> lanes = new LinkedHashMap<>();
+        for (List<DomainEvent> aggregate : inSequenceOrder(batch).values()) {
+            lanes.computeIfAbsent(Math.floorMod(aggregate.get(0).aggregateKey().hashCode(), parallelism),
+                    lane -> new ArrayList<>()).addAll(aggregate);
+        }
+        
+        List<Future<LaneResult>> futures = new ArrayList<>(lanes.size());
+        for (List<DomainEvent> lane : lanes.values()) {
+            futures.add(applicationTaskExecutor.submit(() -> deliver(lane)));
+        }
+        List<Long> delivered = new ArrayList<>(batch.size());
+        List<Failure> failures = new ArrayList<>();
+        for (Future<LaneResult> future : futures) {
+            try {
+                LaneResult result = future.get();
+                delivered.addAll(result.delivered());
+                failures.addAll(result.failures());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return new BatchOutcome(0, 0);
+            } catch (ExecutionException e) {
+                log.error("Outbox lane failed: {}", e.getCause().getMessage());
+            }
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!delivered.isEmpty()) {
+                outboxEventRepository.markProcessed(delivered, LocalDateTime.now());
+            }
+            for (Failure failure : failures) {
+                outboxEventRepository.recordFailure(failure.eventId(), failure.error(), maxAttempts);
+            }
+        });
+        
+        dispatched.increment(delivered.size());
+        failed.increment(failures.size());
+        batchTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        return new BatchOutcome(delivered.size(), failures.size());
+    }
+    
+    /**
+     * Groups the batch by aggregate, each group sorted by sequence and completed with
+     * the pending events it is missing below its highest sequence.
+     */
+    private Map<String, List<DomainEvent>> inSequenceOrder(List<OutboxEvent> batch) {
+        Map<String, List<DomainEvent>> aggregates = new LinkedHashMap<>();
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            aggregates.computeIfAbsent(event.getAggregateKey(), key -> new ArrayList<>())
+                    .add(DomainEvent.from(event, objectMapper));
+            ids.add(event.getId());
+        }
+        for (List<DomainEvent> events : aggregates.values()) {
+            events.sort(Comparator.comparingLong(DomainEvent::sequence));
+        }
+        
+        for (Object[] row : outboxEventRepository.findFirstPendingSequences(aggregates.keySet(), ids)) {
+            String key = (String) row[0];
+            List<DomainEvent> events = aggregates.get(key);
+            long last = events.get(events.size() - 1).sequence();
+            if ((Long) row[1] < last) {
+                Set<Long> present = new HashSet<>();
+                events.forEach(event -> present.add(event.id()));
+                for (OutboxEvent missing : outboxEventRepository
+                        .findByStatusAndAggregateKeyAndAggregateSequenceLessThanOrderByAggregateSequenceAsc(
+                                OutboxStatus.PENDING, key, last)) {
+                    if (present.add(missing.getId())) {
+                        events.add(DomainEvent.from(missing, objectMapper));
+                    }
+                }
+                events.sort(Comparator.comparingLong(DomainEvent::sequence));
+            }
+        }
+        return aggregates;
+    }
+    
+    private LaneResult deliver(List<DomainEvent> events) {
+        List<Long> delivered = new ArrayList<>(events.size());
+        List<Failure> failures = new ArrayList<>();
+        Set<String> blocked = new HashSet<>();
+        for (DomainEvent event : events) {
+            // Later events of an aggregate wait until an earlier failed one goes through
+            if (blocked.contains(event.aggregateKey())) {
+                continue;
+            }
+            try {
+                for (DomainEventConsumer consumer : consumers) {
+                    if (consumer.supports(event.type())) {
+                        consumer.handle(event);
+                    }
+                }
+                delivered.add(event.id());
+            } catch (RuntimeException e) {
+                blocked.add(event.aggregateKey());
+                failures.add(new Failure(event.id(), truncate(e.toString())));
+                log.warn("Delivery of {} event {} failed: {}", event.type(), event.id(), e.toString());
+            }
+        }
+        return new LaneResult(delivered, failures);
+    }
+    
+    private void refreshBacklog() {
+        try {
+            long count = outboxEventRepository.countByStatus(OutboxStatus.PENDING);
+            LocalDateTime oldest = count > 0 ? outboxEventRepository.findOldestPendingCreatedAt() : null;
+            pending.set(count);
+            oldestPendingMillis.set(oldest != null ? oldest.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0);
+            parked.set(outboxEventRepository.countByStatus(OutboxStatus.FAILED));
+        } catch (RuntimeException e) {
+            log.warn("Could not read outbox backlog: {}", e.getMessage());
+        }
+    }
+    
+    private static String truncate(String message) {
+        return message.length() <= 1000 ? message : message.substring(0, 1000);
+    }
+    
+    private record BatchOutcome(int delivered, int failures) {
+    }
+    
+    private record LaneResult(List<Long> delivered, List<Failure> failures) {
+    }
+    
+    private record Failure(Long eventId, String error) {
+    }
+}
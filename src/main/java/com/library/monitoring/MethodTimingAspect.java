@@ -0,0 +1,66 @@
+package com.library.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a timer per service method and per repository query. Percentiles and
+ * histograms for these timers are configured under
+ * {@code management.metrics.distribution}.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class MethodTimingAspect {
+    
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<Class<?>, String> typeNames = new ConcurrentHashMap<>();
+    
+    @Around("execution(public * com.library.service.*Service.*(..))")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("library.service.duration", joinPoint);
+    }
+    
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time("library.repository.duration", joinPoint);
+    }
+    
+    private Object time(String name, ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = System.nanoTime();
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            Timer.builder(name)
+                    .tag("class", typeName(joinPoint.getTarget().getClass()))
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    // Repository targets are JDK proxies; name them after the application interface they implement
+    private String typeName(Class<?> type) {
+        return typeNames.computeIfAbsent(type, key -> {
+            for (Class<?> candidate : key.getInterfaces()) {
+                if (candidate.getName().startsWith("com.library.")) {
+                    return candidate.getSimpleName();
+                }
+            }
+            return key.getSimpleName();
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.library.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Records how many SQL statements each request issues and warns when one
+ * statement is repeated often enough to suggest an N+1 query pattern.
+ */
+@Component
+@Slf4j
+public class StatementCountFilter extends OncePerRequestFilter {
+    
+    private final StatementCounter statementCounter;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${app.monitoring.repeated-statement-threshold:10}")
+    private int repeatedStatementThreshold;
+    
+    public StatementCountFilter(StatementCounter statementCounter, MeterRegistry meterRegistry) {
+        this.statementCounter = statementCounter;
+        this.meterRegistry = meterRegistry;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        statementCounter.start();
+        Map<String, Integer> statements;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            statements = statementCounter.stop();
+        }
+        
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        int total = 0;
+        Map.Entry<String, Integer> mostRepeated = null;
+        for (Map.Entry<String, Integer> entry : statements.entrySet()) {
+            total += entry.getValue();
+            if (mostRepeated == null || entry.getValue() > mostRepeated.getValue()) {
+                mostRepeated = entry;
+            }
+        }
+        
+        DistributionSummary.builder("library.http.statements")
+                .description("SQL statements issued per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(total);
+        if (mostRepeated != null && mostRepeated.getValue() >= repeatedStatementThreshold) {
+            meterRegistry.counter("library.http.statements.repeated", "method", request.getMethod(), "uri", uri).increment();
+            log.warn("Possible N+1: {} {} ran {} statements, {} of them: {}",
+                    request.getMethod(), uri, total, mostRepeated.getValue(), mostRepeated.getKey());
+        }
+    }
+}
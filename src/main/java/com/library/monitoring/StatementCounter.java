@@ -0,0 +1,39 @@
+package com.library.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a
+ * count is open, grouped by statement text so repeated lookups stand out.
+ */
+@Component
+public class StatementCounter implements StatementInspector {
+    
+    private final ThreadLocal<Map<String, Integer>> statements = new ThreadLocal<>();
+    
+    @Override
+    public String inspect(String sql) {
+        Map<String, Integer> counts = statements.get();
+        if (counts != null) {
+            counts.merge(sql, 1, Integer::sum);
+        }
+        return sql;
+    }
+    
+    public void start() {
+        statements.set(new HashMap<>());
+    }
+    
+    /**
+     * Ends the count on the current thread and returns the statements seen since {@link #start()}.
+     */
+    public Map<String, Integer> stop() {
+        Map<String, Integer> counts = statements.get();
+        statements.remove();
+        return counts != null ? counts : Map.of();
+    }
+}
@@ -0,0 +1,16 @@
+package com.library.reactive;
+
+import java.time.LocalDateTime;
+
+/**
+ * A book row as served by the reactive catalogue, with the same JSON shape as the
+ * {@code Book} entity returned by {@code /api/books}.
+ */
+public record BookView(Long id, String title, String author, String isbn, String description, Integer totalCopies,
+                       Integer availableCopies, CategoryView category, LocalDateTime createdAt,
+                       LocalDateTime updatedAt) {
+    
+    public record CategoryView(Long id, String name, String description, LocalDateTime createdAt,
+                               LocalDateTime updatedAt) {
+    }
+}
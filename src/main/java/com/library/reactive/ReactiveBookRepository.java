@@ -0,0 +1,164 @@
+package com.library.reactive;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.pool.PoolMetrics;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Read-only book queries over R2DBC against the tables owned by the JPA side.
+ * <p>
+ * The connection pool is private to this class rather than a bean: a
+ * {@code ConnectionFactory} bean would make Spring Boot back off from creating the
+ * JDBC {@code DataSource} that JPA, Flyway and all writes use.
+ */
+@Component
+public class ReactiveBookRepository implements DisposableBean {
+    
+    private static final String SELECT_BOOKS = "SELECT b.id, b.title, b.author, b.isbn, " +
+            "CAST(b.description AS VARCHAR) AS description, b.total_copies, b.available_copies, b.created_at, b.updated_at, " +
+            "c.id AS category_id, c.name AS category_name, CAST(c.description AS VARCHAR) AS category_description, " +
+            "c.created_at AS category_created_at, c.updated_at AS category_updated_at " +
+            "FROM books b LEFT JOIN categories c ON c.id = b.category_id";
+    
+    private final ConnectionPool pool;
+    private final DatabaseClient databaseClient;
+    
+    public ReactiveBookRepository(@Value("${app.reactive.url}") String url,
+                                  @Value("${spring.datasource.username:}") String username,
+                                  @Value("${spring.datasource.password:}") String password,
+                                  @Value("${app.reactive.pool.max-size:10}") int maxSize,
+                                  MeterRegistry meterRegistry) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.pool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .name("reactive-catalogue")
+                .initialSize(0)
+                .maxSize(maxSize)
+                .maxIdleTime(Duration.ofMinutes(10))
+                .build());
+        this.databaseClient = DatabaseClient.create(pool);
+        gauge(meterRegistry, "acquired", "Reactive catalogue connections in use", PoolMetrics::acquiredSize);
+        gauge(meterRegistry, "idle", "Idle reactive catalogue connections", PoolMetrics::idleSize);
+        gauge(meterRegistry, "pending", "Queries waiting for a reactive catalogue connection", PoolMetrics::pendingAcquireSize);
+    }
+    
+    private void gauge(MeterRegistry meterRegistry, String state, String description, ToIntFunction<PoolMetrics> metric) {
+        Gauge.builder("library.reactive.connections", pool,
+                        p -> p.getMetrics().map(metric::applyAsInt).orElse(0))
+                .tag("state", state)
+                .description(description)
+                .register(meterRegistry);
+    }
+    
+    public Flux<BookView> findAll(long offset, int limit) {
+        return databaseClient.sql(SELECT_BOOKS + " ORDER BY b.id LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveBookRepository::toView)
+                .all();
+    }
+    
+    public Flux<BookView> findAvailable(long offset, int limit) {
+        return databaseClient.sql(SELECT_BOOKS + " WHERE b.available_copies > 0 ORDER BY b.id LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveBookRepository::toView)
+                .all();
+    }
+    
+    public Mono<BookView> findById(Long id) {
+        return databaseClient.sql(SELECT_BOOKS + " WHERE b.id = :id")
+                .bind("id", id)
+                .map(ReactiveBookRepository::toView)
+                .one();
+    }
+    
+    /**
+     * Same filters as {@code BookRepository.findBooksWithFilters}, optionally
+     * restricted to the candidate ids found by the search index.
+     */
+    public Flux<BookView> search(Collection<Long> ids, String title, String author, String isbn, Long categoryId,
+                                 long offset, int limit) {
+        List<String> conditions = new ArrayList<>();
+        if (ids != null) {
+            conditions.add("b.id IN (:ids)");
+        }
+        if (title != null) {
+            conditions.add("LOWER(b.title) LIKE :title");
+        }
+        if (author != null) {
+            conditions.add("LOWER(b.author) LIKE :author");
+        }
+        if (isbn != null) {
+            conditions.add("b.isbn = :isbn");
+        }
+        if (categoryId != null) {
+            conditions.add("b.category_id = :categoryId");
+        }
+        String where = conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+        
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(SELECT_BOOKS + where + " ORDER BY b.id LIMIT :limit OFFSET :offset")
+                .bind("limit", limit)
+                .bind("offset", offset);
+        if (ids != null) {
+            spec = spec.bind("ids", ids);
+        }
+        if (title != null) {
+            spec = spec.bind("title", "%" + title.toLowerCase() + "%");
+        }
+        if (author != null) {
+            spec = spec.bind("author", "%" + author.toLowerCase() + "%");
+        }
+        if (isbn != null) {
+            spec = spec.bind("isbn", isbn);
+        }
+        if (categoryId != null) {
+            spec = spec.bind("categoryId", categoryId);
+        }
+        return spec.map(ReactiveBookRepository::toView).all();
+    }
+    
+    private static BookView toView(Readable row) {
+        Long categoryId = row.get("category_id", Long.class);
+        BookView.CategoryView category = categoryId == null ? null : new BookView.CategoryView(categoryId,
+                row.get("category_name", String.class),
+                row.get("category_description", String.class),
+                row.get("category_created_at", LocalDateTime.class),
+                row.get("category_updated_at", LocalDateTime.class));
+        return new BookView(row.get("id", Long.class),
+                row.get("title", String.class),
+                row.get("author", String.class),
+                row.get("isbn", String.class),
+                row.get("description", String.class),
+                row.get("total_copies", Integer.class),
+                row.get("available_copies", Integer.class),
+                category,
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+    }
+    
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+}
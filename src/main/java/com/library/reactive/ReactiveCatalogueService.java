@@ -0,0 +1,54 @@
+package com.library.reactive;
+
+import com.library.dto.response.CursorPage;
+import com.library.exception.ResourceNotFoundException;
+import com.library.search.BookSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Non-blocking counterparts of the catalogue reads in {@code BookService}. Pages
+ * are ordered by id; writes stay on the JPA services.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveCatalogueService {
+    
+    private final ReactiveBookRepository reactiveBookRepository;
+    private final BookSearchIndex bookSearchIndex;
+    
+    public Flux<BookView> getAllBooks(int page, int size) {
+        int limit = CursorPage.clampSize(size);
+        return reactiveBookRepository.findAll(offset(page, limit), limit);
+    }
+    
+    public Flux<BookView> getAvailableBooks(int page, int size) {
+        int limit = CursorPage.clampSize(size);
+        return reactiveBookRepository.findAvailable(offset(page, limit), limit);
+    }
+    
+    public Mono<BookView> getBookById(Long id) {
+        return reactiveBookRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Book not found with id: " + id)));
+    }
+    
+    public Flux<BookView> searchBooks(String title, String author, String isbn, Long categoryId, int page, int size) {
+        int limit = CursorPage.clampSize(size);
+        // The index lookup is in memory, so it is fine on the subscribing thread
+        int[] candidateIds = bookSearchIndex.findCandidates(title, author);
+        if (candidateIds != null && candidateIds.length == 0) {
+            return Flux.empty();
+        }
+        List<Long> ids = candidateIds != null ? Arrays.stream(candidateIds).asLongStream().boxed().toList() : null;
+        return reactiveBookRepository.search(ids, title, author, isbn, categoryId, offset(page, limit), limit);
+    }
+    
+    private static long offset(int page, int limit) {
+        return (long) Math.max(page, 0) * limit;
+    }
+}
@@ -0,0 +1,64 @@
+package com.library.reactive.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.security.JwtAuthenticationCache;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Requires a valid bearer token on every request to the reactive server, with the
+ * same 401 body as {@code JwtAuthenticationEntryPoint} on the servlet side.
+ */
+class ReactiveAuthenticationFilter implements WebFilter {
+    
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+    private final ObjectMapper objectMapper;
+    
+    ReactiveAuthenticationFilter(JwtAuthenticationCache jwtAuthenticationCache, ObjectMapper objectMapper) {
+        this.jwtAuthenticationCache = jwtAuthenticationCache;
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) {
+            return unauthorized(exchange);
+        }
+        String jwt = header.substring(7);
+        // A cache miss loads the user through JPA, which must not block an event loop thread
+        return Mono.fromCallable(() -> Optional.ofNullable(jwtAuthenticationCache.authenticate(jwt)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorReturn(Optional.empty())
+                .flatMap(user -> user.isPresent() ? chain.filter(exchange) : unauthorized(exchange));
+    }
+    
+    private Mono<Void> unauthorized(ServerWebExchange exchange) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpStatus.UNAUTHORIZED.value());
+        body.put("error", "Unauthorized");
+        body.put("message", "Full authentication is required to access this resource");
+        body.put("path", exchange.getRequest().getPath().value());
+        
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        try {
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(objectMapper.writeValueAsBytes(body))));
+        } catch (JsonProcessingException e) {
+            return Mono.error(e);
+        }
+    }
+}
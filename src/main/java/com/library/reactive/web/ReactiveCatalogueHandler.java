@@ -0,0 +1,76 @@
+package com.library.reactive.web;
+
+import com.library.dto.response.ApiResponse;
+import com.library.reactive.BookView;
+import com.library.reactive.ReactiveCatalogueService;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Handlers for the read-only catalogue routes of the reactive server. Lists come
+ * back as one JSON document, or with {@code Accept: application/x-ndjson} as a
+ * stream that is written one book at a time as the client consumes it. Parameters
+ * are parsed inside the returned publisher so bad values reach the route's error
+ * handlers.
+ */
+class ReactiveCatalogueHandler {
+    
+    private final ReactiveCatalogueService reactiveCatalogueService;
+    
+    ReactiveCatalogueHandler(ReactiveCatalogueService reactiveCatalogueService) {
+        this.reactiveCatalogueService = reactiveCatalogueService;
+    }
+    
+    Mono<ServerResponse> getAllBooks(ServerRequest request) {
+        return Mono.defer(() -> respond(request,
+                reactiveCatalogueService.getAllBooks(intParam(request, "page", 0), intParam(request, "size", 20))));
+    }
+    
+    Mono<ServerResponse> searchBooks(ServerRequest request) {
+        return Mono.defer(() -> respond(request, reactiveCatalogueService.searchBooks(
+                request.queryParam("title").orElse(null),
+                request.queryParam("author").orElse(null),
+                request.queryParam("isbn").orElse(null),
+                longParam(request, "categoryId"),
+                intParam(request, "page", 0),
+                intParam(request, "size", 20))));
+    }
+    
+    Mono<ServerResponse> getAvailableBooks(ServerRequest request) {
+        return Mono.defer(() -> respond(request,
+                reactiveCatalogueService.getAvailableBooks(intParam(request, "page", 0), intParam(request, "size", 20))));
+    }
+    
+    Mono<ServerResponse> getBookById(ServerRequest request) {
+        return Mono.defer(() -> reactiveCatalogueService.getBookById(parseLong("id", request.pathVariable("id"))))
+                .flatMap(book -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(ApiResponse.success(book)));
+    }
+    
+    private static Mono<ServerResponse> respond(ServerRequest request, Flux<BookView> books) {
+        if (request.headers().accept().stream().anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype)) {
+            return ServerResponse.ok().contentType(MediaType.APPLICATION_NDJSON).body(books, BookView.class);
+        }
+        return books.collectList()
+                .flatMap(list -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(ApiResponse.success(list)));
+    }
+    
+    private static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(value -> (int) parseLong(name, value)).orElse(defaultValue);
+    }
+    
+    private static Long longParam(ServerRequest request, String name) {
+        return request.queryParam(name).map(value -> parseLong(name, value)).orElse(null);
+    }
+    
+    private static long parseLong(String name, String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new ServerWebInputException("Invalid value for " + name + ": " + value);
+        }
+    }
+}
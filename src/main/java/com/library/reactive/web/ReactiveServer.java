@@ -0,0 +1,76 @@
+package com.library.reactive.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.reactive.ReactiveCatalogueService;
+import com.library.security.JwtAuthenticationCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.reactive.context.AnnotationConfigReactiveWebServerApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serves {@code /api/reactive/books} from WebFlux on Netty, on
+ * {@code app.reactive.server.port} next to the servlet API. Requests there never
+ * touch a Tomcat thread: they are handled on the Netty event loops, and the R2DBC
+ * queries release them while waiting for the database.
+ * <p>
+ * The servlet filters (rate limiting, bulkhead, coalescing) do not apply to this
+ * port; authentication does, through {@link ReactiveAuthenticationFilter}.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reactive.server.enabled", havingValue = "true")
+@Slf4j
+public class ReactiveServer implements SmartLifecycle {
+    
+    private final ConfigurableEnvironment environment;
+    private final ObjectMapper objectMapper;
+    private final ReactiveCatalogueService reactiveCatalogueService;
+    private final JwtAuthenticationCache jwtAuthenticationCache;
+    private volatile AnnotationConfigReactiveWebServerApplicationContext context;
+    
+    public ReactiveServer(ConfigurableEnvironment environment,
+                          ObjectMapper objectMapper,
+                          ReactiveCatalogueService reactiveCatalogueService,
+                          JwtAuthenticationCache jwtAuthenticationCache) {
+        this.environment = environment;
+        this.objectMapper = objectMapper;
+        this.reactiveCatalogueService = reactiveCatalogueService;
+        this.jwtAuthenticationCache = jwtAuthenticationCache;
+    }
+    
+    @Override
+    public void start() {
+        AnnotationConfigReactiveWebServerApplicationContext child = new AnnotationConfigReactiveWebServerApplicationContext();
+        child.setEnvironment(environment);
+        child.registerBean(ObjectMapper.class, () -> objectMapper);
+        child.registerBean(ReactiveCatalogueService.class, () -> reactiveCatalogueService);
+        child.registerBean(JwtAuthenticationCache.class, () -> jwtAuthenticationCache);
+        child.register(ReactiveWebConfig.class);
+        child.refresh();
+        context = child;
+        log.info("Reactive catalogue served by WebFlux on port {}", getPort());
+    }
+    
+    @Override
+    public void stop() {
+        AnnotationConfigReactiveWebServerApplicationContext child = context;
+        context = null;
+        if (child != null) {
+            child.close();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return context != null;
+    }
+    
+    /**
+     * The port the server listens on, useful when {@code app.reactive.server.port} is 0.
+     */
+    public int getPort() {
+        return context.getWebServer().getPort();
+    }
+}
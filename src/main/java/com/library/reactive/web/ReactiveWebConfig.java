@@ -0,0 +1,83 @@
+package com.library.reactive.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.response.ApiResponse;
+import com.library.exception.ResourceNotFoundException;
+import com.library.reactive.ReactiveCatalogueService;
+import com.library.security.JwtAuthenticationCache;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.web.reactive.config.EnableWebFlux;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * The WebFlux context of the reactive server. It is a separate context rather than a
+ * child of the servlet one, since WebFlux refuses to start next to Spring MVC's
+ * configuration, so {@link ReactiveServer} hands it the few beans the routes need.
+ * Deliberately not a {@code @Configuration}: component scanning must not pull it
+ * into the servlet context.
+ */
+@EnableWebFlux
+class ReactiveWebConfig implements WebFluxConfigurer {
+    
+    private final ObjectMapper objectMapper;
+    
+    ReactiveWebConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+    
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+        configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+    }
+    
+    @Bean
+    RouterFunction<ServerResponse> catalogueRoutes(ReactiveCatalogueService reactiveCatalogueService) {
+        ReactiveCatalogueHandler handler = new ReactiveCatalogueHandler(reactiveCatalogueService);
+        return RouterFunctions.route()
+                .path("/api/reactive/books", books -> books
+                        .GET("", handler::getAllBooks)
+                        .GET("/search", handler::searchBooks)
+                        .GET("/available", handler::getAvailableBooks)
+                        .GET("/{id}", handler::getBookById))
+                .onError(ResourceNotFoundException.class, (e, request) -> error(HttpStatus.NOT_FOUND, e.getMessage()))
+                .onError(ServerWebInputException.class, (e, request) ->
+                        error(HttpStatus.BAD_REQUEST, ((ServerWebInputException) e).getReason()))
+                .build();
+    }
+    
+    private static Mono<ServerResponse> error(HttpStatus status, String message) {
+        return ServerResponse.status(status).contentType(MediaType.APPLICATION_JSON).bodyValue(ApiResponse.error(message));
+    }
+    
+    @Bean
+    ReactiveAuthenticationFilter reactiveAuthenticationFilter(JwtAuthenticationCache jwtAuthenticationCache) {
+        return new ReactiveAuthenticationFilter(jwtAuthenticationCache, objectMapper);
+    }
+    
+    @Bean
+    HttpHandler httpHandler(ApplicationContext applicationContext) {
+        return WebHttpHandlerBuilder.applicationContext(applicationContext).build();
+    }
+    
+    @Bean
+    NettyReactiveWebServerFactory reactiveWebServerFactory(Environment environment) {
+        // This context has no placeholder configurer, so @Value would not resolve; the environment is the application's
+        return new NettyReactiveWebServerFactory(environment.getProperty("app.reactive.server.port", Integer.class, 8081));
+    }
+}
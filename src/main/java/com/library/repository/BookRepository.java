@@ -1,22 +1,63 @@
 package com.library.repository;
 
 import com.library.entity.Book;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     
+    /**
+     * Catalogue data only: {@code availableCopies} of the cached instance goes stale
+     * with every checkout, so read it through {@link #findAvailableCopiesById}.
+     */
+    @Cacheable(cacheNames = "books", unless = "#result == null")
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findCachedById(@Param("id") Long id);
+    
+    @Cacheable(cacheNames = "booksByIsbn", unless = "#result == null")
+    @EntityGraph(attributePaths = "category")
     Optional<Book> findByIsbn(String isbn);
     
+    @Query("SELECT b.availableCopies FROM Book b WHERE b.id = :id")
+    Optional<Integer> findAvailableCopiesById(@Param("id") Long id);
+    
+    /** The update time and available copies of one book, the two columns its ETag is derived from. */
+    @Query("SELECT b.updatedAt, b.availableCopies FROM Book b WHERE b.id = :id")
+    List<Object[]> findVersionById(@Param("id") Long id);
+    
     boolean existsByIsbn(String isbn);
     
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+    
+    @Override
+    @EntityGraph(attributePaths = "category")
+    Page<Book> findAll(Pageable pageable);
+    
+    @EntityGraph(attributePaths = "category")
+    Page<Book> findByCategoryId(Long categoryId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT b FROM Book b WHERE " +
            "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
            "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
@@ -28,6 +69,61 @@ public interface BookRepository extends JpaRepository<Book, Long> {
                                    @Param("categoryId") Long categoryId,
                                    Pageable pageable);
     
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids AND " +
+           "(:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) AND " +
+           "(:author IS NULL OR LOWER(b.author) LIKE LOWER(CONCAT('%', :author, '%'))) AND " +
+           "(:isbn IS NULL OR b.isbn = :isbn) AND " +
+           "(:categoryId IS NULL OR b.category.id = :categoryId)")
+    Page<Book> findBooksWithFiltersAmong(@Param("ids") Collection<Long> ids,
+                                        @Param("title") String title,
+                                        @Param("author") String author,
+                                        @Param("isbn") String isbn,
+                                        @Param("categoryId") Long categoryId,
+                                        Pageable pageable);
+    
+    @Query("SELECT b.id, b.title, b.author FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<Object[]> findSearchIndexRows(@Param("afterId") Long afterId, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT b FROM Book b WHERE b.availableCopies > 0")
     Page<Book> findAvailableBooks(Pageable pageable);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b LEFT JOIN FETCH b.category ORDER BY b.id")
+    Stream<Book> streamAllForExport();
+    
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT b FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<Book> findNextById(@Param("afterId") Long afterId, Limit limit);
+    
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT b FROM Book b WHERE b.title >= :afterTitle AND (b.title > :afterTitle OR b.id > :afterId) " +
+           "ORDER BY b.title, b.id")
+    List<Book> findNextByTitle(@Param("afterTitle") String afterTitle, @Param("afterId") Long afterId, Limit limit);
+    
+    // Ordered by id so concurrent batches lock rows in the same order
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids ORDER BY b.id")
+    List<Book> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1 WHERE b.id = :id AND b.availableCopies > 0")
+    int decrementAvailableCopies(@Param("id") Long id);
+    
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies - 1 WHERE b.id IN :ids AND b.availableCopies > 0")
+    int decrementAvailableCopies(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1 WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int incrementAvailableCopies(@Param("id") Long id);
+    
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = CASE WHEN b.availableCopies + :count > b.totalCopies " +
+           "THEN b.totalCopies ELSE b.availableCopies + :count END WHERE b.id IN :ids")
+    int incrementAvailableCopies(@Param("ids") Collection<Long> ids, @Param("count") int count);
 }
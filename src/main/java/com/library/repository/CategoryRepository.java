@@ -1,6 +1,7 @@
 package com.library.repository;
 
 import com.library.entity.Category;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,6 +10,10 @@ import java.util.Optional;
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
     
+    @Override
+    @Cacheable(cacheNames = "categories", unless = "#result == null")
+    Optional<Category> findById(Long id);
+    
     Optional<Category> findByName(String name);
     
     boolean existsByName(String name);
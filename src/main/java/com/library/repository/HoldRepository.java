@@ -0,0 +1,58 @@
+package com.library.repository;
+
+import com.library.entity.Hold;
+import com.library.enums.HoldStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HoldRepository extends JpaRepository<Hold, Long> {
+    
+    /**
+     * The head of a title's queue. Callers hold the lock on the book row, which is
+     * what keeps two allocations from serving the same hold.
+     */
+    @Query("SELECT h FROM Hold h WHERE h.book.id = :bookId AND h.status = com.library.enums.HoldStatus.WAITING ORDER BY h.id")
+    List<Hold> findWaitingByBook(@Param("bookId") Long bookId, Limit limit);
+    
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT h FROM Hold h WHERE h.user.id = :userId AND h.status IN :statuses ORDER BY h.id")
+    List<Hold> findByUserAndStatuses(@Param("userId") Long userId, @Param("statuses") Collection<HoldStatus> statuses);
+    
+    @Query("SELECT COUNT(h) FROM Hold h WHERE h.user.id = :userId AND h.status IN :statuses")
+    long countByUserAndStatuses(@Param("userId") Long userId, @Param("statuses") Collection<HoldStatus> statuses);
+    
+    @Query("SELECT COUNT(h) > 0 FROM Hold h WHERE h.user.id = :userId AND h.book.id = :bookId AND h.status IN :statuses")
+    boolean existsByUserAndBookAndStatuses(@Param("userId") Long userId,
+                                           @Param("bookId") Long bookId,
+                                           @Param("statuses") Collection<HoldStatus> statuses);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.user.id = :userId AND h.book.id IN :bookIds AND h.status = com.library.enums.HoldStatus.READY")
+    List<Hold> findReadyForUpdate(@Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM Hold h WHERE h.id = :id")
+    Optional<Hold> findByIdForUpdate(@Param("id") Long id);
+    
+    @Query("SELECT h.id FROM Hold h WHERE h.status = com.library.enums.HoldStatus.READY AND h.expiresAt < :now " +
+           "AND h.id > :afterId ORDER BY h.id")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, @Param("afterId") Long afterId, Limit limit);
+    
+    /**
+     * Pairs of book id and hold id for every waiting hold, in queue order.
+     */
+    @Query("SELECT h.book.id, h.id FROM Hold h WHERE h.status = com.library.enums.HoldStatus.WAITING ORDER BY h.id")
+    List<Object[]> findAllWaiting();
+}
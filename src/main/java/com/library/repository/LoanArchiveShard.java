@@ -0,0 +1,205 @@
+package com.library.repository;
+
+import com.library.entity.ArchivedLoan;
+import com.library.enums.LoanStatus;
+import com.library.exception.BusinessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * One store of archived loans: the {@code loan_archive} table of one database.
+ * Stores are read and written with JDBC, since only the first of them lives in
+ * the database Hibernate runs on. Writes go through the store's own transaction
+ * template, which for that first store joins the caller's transaction.
+ */
+public class LoanArchiveShard {
+    
+    static final String COLUMNS = "id, user_id, book_id, book_title, loan_date, due_date, return_date, status, " +
+            "created_at, updated_at, archived_at";
+    static final String FIND_BY_USER_ID = "SELECT " + COLUMNS + " FROM loan_archive WHERE user_id = ? ORDER BY %s LIMIT ?";
+    static final String COUNT_BY_USER_ID = "SELECT COUNT(*) FROM loan_archive WHERE user_id = ?";
+    static final String FIND_NEXT_BY_USER_ID = "SELECT " + COLUMNS + " FROM loan_archive WHERE user_id = ? AND id > ? ORDER BY id LIMIT ?";
+    static final String FIND_BY_ID = "SELECT " + COLUMNS + " FROM loan_archive WHERE id = ?";
+    
+    // Properties a page of archived loans can be sorted by, as named on LoanSummary
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "loanDate", "loan_date",
+            "dueDate", "due_date",
+            "returnDate", "return_date",
+            "status", "status");
+    
+    private static final RowMapper<ArchivedLoan> ROW_MAPPER = (rs, rowNum) -> ArchivedLoan.builder()
+            .id(rs.getLong("id"))
+            .userId(rs.getLong("user_id"))
+            .bookId(rs.getLong("book_id"))
+            .bookTitle(rs.getString("book_title"))
+            .loanDate(rs.getObject("loan_date", LocalDate.class))
+            .dueDate(rs.getObject("due_date", LocalDate.class))
+            .returnDate(rs.getObject("return_date", LocalDate.class))
+            .status(LoanStatus.valueOf(rs.getString("status")))
+            .createdAt(rs.getObject("created_at", LocalDateTime.class))
+            .updatedAt(rs.getObject("updated_at", LocalDateTime.class))
+            .archivedAt(rs.getObject("archived_at", LocalDateTime.class))
+            .build();
+    
+    private final int index;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    public LoanArchiveShard(int index, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.index = index;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+    }
+    
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * The store's connection, for aggregate queries over its {@code loan_archive}.
+     */
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+    
+    /**
+     * Fails with a {@link BusinessException} unless every property of the sort can
+     * be used to order archived loans.
+     */
+    public static void checkSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            if (!SORT_COLUMNS.containsKey(order.getProperty())) {
+                throw new BusinessException("Unsupported sort: " + order.getProperty());
+            }
+        }
+    }
+    
+    public long count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan_archive", Long.class);
+    }
+    
+    public long countByUserId(Long userId) {
+        return jdbcTemplate.queryForObject(COUNT_BY_USER_ID, Long.class, userId);
+    }
+    
+    public long countByStatus(LoanStatus status) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loan_archive WHERE status = ?", Long.class, status.name());
+    }
+    
+    /**
+     * Streams the first {@code limit} loans of the store in the given order; the
+     * stream holds a connection until it is closed.
+     */
+    public Stream<ArchivedLoan> streamAll(Sort sort, int limit) {
+        return jdbcTemplate.queryForStream("SELECT " + COLUMNS + " FROM loan_archive ORDER BY " + orderBy(sort) + " LIMIT ?",
+                ROW_MAPPER, limit);
+    }
+    
+    public Stream<ArchivedLoan> streamByUserId(Long userId, Sort sort, int limit) {
+        return jdbcTemplate.queryForStream(FIND_BY_USER_ID.formatted(orderBy(sort)), ROW_MAPPER, userId, limit);
+    }
+    
+    public Stream<ArchivedLoan> streamByStatus(LoanStatus status, Sort sort, int limit) {
+        return jdbcTemplate.queryForStream("SELECT " + COLUMNS + " FROM loan_archive WHERE status = ? ORDER BY " + orderBy(sort) +
+                " LIMIT ?", ROW_MAPPER, status.name(), limit);
+    }
+    
+    public List<ArchivedLoan> findNextById(Long afterId, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM loan_archive WHERE id > ? ORDER BY id LIMIT ?",
+                ROW_MAPPER, afterId, limit);
+    }
+    
+    public List<ArchivedLoan> findNextByUserId(Long userId, Long afterId, int limit) {
+        return jdbcTemplate.query(FIND_NEXT_BY_USER_ID, ROW_MAPPER, userId, afterId, limit);
+    }
+    
+    public List<ArchivedLoan> findNextByStatus(LoanStatus status, Long afterId, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM loan_archive WHERE status = ? AND id > ? ORDER BY id LIMIT ?",
+                ROW_MAPPER, status.name(), afterId, limit);
+    }
+    
+    public Optional<ArchivedLoan> findById(Long id) {
+        return jdbcTemplate.query(FIND_BY_ID, ROW_MAPPER, id).stream().findFirst();
+    }
+    
+    public List<ArchivedLoan> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return namedJdbcTemplate.query("SELECT " + COLUMNS + " FROM loan_archive WHERE id IN (:ids)",
+                Map.of("ids", ids), ROW_MAPPER);
+    }
+    
+    /**
+     * Streams the whole store in id order; the stream holds a connection until it
+     * is closed.
+     */
+    public Stream<ArchivedLoan> streamAll() {
+        return jdbcTemplate.queryForStream("SELECT " + COLUMNS + " FROM loan_archive ORDER BY id", ROW_MAPPER);
+    }
+    
+    /**
+     * Writes the loans, replacing any earlier copies, so a chunk whose move was
+     * interrupted after this point can be written again.
+     */
+    public void saveAll(List<ArchivedLoan> loans) {
+        if (loans.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            namedJdbcTemplate.update("DELETE FROM loan_archive WHERE id IN (:ids)",
+                    Map.of("ids", loans.stream().map(ArchivedLoan::getId).collect(Collectors.toList())));
+            jdbcTemplate.batchUpdate("INSERT INTO loan_archive (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    loans, loans.size(), (statement, loan) -> {
+                        statement.setLong(1, loan.getId());
+                        statement.setLong(2, loan.getUserId());
+                        statement.setLong(3, loan.getBookId());
+                        statement.setString(4, loan.getBookTitle());
+                        statement.setDate(5, Date.valueOf(loan.getLoanDate()));
+                        statement.setDate(6, Date.valueOf(loan.getDueDate()));
+                        statement.setDate(7, loan.getReturnDate() != null ? Date.valueOf(loan.getReturnDate()) : null);
+                        statement.setString(8, loan.getStatus().name());
+                        statement.setTimestamp(9, Timestamp.valueOf(loan.getCreatedAt()));
+                        statement.setTimestamp(10, loan.getUpdatedAt() != null ? Timestamp.valueOf(loan.getUpdatedAt()) : null);
+                        statement.setTimestamp(11, Timestamp.valueOf(loan.getArchivedAt()));
+                    });
+        });
+    }
+    
+    // Ties are broken by id so repeated reads of a store agree on one order
+    private static String orderBy(Sort sort) {
+        checkSort(sort);
+        Stream<String> columns = sort.stream()
+                .map(order -> SORT_COLUMNS.get(order.getProperty()) + (order.isDescending() ? " DESC" : " ASC") + nulls(order));
+        if (sort.getOrderFor("id") == null) {
+            columns = Stream.concat(columns, Stream.of("id ASC"));
+        }
+        return columns.collect(Collectors.joining(", "));
+    }
+    
+    private static String nulls(Sort.Order order) {
+        return switch (order.getNullHandling()) {
+            case NULLS_FIRST -> " NULLS FIRST";
+            case NULLS_LAST -> " NULLS LAST";
+            case NATIVE -> "";
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package com.library.repository;
+
+import java.util.List;
+
+/**
+ * The stores archived loans are spread over. A loan goes to the store picked by a
+ * hash of its user's id, so all archived loans of one user are in one store and
+ * per-user reads touch only that one; listings across users read them all.
+ * <p>
+ * The hash depends on the number of stores, which therefore must not change once
+ * loans have been archived.
+ */
+public class LoanArchiveShards implements AutoCloseable {
+    
+    private final List<LoanArchiveShard> shards;
+    private final List<? extends AutoCloseable> resources;
+    
+    public LoanArchiveShards(List<LoanArchiveShard> shards, List<? extends AutoCloseable> resources) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one loan archive store is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.resources = List.copyOf(resources);
+    }
+    
+    public LoanArchiveShard forUser(Long userId) {
+        return shards.get(Math.floorMod(Long.hashCode(userId), shards.size()));
+    }
+    
+    public List<LoanArchiveShard> all() {
+        return shards;
+    }
+    
+    @Override
+    public void close() throws Exception {
+        for (AutoCloseable resource : resources) {
+            resource.close();
+        }
+    }
+}
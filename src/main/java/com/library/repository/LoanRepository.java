@@ -1,31 +1,106 @@
 package com.library.repository;
 
+import com.library.dto.response.LoanSummary;
 import com.library.entity.Loan;
 import com.library.enums.LoanStatus;
-import org.springframework.data.domain.Page;
+import com.library.events.LoanEventPayload;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LoanRepository extends JpaRepository<Loan, Long> {
     
-    Page<Loan> findByUserId(Long userId, Pageable pageable);
+    @Query("SELECT new com.library.dto.response.LoanSummary(l.id, l.user.id, b.id, b.title, l.loanDate, l.dueDate, " +
+           "l.returnDate, l.status) FROM Loan l JOIN l.book b")
+    Stream<LoanSummary> streamSummaries(Sort sort, Limit limit);
     
-    Page<Loan> findByStatus(LoanStatus status, Pageable pageable);
+    @Query("SELECT new com.library.dto.response.LoanSummary(l.id, l.user.id, b.id, b.title, l.loanDate, l.dueDate, " +
+           "l.returnDate, l.status) FROM Loan l JOIN l.book b WHERE l.user.id = :userId")
+    Stream<LoanSummary> streamSummariesByUserId(@Param("userId") Long userId, Sort sort, Limit limit);
+    
+    @Query("SELECT new com.library.dto.response.LoanSummary(l.id, l.user.id, b.id, b.title, l.loanDate, l.dueDate, " +
+           "l.returnDate, l.status) FROM Loan l JOIN l.book b WHERE l.status = :status")
+    Stream<LoanSummary> streamSummariesByStatus(@Param("status") LoanStatus status, Sort sort, Limit limit);
+    
+    long countByUserId(Long userId);
+    
+    long countByStatus(LoanStatus status);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT l FROM Loan l JOIN FETCH l.user JOIN FETCH l.book b LEFT JOIN FETCH b.category ORDER BY l.id")
+    Stream<Loan> streamAllForExport();
+    
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT l FROM Loan l WHERE l.id > :afterId ORDER BY l.id")
+    List<Loan> findNextById(@Param("afterId") Long afterId, Limit limit);
+    
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT l FROM Loan l WHERE l.user.id = :userId AND l.id > :afterId ORDER BY l.id")
+    List<Loan> findNextByUserId(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
+    
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT l FROM Loan l WHERE l.status = :status AND l.id > :afterId ORDER BY l.id")
+    List<Loan> findNextByStatus(@Param("status") LoanStatus status, @Param("afterId") Long afterId, Limit limit);
     
     @Query("SELECT l FROM Loan l WHERE l.status = 'ACTIVE' AND l.dueDate < :date")
     List<Loan> findOverdueLoans(@Param("date") LocalDate date);
     
+    @Query("SELECT l.id FROM Loan l WHERE l.status = 'ACTIVE' AND l.dueDate < :date AND l.id > :afterId ORDER BY l.id")
+    List<Long> findOverdueLoanIds(@Param("date") LocalDate date, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.library.events.LoanEventPayload(l.id, l.user.id, b.id, b.category.id, l.loanDate, l.dueDate, " +
+           "l.returnDate) FROM Loan l JOIN l.book b WHERE l.id IN :ids AND l.status = 'ACTIVE'")
+    List<LoanEventPayload> lockActiveLoans(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE Loan l SET l.status = com.library.enums.LoanStatus.OVERDUE, l.updatedAt = :now " +
+           "WHERE l.id IN :ids AND l.status = 'ACTIVE'")
+    int markOverdue(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
     @Query("SELECT l FROM Loan l WHERE l.user.id = :userId AND l.book.id = :bookId AND l.status = 'ACTIVE'")
     Optional<Loan> findActiveLoanByUserAndBook(@Param("userId") Long userId, @Param("bookId") Long bookId);
     
+    @Query("SELECT l.book.id FROM Loan l WHERE l.user.id = :userId AND l.book.id IN :bookIds AND l.status = 'ACTIVE'")
+    List<Long> findActiveBookIdsByUser(@Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+    
     @Query("SELECT COUNT(l) FROM Loan l WHERE l.user.id = :userId AND l.status = 'ACTIVE'")
     long countActiveLoansByUser(@Param("userId") Long userId);
+    
+    @Query("SELECT l.id FROM Loan l WHERE l.status = 'RETURNED' AND l.returnDate < :before AND l.id > :afterId ORDER BY l.id")
+    List<Long> findArchivableIds(@Param("before") LocalDate before, @Param("afterId") Long afterId, Pageable pageable);
+    
+    @Query("SELECT l FROM Loan l JOIN FETCH l.book WHERE l.id IN :ids AND l.status = 'RETURNED' ORDER BY l.id")
+    List<Loan> findReturnedForArchive(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("DELETE FROM Loan l WHERE l.id IN :ids AND l.status = 'RETURNED'")
+    int deleteReturned(@Param("ids") Collection<Long> ids);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @EntityGraph(attributePaths = {"user", "book"})
+    @Query("SELECT l FROM Loan l WHERE l.id IN :ids ORDER BY l.id")
+    List<Loan> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,57 @@
+package com.library.repository;
+
+import com.library.entity.OutboxEvent;
+import com.library.enums.OutboxStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    List<OutboxEvent> findByStatusOrderByIdAsc(OutboxStatus status, Limit limit);
+    
+    /**
+     * Returns {aggregateKey, lowest sequence} of the pending events of the given
+     * aggregates that are not among {@code excludedIds}.
+     */
+    @Query("SELECT e.aggregateKey, MIN(e.aggregateSequence) FROM OutboxEvent e " +
+           "WHERE e.status = com.library.enums.OutboxStatus.PENDING AND e.aggregateKey IN :keys AND e.id NOT IN :excludedIds " +
+           "GROUP BY e.aggregateKey")
+    List<Object[]> findFirstPendingSequences(@Param("keys") Collection<String> keys,
+                                             @Param("excludedIds") Collection<Long> excludedIds);
+    
+    List<OutboxEvent> findByStatusAndAggregateKeyAndAggregateSequenceLessThanOrderByAggregateSequenceAsc(OutboxStatus status,
+                                                                                                       String aggregateKey,
+                                                                                                       Long sequence);
+    
+    long countByStatus(OutboxStatus status);
+    
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.status = com.library.enums.OutboxStatus.PENDING")
+    LocalDateTime findOldestPendingCreatedAt();
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = com.library.enums.OutboxStatus.PROCESSED, e.processedAt = :now " +
+           "WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+    
+    /**
+     * Records a failed delivery; after {@code maxAttempts} the event is parked as FAILED.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error, " +
+           "e.status = CASE WHEN e.attempts + 1 >= :maxAttempts THEN com.library.enums.OutboxStatus.FAILED " +
+           "ELSE com.library.enums.OutboxStatus.PENDING END WHERE e.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error, @Param("maxAttempts") int maxAttempts);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = com.library.enums.OutboxStatus.PROCESSED AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -2,14 +2,22 @@ package com.library.repository;
 
 import com.library.entity.User;
 import com.library.enums.Role;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -18,6 +26,14 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     boolean existsByEmail(String email);
     
+    /**
+     * Loads the user with a row lock, serializing checkouts for the same user so the
+     * loan limit cannot be exceeded by concurrent requests.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id = :id")
+    Optional<User> findByIdForUpdate(@Param("id") Long id);
+    
     Page<User> findByRole(Role role, Pageable pageable);
     
     @Query("SELECT u FROM User u WHERE " +
@@ -28,4 +44,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
                                    @Param("email") String email, 
                                    @Param("role") Role role, 
                                    Pageable pageable);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAllForExport();
+    
+    @Query("SELECT u FROM User u WHERE u.id > :afterId AND " +
+           "(:name IS NULL OR LOWER(CONCAT(u.firstName, ' ', u.lastName)) LIKE LOWER(CONCAT('%', :name, '%'))) AND " +
+           "(:email IS NULL OR LOWER(u.email) LIKE LOWER(CONCAT('%', :email, '%'))) AND " +
+           "(:role IS NULL OR u.role = :role) " +
+           "ORDER BY u.id")
+    List<User> findNextUsersWithFilters(@Param("name") String name,
+                                        @Param("email") String email,
+                                        @Param("role") Role role,
+                                        @Param("afterId") Long afterId,
+                                        Limit limit);
 }
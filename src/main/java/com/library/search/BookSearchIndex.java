@@ -0,0 +1,228 @@
+package com.library.search;
+
+import com.library.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over book titles and authors.
+ * <p>
+ * The index only narrows the search down to candidate ids: every trigram of a
+ * substring also occurs in the containing text, so the candidates are a superset
+ * of the real matches and the repository query still applies the LIKE filters
+ * to them. Stale entries can therefore only cause false positives.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookSearchIndex {
+    
+    private static final int GRAM_LENGTH = 3;
+    
+    private final BookRepository bookRepository;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntPostingList> titleGrams = new HashMap<>();
+    private final Map<Long, IntPostingList> authorGrams = new HashMap<>();
+    private volatile boolean ready;
+    
+    @Value("${app.search.max-candidates:10000}")
+    private int maxCandidates;
+    
+    @Value("${app.search.rebuild-batch-size:5000}")
+    private int rebuildBatchSize;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        ready = false;
+        lock.writeLock().lock();
+        try {
+            titleGrams.clear();
+            authorGrams.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        long indexed = 0;
+        long afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = bookRepository.findSearchIndexRows(afterId, PageRequest.of(0, rebuildBatchSize));
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : rows) {
+                    int id = toDocId((Long) row[0]);
+                    addGrams(titleGrams, id, (String) row[1]);
+                    addGrams(authorGrams, id, (String) row[2]);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!rows.isEmpty()) {
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+                indexed += rows.size();
+            }
+        } while (rows.size() == rebuildBatchSize);
+        
+        ready = true;
+        log.info("Book search index built for {} books in {} ms", indexed, System.currentTimeMillis() - start);
+    }
+    
+    public void add(Long bookId, String title, String author) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                addGrams(titleGrams, toDocId(bookId), title);
+                addGrams(authorGrams, toDocId(bookId), author);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+    
+    public void update(Long bookId, String oldTitle, String oldAuthor, String title, String author) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeGrams(titleGrams, toDocId(bookId), oldTitle);
+                removeGrams(authorGrams, toDocId(bookId), oldAuthor);
+                addGrams(titleGrams, toDocId(bookId), title);
+                addGrams(authorGrams, toDocId(bookId), author);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+    
+    public void remove(Long bookId, String title, String author) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeGrams(titleGrams, toDocId(bookId), title);
+                removeGrams(authorGrams, toDocId(bookId), author);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+    
+    /**
+     * Returns the sorted ids of books that may match the given title and author
+     * filters, or {@code null} when the index cannot narrow the search and the
+     * caller should fall back to the database scan.
+     */
+    public int[] findCandidates(String title, String author) {
+        if (!ready) {
+            return null;
+        }
+        
+        lock.readLock().lock();
+        try {
+            List<IntPostingList> lists = new ArrayList<>();
+            if (!collectPostings(titleGrams, title, lists) || !collectPostings(authorGrams, author, lists)) {
+                return new int[0];
+            }
+            if (lists.isEmpty()) {
+                return null;
+            }
+            
+            lists.sort(Comparator.comparingInt(IntPostingList::size));
+            int[] candidates = lists.get(0).toArray();
+            int length = candidates.length;
+            for (int i = 1; i < lists.size() && length > 0; i++) {
+                length = lists.get(i).retainAll(candidates, length);
+            }
+            
+            if (length > maxCandidates) {
+                return null;
+            }
+            int[] result = new int[length];
+            System.arraycopy(candidates, 0, result, 0, length);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    // Returns false when some query gram has no postings, i.e. nothing can match
+    private boolean collectPostings(Map<Long, IntPostingList> index, String query, List<IntPostingList> lists) {
+        if (query == null || query.length() < GRAM_LENGTH || query.indexOf('%') >= 0 || query.indexOf('_') >= 0) {
+            return true;
+        }
+        String text = query.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            IntPostingList postings = index.get(gram(text, i));
+            if (postings == null || postings.isEmpty()) {
+                return false;
+            }
+            lists.add(postings);
+        }
+        return true;
+    }
+    
+    private static void addGrams(Map<Long, IntPostingList> index, int id, String value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            index.computeIfAbsent(gram(text, i), key -> new IntPostingList()).add(id);
+        }
+    }
+    
+    private static void removeGrams(Map<Long, IntPostingList> index, int id, String value) {
+        if (value == null) {
+            return;
+        }
+        String text = value.toLowerCase(Locale.ROOT);
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            long key = gram(text, i);
+            IntPostingList postings = index.get(key);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    index.remove(key);
+                }
+            }
+        }
+    }
+    
+    private static long gram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+    
+    private static int toDocId(Long bookId) {
+        return Math.toIntExact(bookId);
+    }
+    
+    // Index changes are applied only once the surrounding transaction has committed
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.library.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate-free list of int document ids backed by a primitive array.
+ * Not thread-safe; {@link BookSearchIndex} guards access.
+ */
+class IntPostingList {
+    
+    private static final int INITIAL_CAPACITY = 4;
+    
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size;
+    
+    void add(int id) {
+        // Ids mostly arrive in ascending order, so appending is the common case
+        if (size == 0 || ids[size - 1] < id) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos >= 0) {
+            return;
+        }
+        int insertAt = -pos - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+    
+    void remove(int id) {
+        int pos = Arrays.binarySearch(ids, 0, size, id);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+    
+    /**
+     * Intersects the given sorted ids with this list, returning the number of
+     * matches written back to the front of {@code sorted}.
+     */
+    int retainAll(int[] sorted, int length) {
+        int matched = 0;
+        int i = 0;
+        int j = 0;
+        while (i < length && j < size) {
+            if (sorted[i] == ids[j]) {
+                sorted[matched++] = sorted[i];
+                i++;
+                j++;
+            } else if (sorted[i] < ids[j]) {
+                i++;
+            } else {
+                // Skip ahead in the (usually longer) posting list
+                int pos = Arrays.binarySearch(ids, j, size, sorted[i]);
+                j = pos >= 0 ? pos : -pos - 1;
+            }
+        }
+        return matched;
+    }
+    
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.library.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+/**
+ * Chooses the BCrypt strength for this machine: the highest one whose hashing time
+ * stays within a target. Every strength step doubles the cost, so a single timing
+ * at the minimum strength is enough to extrapolate.
+ */
+@Slf4j
+public final class BCryptCalibration {
+    
+    private BCryptCalibration() {
+    }
+    
+    public static int strengthFor(long targetMillis, int minimum, int maximum) {
+        String salt = BCrypt.gensalt(minimum);
+        // The first run warms up the JIT
+        BCrypt.hashpw("calibration", salt);
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibration", salt);
+        double millis = (System.nanoTime() - start) / 1_000_000.0;
+        
+        int strength = minimum;
+        while (strength < maximum && millis * 2 <= targetMillis) {
+            millis *= 2;
+            strength++;
+        }
+        log.info("Using BCrypt strength {} (~{} ms per hash, target {} ms)", strength, Math.round(millis), targetMillis);
+        return strength;
+    }
+}
@@ -0,0 +1,99 @@
+package com.library.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maps a digest of each bearer token to the user it authenticates, so repeated
+ * requests with the same token skip both signature verification and the user
+ * lookup. Entries live until the token expires or for at most
+ * {@code app.jwtCacheTtlMs}, which bounds how long role or status changes take
+ * to apply.
+ */
+@Component
+public class JwtAuthenticationCache {
+    
+    private final JwtUtils jwtUtils;
+    private final UserDetailsService userDetailsService;
+    private final Cache<String, CachedAuthentication> cache;
+    
+    public JwtAuthenticationCache(JwtUtils jwtUtils,
+                                  UserDetailsService userDetailsService,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.jwtCacheMaxSize:10000}") long maxSize,
+                                  @Value("${app.jwtCacheTtlMs:300000}") long ttlMs) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(TimeUnit.MILLISECONDS.toNanos(ttlMs)))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "jwtAuthentication");
+    }
+    
+    /**
+     * Returns the user authenticated by the token, or {@code null} if the token is invalid.
+     */
+    public UserDetails authenticate(String token) {
+        CachedAuthentication cached = cache.get(digest(token), key -> load(token));
+        return cached != null ? cached.userDetails() : null;
+    }
+    
+    private CachedAuthentication load(String token) {
+        return jwtUtils.parseClaims(token)
+                .map(claims -> new CachedAuthentication(userDetailsService.loadUserByUsername(claims.getSubject()),
+                        expiresAtMillis(claims)))
+                .orElse(null);
+    }
+    
+    private static long expiresAtMillis(Claims claims) {
+        return claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+    }
+    
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private record CachedAuthentication(UserDetails userDetails, long expiresAtMillis) {
+    }
+    
+    private record TokenExpiry(long maxTtlNanos) implements Expiry<String, CachedAuthentication> {
+        
+        @Override
+        public long expireAfterCreate(String key, CachedAuthentication value, long currentTime) {
+            long untilTokenExpiry = TimeUnit.MILLISECONDS.toNanos(
+                    Math.max(0, value.expiresAtMillis() - System.currentTimeMillis()));
+            return Math.min(untilTokenExpiry, maxTtlNanos);
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+        
+        @Override
+        public long expireAfterRead(String key, CachedAuthentication value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -2,24 +2,46 @@ package com.library.security;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.Optional;
 
 @Component
 @Slf4j
 public class JwtUtils {
     
-    @Value("${app.jwtSecret:mySecretKey}")
+    // HS512 needs a key of at least 512 bits
+    static final int MIN_SECRET_BYTES = 64;
+    
+    @Value("${app.jwtSecret}")
     private String jwtSecret;
     
     @Value("${app.jwtExpirationMs:86400000}")
     private int jwtExpirationMs;
     
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+    
+    @PostConstruct
+    void init() {
+        byte[] secret = jwtSecret.getBytes(StandardCharsets.UTF_8);
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("app.jwtSecret is " + secret.length + " bytes; HS512 tokens need a secret of at least "
+                    + MIN_SECRET_BYTES + " bytes (set JWT_SECRET)");
+        }
+        // Both are immutable and thread-safe, so they are built once instead of per token
+        signingKey = Keys.hmacShaKeyFor(secret);
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+    
     public String generateJwtToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         
@@ -27,36 +49,36 @@ public class JwtUtils {
                 .setSubject(userPrincipal.getEmail())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
     
     public String getEmailFromJwtToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return jwtParser.parseClaimsJws(token).getBody().getSubject();
     }
     
     public boolean validateJwtToken(String authToken) {
+        return parseClaims(authToken).isPresent();
+    }
+    
+    /**
+     * Verifies the token once and returns its claims, or an empty result if the
+     * token is invalid or expired.
+     */
+    public Optional<Claims> parseClaims(String authToken) {
         try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
-            return true;
+            return Optional.of(jwtParser.parseClaimsJws(authToken).getBody());
         } catch (MalformedJwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage());
         } catch (ExpiredJwtException e) {
             log.error("JWT token is expired: {}", e.getMessage());
         } catch (UnsupportedJwtException e) {
             log.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (SignatureException e) {
+            log.error("Invalid JWT signature: {}", e.getMessage());
         } catch (IllegalArgumentException e) {
             log.error("JWT claims string is empty: {}", e.getMessage());
         }
-        return false;
-    }
-    
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return Optional.empty();
     }
 }
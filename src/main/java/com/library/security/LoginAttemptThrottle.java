@@ -0,0 +1,121 @@
+package com.library.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Limits authentication attempts per client address, and per email from each
+ * client address, before any password hashing is done. The email limit is kept
+ * per address so that failed attempts from elsewhere cannot lock a user out, and
+ * a successful login clears it.
+ * <p>
+ * Each key has a sliding-window counter approximated from the current and the
+ * previous fixed window, updated with compare-and-set so concurrent attempts never
+ * block each other. Rejected attempts are not counted. Idle keys expire, and the
+ * number of tracked keys is bounded so random emails cannot exhaust memory.
+ */
+@Component
+public class LoginAttemptThrottle {
+    
+    private final Cache<String, SlidingWindow> windows;
+    private final long windowNanos;
+    private final long windowSeconds;
+    
+    @Value("${app.auth.throttle.max-attempts-per-email:10}")
+    private int maxAttemptsPerEmail;
+    
+    @Value("${app.auth.throttle.max-attempts-per-ip:100}")
+    private int maxAttemptsPerIp;
+    
+    public LoginAttemptThrottle(@Value("${app.auth.throttle.window-seconds:60}") long windowSeconds,
+                                @Value("${app.auth.throttle.max-tracked-keys:100000}") long maxTrackedKeys) {
+        this.windowSeconds = windowSeconds;
+        this.windowNanos = Duration.ofSeconds(windowSeconds).toNanos();
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(Duration.ofSeconds(windowSeconds * 2))
+                .build();
+    }
+    
+    public void checkLogin(String email, String clientAddress) {
+        boolean emailAllowed = tryAcquire(emailKey(email, clientAddress), maxAttemptsPerEmail);
+        boolean addressAllowed = tryAcquire("ip:" + clientAddress, maxAttemptsPerIp);
+        if (!emailAllowed || !addressAllowed) {
+            throw new TooManyRequestsException("Too many login attempts, please retry later", windowSeconds);
+        }
+    }
+    
+    public void checkRegistration(String clientAddress) {
+        if (!tryAcquire("ip:" + clientAddress, maxAttemptsPerIp)) {
+            throw new TooManyRequestsException("Too many registration attempts, please retry later", windowSeconds);
+        }
+    }
+    
+    /**
+     * Clears the attempts recorded for an email from a client address after it
+     * authenticated successfully from there.
+     */
+    public void loginSucceeded(String email, String clientAddress) {
+        windows.invalidate(emailKey(email, clientAddress));
+    }
+    
+    private boolean tryAcquire(String key, int limit) {
+        return windows.get(key, k -> new SlidingWindow()).tryAcquire(limit, System.nanoTime(), windowNanos);
+    }
+    
+    private static String emailKey(String email, String clientAddress) {
+        return "email:" + (email != null ? email.trim().toLowerCase(Locale.ROOT) : "") + "@ip:" + clientAddress;
+    }
+    
+    static final class SlidingWindow {
+        
+        private final AtomicReference<State> state = new AtomicReference<>(new State(System.nanoTime(), 0, 0));
+        
+        boolean tryAcquire(int limit, long now, long windowNanos) {
+            while (true) {
+                State current = state.get();
+                State rolled = current.roll(now, windowNanos);
+                if (rolled.estimate(now, windowNanos) >= limit) {
+                    if (rolled != current) {
+                        state.compareAndSet(current, rolled);
+                    }
+                    return false;
+                }
+                if (state.compareAndSet(current, rolled.increment())) {
+                    return true;
+                }
+            }
+        }
+    }
+    
+    private record State(long windowStart, int previous, int current) {
+        
+        State roll(long now, long windowNanos) {
+            long elapsed = now - windowStart;
+            if (elapsed < windowNanos) {
+                return this;
+            }
+            if (elapsed < 2 * windowNanos) {
+                return new State(windowStart + windowNanos, current, 0);
+            }
+            return new State(now, 0, 0);
+        }
+        
+        // The previous window's count weighted by how much of it still overlaps the sliding window
+        double estimate(long now, long windowNanos) {
+            double overlap = 1.0 - (double) (now - windowStart) / windowNanos;
+            return previous * overlap + current;
+        }
+        
+        State increment() {
+            return new State(windowStart, previous, current + 1);
+        }
+    }
+}
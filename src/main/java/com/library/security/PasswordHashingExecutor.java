@@ -0,0 +1,76 @@
+package com.library.security;
+
+import com.library.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs BCrypt work on a small fixed pool so that a burst of logins cannot occupy
+ * every core. When the queue is full callers are turned away immediately with a
+ * {@link TooManyRequestsException} instead of waiting behind the backlog.
+ */
+@Component
+public class PasswordHashingExecutor {
+    
+    private final ThreadPoolExecutor executor;
+    private final Counter rejected;
+    
+    public PasswordHashingExecutor(@Value("${app.auth.hashing.threads:0}") int threads,
+                                   @Value("${app.auth.hashing.queue-capacity:100}") int queueCapacity,
+                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("password-hashing-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "passwordHashing", Tags.empty()).bindTo(meterRegistry);
+        this.rejected = Counter.builder("library.auth.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Runs the task on the hashing pool and waits for its result. Runtime exceptions
+     * thrown by the task, such as failed authentication, are rethrown as is.
+     */
+    public <T> T execute(Supplier<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task::get);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("Too many authentication requests, please retry", 1);
+        }
+        
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -7,6 +7,8 @@ import com.library.entity.User;
 import com.library.exception.ResourceAlreadyExistsException;
 import com.library.repository.UserRepository;
 import com.library.security.JwtUtils;
+import com.library.security.LoginAttemptThrottle;
+import com.library.security.PasswordHashingExecutor;
 import com.library.security.UserPrincipal;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,7 +16,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 @RequiredArgsConstructor
@@ -24,18 +25,22 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginAttemptThrottle loginAttemptThrottle;
     
-    @Transactional
-    public User register(RegisterRequest request) {
+    // Not transactional: no connection is held while the password is hashed
+    public User register(RegisterRequest request, String clientAddress) {
+        loginAttemptThrottle.checkRegistration(clientAddress);
         if (userRepository.existsByEmail(request.getEmail())) {
             throw new ResourceAlreadyExistsException("Email already exists");
         }
         
+        String encodedPassword = passwordHashingExecutor.execute(() -> passwordEncoder.encode(request.getPassword()));
         User user = User.builder()
                 .email(request.getEmail())
                 .firstName(request.getFirstName())
                 .lastName(request.getLastName())
-                .password(passwordEncoder.encode(request.getPassword()))
+                .password(encodedPassword)
                 .role(request.getRole())
                 .active(true)
                 .build();
@@ -43,10 +48,12 @@ public class AuthService {
         return userRepository.save(user);
     }
     
-    public JwtResponse login(LoginRequest request) {
-        Authentication authentication = authenticationManager.authenticate(
+    public JwtResponse login(LoginRequest request, String clientAddress) {
+        loginAttemptThrottle.checkLogin(request.getEmail(), clientAddress);
+        Authentication authentication = passwordHashingExecutor.execute(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
+        ));
+        loginAttemptThrottle.loginSucceeded(request.getEmail(), clientAddress);
         
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         String jwt = jwtUtils.generateJwtToken(authentication);
@@ -0,0 +1,45 @@
+package com.library.service;
+
+import com.library.dto.response.BookImportResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Imports the files passed as {@code --import-books=<path>} at startup. Files
+ * ending in {@code .csv} are read as CSV, anything else as JSON.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BookImportRunner implements ApplicationRunner {
+    
+    static final String OPTION = "import-books";
+    
+    private final BookImportService bookImportService;
+    
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        for (String file : args.getOptionValues(OPTION)) {
+            Path path = Path.of(file);
+            try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 64 * 1024)) {
+                BookImportResult result = path.getFileName().toString().toLowerCase().endsWith(".csv")
+                        ? bookImportService.importCsv(in)
+                        : bookImportService.importJson(in);
+                result.getErrors().forEach(error ->
+                        log.warn("{} row {} ({}): {}", path, error.getRow(), error.getIsbn(), error.getMessage()));
+            }
+        }
+    }
+}
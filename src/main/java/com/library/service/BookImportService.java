@@ -0,0 +1,329 @@
+package com.library.service;
+
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.library.dto.request.BookImportRow;
+import com.library.dto.response.BookImportResult;
+import com.library.entity.Book;
+import com.library.entity.Category;
+import com.library.enums.DomainEventType;
+import com.library.events.BookEventPayload;
+import com.library.events.DomainEventPublisher;
+import com.library.exception.BusinessException;
+import com.library.repository.BookRepository;
+import com.library.repository.CategoryRepository;
+import com.library.search.BookSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads books in bulk from CSV or JSON streams.
+ * <p>
+ * Rows are parsed and validated on the calling thread and inserted in batches of
+ * {@code app.import.batch-size} by up to {@code app.import.parallelism} workers,
+ * each batch in its own transaction so Hibernate can send it as a JDBC batch. A
+ * batch that fails is retried row by row, so one bad record only costs its own
+ * row and is reported instead of aborting the run.
+ */
+@Service
+@Slf4j
+public class BookImportService {
+    
+    private final BookRepository bookRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final CatalogueVersions catalogueVersions;
+    private final DomainEventPublisher domainEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = CsvMapper.builder()
+            .enable(CsvParser.Feature.TRIM_SPACES)
+            .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+            .build();
+    
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${app.import.parallelism:4}")
+    private int parallelism;
+    
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+    
+    public BookImportService(BookRepository bookRepository,
+                             CategoryRepository categoryRepository,
+                             BookSearchIndex bookSearchIndex,
+                             CatalogueVersions catalogueVersions,
+                             DomainEventPublisher domainEventPublisher,
+                             TransactionTemplate transactionTemplate,
+                             AsyncTaskExecutor applicationTaskExecutor,
+                             ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.categoryRepository = categoryRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.catalogueVersions = catalogueVersions;
+        this.domainEventPublisher = domainEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Imports a CSV stream with a header row naming the {@link BookImportRow} columns.
+     */
+    public BookImportResult importCsv(InputStream in) {
+        try {
+            return importRows(csvMapper.readerFor(BookImportRow.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(in));
+        } catch (IOException e) {
+            throw new BusinessException("Could not read import file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Imports a JSON array or a stream of newline-delimited JSON objects.
+     */
+    public BookImportResult importJson(InputStream in) {
+        try {
+            return importRows(objectMapper.readerFor(BookImportRow.class).readValues(in));
+        } catch (IOException e) {
+            throw new BusinessException("Could not read import file: " + e.getMessage());
+        }
+    }
+    
+    private BookImportResult importRows(MappingIterator<BookImportRow> rows) {
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun(maxReportedErrors);
+        CategoryLookup categories = new CategoryLookup(categoryRepository.findAll());
+        Semaphore permits = new Semaphore(parallelism);
+        List<Future<?>> batches = new ArrayList<>();
+        List<PendingBook> batch = new ArrayList<>(batchSize);
+        long rowNumber = 0;
+        try {
+            while (rows.hasNextValue()) {
+                rowNumber++;
+                BookImportRow row;
+                try {
+                    row = rows.nextValue();
+                } catch (DatabindException e) {
+                    run.reject(rowNumber, null, e.getOriginalMessage());
+                    continue;
+                }
+                
+                String error = validate(row);
+                Long categoryId = categories.resolve(row);
+                if (error == null && categoryId == null) {
+                    error = row.getCategoryId() == null && row.getCategory() == null
+                            ? "Category is required"
+                            : "Category not found: " + (row.getCategory() != null ? row.getCategory() : row.getCategoryId());
+                }
+                if (error != null) {
+                    run.reject(rowNumber, row.getIsbn(), error);
+                    continue;
+                }
+                
+                batch.add(new PendingBook(rowNumber, row, categoryId));
+                if (batch.size() == batchSize) {
+                    batches.add(submit(batch, run, permits));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (IOException e) {
+            // Malformed input cannot be resynchronised; keep what was read so far
+            run.reject(rowNumber + 1, null, "Unreadable input: " + e.getMessage());
+        }
+        if (!batch.isEmpty()) {
+            batches.add(submit(batch, run, permits));
+        }
+        
+        for (Future<?> pending : batches) {
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("Import batch failed: {}", e.getCause().getMessage());
+            }
+        }
+        
+        long elapsedMs = System.currentTimeMillis() - start;
+        BookImportResult result = run.toResult(rowNumber, elapsedMs);
+        log.info("Imported {} of {} books in {} ms ({} rows/s, {} failed)",
+                result.getImported(), result.getRowsRead(), elapsedMs, result.getRowsPerSecond(), result.getFailed());
+        return result;
+    }
+    
+    private Future<?> submit(List<PendingBook> batch, ImportRun run, Semaphore permits) {
+        // Bound the number of batches parsed ahead of the workers
+        permits.acquireUninterruptibly();
+        return applicationTaskExecutor.submit(() -> {
+            try {
+                insertBatch(batch, run);
+            } finally {
+                permits.release();
+            }
+        });
+    }
+    
+    private void insertBatch(List<PendingBook> batch, ImportRun run) {
+        Set<String> existing = new HashSet<>(bookRepository.findExistingIsbns(
+                batch.stream().map(pending -> pending.row().getIsbn()).toList()));
+        List<PendingBook> fresh = new ArrayList<>(batch.size());
+        for (PendingBook pending : batch) {
+            if (existing.contains(pending.row().getIsbn())) {
+                run.reject(pending.rowNumber(), pending.row().getIsbn(), "Book already exists with ISBN: " + pending.row().getIsbn());
+            } else {
+                fresh.add(pending);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(fresh));
+            run.imported(fresh.size());
+        } catch (RuntimeException batchFailure) {
+            for (PendingBook pending : fresh) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insert(List.of(pending)));
+                    run.imported(1);
+                } catch (RuntimeException e) {
+                    run.reject(pending.rowNumber(), pending.row().getIsbn(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                }
+            }
+        }
+    }
+    
+    private void insert(List<PendingBook> pending) {
+        List<Book> books = pending.stream().map(this::toBook).toList();
+        bookRepository.saveAll(books);
+        bookRepository.flush();
+        for (Book book : books) {
+            bookSearchIndex.add(book.getId(), book.getTitle(), book.getAuthor());
+            domainEventPublisher.publish(DomainEventType.BOOK_CREATED, book.getId(), BookEventPayload.from(book));
+        }
+        catalogueVersions.booksChanged(books.stream().map(Book::getId).toList());
+    }
+    
+    private Book toBook(PendingBook pending) {
+        BookImportRow row = pending.row();
+        return Book.builder()
+                .title(row.getTitle())
+                .author(row.getAuthor())
+                .isbn(row.getIsbn())
+                .description(row.getDescription())
+                .totalCopies(row.getTotalCopies())
+                .availableCopies(row.getTotalCopies())
+                .category(categoryRepository.getReferenceById(pending.categoryId()))
+                .build();
+    }
+    
+    private static String validate(BookImportRow row) {
+        if (isBlank(row.getTitle())) {
+            return "Title is required";
+        }
+        if (isBlank(row.getAuthor())) {
+            return "Author is required";
+        }
+        if (isBlank(row.getIsbn())) {
+            return "ISBN is required";
+        }
+        if (row.getTotalCopies() == null || row.getTotalCopies() < 1) {
+            return "Total copies must be at least 1";
+        }
+        return null;
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+    
+    private record PendingBook(long rowNumber, BookImportRow row, Long categoryId) {
+    }
+    
+    private static final class CategoryLookup {
+        
+        private final Map<String, Long> idsByName = new HashMap<>();
+        private final Set<Long> ids = new HashSet<>();
+        
+        CategoryLookup(List<Category> categories) {
+            for (Category category : categories) {
+                idsByName.put(category.getName().trim().toLowerCase(Locale.ROOT), category.getId());
+                ids.add(category.getId());
+            }
+        }
+        
+        Long resolve(BookImportRow row) {
+            if (row.getCategoryId() != null) {
+                return ids.contains(row.getCategoryId()) ? row.getCategoryId() : null;
+            }
+            return row.getCategory() != null ? idsByName.get(row.getCategory().trim().toLowerCase(Locale.ROOT)) : null;
+        }
+    }
+    
+    private static final class ImportRun {
+        
+        private final int maxReportedErrors;
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicInteger reported = new AtomicInteger();
+        private final ConcurrentLinkedQueue<BookImportResult.RowError> errors = new ConcurrentLinkedQueue<>();
+        
+        ImportRun(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+        
+        void imported(int count) {
+            imported.addAndGet(count);
+        }
+        
+        void reject(long rowNumber, String isbn, String message) {
+            failed.incrementAndGet();
+            if (reported.getAndIncrement() < maxReportedErrors) {
+                errors.add(new BookImportResult.RowError(rowNumber, isbn, message));
+            }
+        }
+        
+        BookImportResult toResult(long rowsRead, long elapsedMs) {
+            List<BookImportResult.RowError> sorted = new ArrayList<>(errors);
+            sorted.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+            return BookImportResult.builder()
+                    .rowsRead(rowsRead)
+                    .imported(imported.get())
+                    .failed(failed.get())
+                    .elapsedMs(elapsedMs)
+                    .rowsPerSecond(rowsRead * 1000 / Math.max(elapsedMs, 1))
+                    .errors(sorted)
+                    .errorsTruncated(reported.get() > maxReportedErrors)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.library.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the last known number of available copies per book so that checkouts
+ * for sold-out titles can be rejected without opening a transaction.
+ * <p>
+ * This is only a hint: the conditional decrement in {@code BookRepository} remains
+ * the source of truth, and entries expire so that copies returned through another
+ * instance become visible again.
+ */
+@Component
+public class BookInventoryGuard {
+    
+    private final ConcurrentHashMap<Long, Snapshot> snapshots = new ConcurrentHashMap<>();
+    
+    @Value("${app.loans.inventory-hint-ttl-ms:5000}")
+    private long ttlMs;
+    
+    public boolean mightBeAvailable(Long bookId) {
+        Snapshot snapshot = snapshots.get(bookId);
+        return snapshot == null || snapshot.available() > 0 || snapshot.isExpired();
+    }
+    
+    public void recordAvailable(Long bookId, int available) {
+        snapshots.put(bookId, new Snapshot(available, System.currentTimeMillis() + ttlMs));
+    }
+    
+    public void recordSoldOut(Long bookId) {
+        recordAvailable(bookId, 0);
+    }
+    
+    public void recordReturned(Long bookId) {
+        snapshots.computeIfPresent(bookId, (id, snapshot) -> new Snapshot(snapshot.available() + 1, snapshot.expiresAt()));
+    }
+    
+    public void forget(Long bookId) {
+        snapshots.remove(bookId);
+    }
+    
+    private record Snapshot(int available, long expiresAt) {
+        
+        boolean isExpired() {
+            return System.currentTimeMillis() > expiresAt;
+        }
+    }
+}
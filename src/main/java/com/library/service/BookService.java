@@ -1,39 +1,97 @@
 package com.library.service;
 
 import com.library.dto.request.BookRequest;
+import com.library.dto.request.KeysetCursor;
+import com.library.dto.response.CursorPage;
 import com.library.entity.Book;
 import com.library.entity.Category;
+import com.library.enums.DomainEventType;
+import com.library.events.BookEventPayload;
+import com.library.events.DomainEventPublisher;
+import com.library.exception.BusinessException;
 import com.library.exception.ResourceNotFoundException;
 import com.library.repository.BookRepository;
 import com.library.repository.CategoryRepository;
+import com.library.search.BookSearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class BookService {
     
     private final BookRepository bookRepository;
     private final CategoryRepository categoryRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookInventoryGuard bookInventoryGuard;
+    private final CatalogueVersions catalogueVersions;
+    private final DomainEventPublisher domainEventPublisher;
     
+    @Transactional(readOnly = true)
     public Page<Book> getAllBooks(Pageable pageable) {
         return bookRepository.findAll(pageable);
     }
     
+    @Transactional(readOnly = true)
+    public CursorPage<Book> getBooksAfter(String after, int size, String sort) {
+        int limit = CursorPage.clampSize(size);
+        if ("title".equals(sort)) {
+            KeysetCursor cursor = after != null && !after.isEmpty() ? KeysetCursor.decode(after) : null;
+            String afterTitle = cursor != null && cursor.getSortKey() != null ? cursor.getSortKey() : "";
+            long afterId = cursor != null ? cursor.getId() : 0L;
+            List<Book> rows = bookRepository.findNextByTitle(afterTitle, afterId, Limit.of(limit + 1));
+            return CursorPage.of(rows, limit, book -> new KeysetCursor(book.getTitle(), book.getId()));
+        }
+        if (!"id".equals(sort)) {
+            throw new BusinessException("Unsupported sort: " + sort);
+        }
+        
+        List<Book> rows = bookRepository.findNextById(KeysetCursor.afterId(after), Limit.of(limit + 1));
+        return CursorPage.of(rows, limit, book -> KeysetCursor.ofId(book.getId()));
+    }
+    
+    @Transactional(readOnly = true)
     public Page<Book> searchBooks(String title, String author, String isbn, Long categoryId, Pageable pageable) {
-        return bookRepository.findBooksWithFilters(title, author, isbn, categoryId, pageable);
+        int[] candidateIds = bookSearchIndex.findCandidates(title, author);
+        if (candidateIds == null && title == null && author == null && isbn == null && categoryId != null) {
+            // The optional filters below cannot use the category index
+            return bookRepository.findByCategoryId(categoryId, pageable);
+        }
+        if (candidateIds == null) {
+            return bookRepository.findBooksWithFilters(title, author, isbn, categoryId, pageable);
+        }
+        if (candidateIds.length == 0) {
+            return Page.empty(pageable);
+        }
+        
+        List<Long> ids = Arrays.stream(candidateIds).asLongStream().boxed().toList();
+        return bookRepository.findBooksWithFiltersAmong(ids, title, author, isbn, categoryId, pageable);
     }
     
+    @Transactional(readOnly = true)
     public Page<Book> getAvailableBooks(Pageable pageable) {
         return bookRepository.findAvailableBooks(pageable);
     }
     
     public Book getBookById(Long id) {
-        return bookRepository.findById(id)
+        Book book = bookRepository.findCachedById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
+        return withCurrentAvailability(book);
+    }
+    
+    public Book getBookByIsbn(String isbn) {
+        Book book = bookRepository.findByIsbn(isbn)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with ISBN: " + isbn));
+        return withCurrentAvailability(book);
     }
     
     @Transactional
@@ -51,14 +109,25 @@ public class BookService {
                 .category(category)
                 .build();
         
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookSearchIndex.add(saved.getId(), saved.getTitle(), saved.getAuthor());
+        catalogueVersions.bookChanged(saved.getId());
+        domainEventPublisher.publish(DomainEventType.BOOK_CREATED, saved.getId(), BookEventPayload.from(saved));
+        return saved;
     }
     
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "books", key = "#id"),
+            @CacheEvict(cacheNames = "booksByIsbn", allEntries = true)
+    })
     public Book updateBook(Long id, BookRequest request) {
-        Book book = getBookById(id);
+        // Resolve the category before the book, so a cache miss stores the entity and not the book's lazy proxy
         Category category = categoryRepository.findById(request.getCategoryId())
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + request.getCategoryId()));
+        Book book = findBook(id);
+        String oldTitle = book.getTitle();
+        String oldAuthor = book.getAuthor();
         
         book.setTitle(request.getTitle());
         book.setAuthor(request.getAuthor());
@@ -67,12 +136,37 @@ public class BookService {
         book.setTotalCopies(request.getTotalCopies());
         book.setCategory(category);
         
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        bookSearchIndex.update(saved.getId(), oldTitle, oldAuthor, saved.getTitle(), saved.getAuthor());
+        bookInventoryGuard.forget(id);
+        catalogueVersions.bookChanged(id);
+        domainEventPublisher.publish(DomainEventType.BOOK_UPDATED, saved.getId(), BookEventPayload.from(saved));
+        return saved;
     }
     
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "books", key = "#id"),
+            @CacheEvict(cacheNames = "booksByIsbn", allEntries = true)
+    })
     public void deleteBook(Long id) {
-        Book book = getBookById(id);
+        Book book = findBook(id);
         bookRepository.delete(book);
+        bookSearchIndex.remove(book.getId(), book.getTitle(), book.getAuthor());
+        bookInventoryGuard.forget(id);
+        catalogueVersions.bookChanged(id);
+        domainEventPublisher.publish(DomainEventType.BOOK_DELETED, id, BookEventPayload.from(book));
+    }
+    
+    private Book findBook(Long id) {
+        return bookRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
+    }
+    
+    // Cached books are shared, so hand out a copy carrying the current availability
+    private Book withCurrentAvailability(Book cached) {
+        Integer availableCopies = bookRepository.findAvailableCopiesById(cached.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + cached.getId()));
+        return cached.toBuilder().availableCopies(availableCopies).build();
     }
 }
@@ -0,0 +1,99 @@
+package com.library.service;
+
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.BookRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Versions from which book reads derive their ETags.
+ * <p>
+ * A single book's version is its id, update time and available copies, read from
+ * the row without loading the book. The copy count is part of it because loans
+ * and holds move it with bulk updates that leave the update time alone. Being
+ * stored state, the version is the same on every instance and changes only when
+ * the book does.
+ * <p>
+ * Listings span too many rows for that, so they use a counter in
+ * {@code catalogue_versions} that every transaction changing a book bumps once.
+ * Being in the database, it also changes with writes made through other
+ * instances. The counter is split over rows, one picked at random per
+ * transaction, and updated just before commit after everything else was written.
+ * Concurrent checkouts therefore rarely wait on each other for it, and never
+ * while holding it.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogueVersions {
+    
+    private static final int STRIPES = 16;
+    
+    private final BookRepository bookRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    
+    public String bookVersion(Long bookId) {
+        Object[] row = bookRepository.findVersionById(bookId).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
+        LocalDateTime updatedAt = (LocalDateTime) row[0];
+        long updated = updatedAt != null ? updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + updatedAt.getNano() : 0;
+        return bookId + "." + Long.toString(updated, 36) + "." + row[1];
+    }
+    
+    public String collectionVersion() {
+        return Long.toString(jdbcTemplate.queryForObject("SELECT SUM(version) FROM catalogue_versions", Long.class), 36);
+    }
+    
+    public void bookChanged(Long bookId) {
+        booksChanged(List.of(bookId));
+    }
+    
+    public void booksChanged(Collection<Long> bookIds) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            bump();
+            return;
+        }
+        // One bump per transaction, however many books it changes
+        if (TransactionSynchronizationManager.getResource(this) == null) {
+            TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+            TransactionSynchronizationManager.registerSynchronization(new PendingBump());
+        }
+    }
+    
+    private void bump() {
+        jdbcTemplate.update("UPDATE catalogue_versions SET version = version + 1 WHERE stripe = ?",
+                ThreadLocalRandom.current().nextInt(STRIPES));
+    }
+    
+    private final class PendingBump implements TransactionSynchronization {
+        
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+        
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Entity changes are written first, so the counter row is the last lock taken
+            entityManager.flush();
+            bump();
+        }
+        
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResource(CatalogueVersions.this);
+        }
+    }
+}
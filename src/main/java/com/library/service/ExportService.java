@@ -0,0 +1,114 @@
+package com.library.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.repository.BookRepository;
+import com.library.repository.LoanArchiveShards;
+import com.library.repository.LoanRepository;
+import com.library.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes whole tables as newline-delimited JSON.
+ * <p>
+ * Rows are scrolled from a read-only cursor and written one at a time, and the
+ * persistence context is cleared every {@value #CLEAR_INTERVAL} rows, so memory
+ * use does not grow with the size of the table.
+ */
+@Service
+@Slf4j
+public class ExportService {
+    
+    private static final int CLEAR_INTERVAL = 500;
+    
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final LoanArchiveShards loanArchiveShards;
+    private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    
+    public ExportService(BookRepository bookRepository,
+                         LoanRepository loanRepository,
+                         LoanArchiveShards loanArchiveShards,
+                         UserRepository userRepository,
+                         EntityManager entityManager,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.loanArchiveShards = loanArchiveShards;
+        this.userRepository = userRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+    
+    public long exportBooks(OutputStream out) {
+        return export("books", bookRepository::streamAllForExport, out);
+    }
+    
+    public long exportLoans(OutputStream out) {
+        return export("loans", loanRepository::streamAllForExport, out);
+    }
+    
+    public long exportArchivedLoans(OutputStream out) {
+        // One store after the other, each in id order
+        return export("archived loans", loanArchiveShards.all().stream()
+                .<Supplier<Stream<?>>>map(shard -> shard::streamAll)
+                .toList(), out);
+    }
+    
+    public long exportUsers(OutputStream out) {
+        return export("users", userRepository::streamAllForExport, out);
+    }
+    
+    private long export(String name, Supplier<Stream<?>> rows, OutputStream out) {
+        return export(name, List.of(rows), out);
+    }
+    
+    // Parts are opened one at a time, each once the previous one is exhausted
+    private long export(String name, List<Supplier<Stream<?>>> parts, OutputStream out) {
+        long start = System.currentTimeMillis();
+        Long written = readOnlyTransaction.execute(status -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                long count = 0;
+                for (Supplier<Stream<?>> rows : parts) {
+                    try (Stream<?> stream = rows.get()) {
+                        Iterator<?> iterator = stream.iterator();
+                        while (iterator.hasNext()) {
+                            generator.writeObject(iterator.next());
+                            generator.writeRaw('\n');
+                            if (++count % CLEAR_INTERVAL == 0) {
+                                // Written rows are no longer needed; let them be collected
+                                entityManager.clear();
+                                generator.flush();
+                            }
+                        }
+                    }
+                }
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        log.info("Exported {} {} in {} ms", written, name, System.currentTimeMillis() - start);
+        return written != null ? written : 0;
+    }
+}
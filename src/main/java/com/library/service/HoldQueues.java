@@ -0,0 +1,73 @@
+package com.library.service;
+
+import com.library.repository.HoldRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the waiting holds of each title, so queue positions and
+ * lengths are answered without touching the database.
+ * <p>
+ * Each title's queue is a lock-free sorted set of hold ids; holds join and leave
+ * it after their transaction commits, so the set mirrors the {@code WAITING} rows
+ * of this instance. Holds placed through another instance appear after a restart.
+ */
+@Component
+@Slf4j
+public class HoldQueues {
+    
+    private final HoldRepository holdRepository;
+    private final Map<Long, NavigableSet<Long>> waitingByBook = new ConcurrentHashMap<>();
+    private final AtomicLong waiting = new AtomicLong();
+    
+    public HoldQueues(HoldRepository holdRepository, MeterRegistry meterRegistry) {
+        this.holdRepository = holdRepository;
+        Gauge.builder("library.holds.waiting", waiting, AtomicLong::get)
+                .description("Holds waiting for a copy")
+                .register(meterRegistry);
+    }
+    
+    @PostConstruct
+    void load() {
+        for (Object[] row : holdRepository.findAllWaiting()) {
+            joined((Long) row[0], (Long) row[1]);
+        }
+        log.info("Loaded {} waiting holds", waiting.get());
+    }
+    
+    void joined(Long bookId, Long holdId) {
+        if (waitingByBook.computeIfAbsent(bookId, id -> new ConcurrentSkipListSet<>()).add(holdId)) {
+            waiting.incrementAndGet();
+        }
+    }
+    
+    void left(Long bookId, Long holdId) {
+        NavigableSet<Long> queue = waitingByBook.get(bookId);
+        if (queue != null && queue.remove(holdId)) {
+            waiting.decrementAndGet();
+        }
+    }
+    
+    /**
+     * The 1-based position of a waiting hold, or 0 if it is not queued. Counts the
+     * holds ahead of it, so the cost grows with the position, not the queue length.
+     */
+    public int position(Long bookId, Long holdId) {
+        NavigableSet<Long> queue = waitingByBook.get(bookId);
+        return queue != null && queue.contains(holdId) ? queue.headSet(holdId).size() + 1 : 0;
+    }
+    
+    public int length(Long bookId) {
+        NavigableSet<Long> queue = waitingByBook.get(bookId);
+        return queue != null ? queue.size() : 0;
+    }
+}
@@ -0,0 +1,264 @@
+package com.library.service;
+
+import com.library.datasource.ReadYourWrites;
+import com.library.entity.Book;
+import com.library.entity.Hold;
+import com.library.entity.User;
+import com.library.enums.HoldStatus;
+import com.library.exception.BusinessException;
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.BookRepository;
+import com.library.repository.HoldRepository;
+import com.library.repository.LoanRepository;
+import com.library.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Hold queues for titles with no copies available.
+ * <p>
+ * A patron who finds a title sold out places a hold instead of retrying the
+ * checkout. Whenever a copy comes back, {@link #allocate} sets it aside for the
+ * oldest waiting hold in the same transaction, so walk-up checkouts cannot jump
+ * the queue. Allocation, hold placement and checkout of a held copy serialize on
+ * the title's book row only, never on a global lock. A copy that is not picked up
+ * within {@code app.holds.pickup-hours} goes to the next hold in line.
+ */
+@Service
+@Slf4j
+public class HoldService {
+    
+    private static final Set<HoldStatus> OPEN = EnumSet.of(HoldStatus.WAITING, HoldStatus.READY);
+    private static final int MAX_HOLDS_PER_USER = 5;
+    private static final int EXPIRY_CHUNK_SIZE = 500;
+    
+    private final HoldRepository holdRepository;
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+    private final LoanRepository loanRepository;
+    private final HoldQueues holdQueues;
+    private final CatalogueVersions catalogueVersions;
+    private final ReadYourWrites readYourWrites;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter allocated;
+    private final Counter expired;
+    
+    @Value("${app.holds.pickup-hours:48}")
+    private long pickupHours;
+    
+    public HoldService(HoldRepository holdRepository,
+                       BookRepository bookRepository,
+                       UserRepository userRepository,
+                       LoanRepository loanRepository,
+                       HoldQueues holdQueues,
+                       CatalogueVersions catalogueVersions,
+                       ReadYourWrites readYourWrites,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry) {
+        this.holdRepository = holdRepository;
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+        this.loanRepository = loanRepository;
+        this.holdQueues = holdQueues;
+        this.catalogueVersions = catalogueVersions;
+        this.readYourWrites = readYourWrites;
+        this.transactionTemplate = transactionTemplate;
+        this.allocated = Counter.builder("library.holds.allocated")
+                .description("Returned copies set aside for a waiting hold")
+                .register(meterRegistry);
+        this.expired = Counter.builder("library.holds.expired")
+                .description("Ready holds not picked up in time")
+                .register(meterRegistry);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Hold> getOpenHoldsByUser(Long userId) {
+        return holdRepository.findByUserAndStatuses(userId, OPEN);
+    }
+    
+    public boolean hasReadyHold(Long userId, Long bookId) {
+        return holdRepository.existsByUserAndBookAndStatuses(userId, bookId, EnumSet.of(HoldStatus.READY));
+    }
+    
+    public int getPosition(Hold hold) {
+        return hold.getStatus() == HoldStatus.WAITING ? holdQueues.position(hold.getBook().getId(), hold.getId()) : 0;
+    }
+    
+    public int getQueueLength(Long bookId) {
+        return holdQueues.length(bookId);
+    }
+    
+    @Transactional
+    public Hold placeHold(Long userId, Long bookId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        // Locking the title orders this hold against concurrent returns and their allocation
+        Book book = bookRepository.findAllByIdForUpdate(List.of(bookId)).stream().findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
+        
+        if (book.getAvailableCopies() > 0) {
+            throw new BusinessException("Book is available for loan");
+        }
+        if (loanRepository.findActiveLoanByUserAndBook(userId, bookId).isPresent()) {
+            throw new BusinessException("User already has this book on loan");
+        }
+        if (holdRepository.existsByUserAndBookAndStatuses(userId, bookId, OPEN)) {
+            throw new BusinessException("User already has a hold on this book");
+        }
+        if (holdRepository.countByUserAndStatuses(userId, OPEN) >= MAX_HOLDS_PER_USER) {
+            throw new BusinessException("User has reached maximum number of holds");
+        }
+        
+        Hold hold = holdRepository.save(Hold.builder()
+                .user(user)
+                .book(book)
+                .status(HoldStatus.WAITING)
+                .build());
+        afterCommit(() -> holdQueues.joined(bookId, hold.getId()));
+        readYourWrites.recordWrite(user.getEmail());
+        return hold;
+    }
+    
+    @Transactional
+    public Hold cancelHold(Long holdId) {
+        Hold hold = holdRepository.findByIdForUpdate(holdId)
+                .orElseThrow(() -> new ResourceNotFoundException("Hold not found with id: " + holdId));
+        if (!OPEN.contains(hold.getStatus())) {
+            throw new BusinessException("Hold is not open");
+        }
+        
+        HoldStatus previous = hold.getStatus();
+        hold.setStatus(HoldStatus.CANCELLED);
+        Long bookId = hold.getBook().getId();
+        if (previous == HoldStatus.READY) {
+            release(bookId);
+        } else {
+            afterCommit(() -> holdQueues.left(bookId, holdId));
+        }
+        readYourWrites.recordWrite(hold.getUser().getEmail());
+        return hold;
+    }
+    
+    /**
+     * Sets available copies of the title aside for the oldest waiting holds and
+     * returns how many were served. Must run in the transaction that made the
+     * copies available, after the update that locked the book row.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public int allocate(Long bookId) {
+        int available = bookRepository.findAvailableCopiesById(bookId).orElse(0);
+        if (available <= 0) {
+            return 0;
+        }
+        List<Hold> served = holdRepository.findWaitingByBook(bookId, Limit.of(available));
+        if (served.isEmpty()) {
+            return 0;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        for (Hold hold : served) {
+            bookRepository.decrementAvailableCopies(bookId);
+            hold.setStatus(HoldStatus.READY);
+            hold.setReadyAt(now);
+            hold.setExpiresAt(now.plusHours(pickupHours));
+        }
+        catalogueVersions.bookChanged(bookId);
+        afterCommit(() -> {
+            served.forEach(hold -> holdQueues.left(bookId, hold.getId()));
+            allocated.increment(served.size());
+        });
+        return served.size();
+    }
+    
+    /**
+     * Locks the user's ready holds among the given titles, keyed by book id.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<Long, Hold> lockReadyHolds(Long userId, Collection<Long> bookIds) {
+        return holdRepository.findReadyForUpdate(userId, bookIds).stream()
+                .collect(Collectors.toMap(hold -> hold.getBook().getId(), Function.identity()));
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Hold> lockReadyHold(Long userId, Long bookId) {
+        return Optional.ofNullable(lockReadyHolds(userId, List.of(bookId)).get(bookId));
+    }
+    
+    /**
+     * Marks a ready hold as picked up. Its copy was already taken off
+     * {@code availableCopies} when the hold was served.
+     */
+    public void fulfil(Hold hold) {
+        hold.setStatus(HoldStatus.FULFILLED);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.holds.expiry-interval-ms:60000}")
+    public void expireHolds() {
+        LocalDateTime now = LocalDateTime.now();
+        int count = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = holdRepository.findExpiredIds(now, afterId, Limit.of(EXPIRY_CHUNK_SIZE));
+            for (Long id : ids) {
+                // One short transaction per hold, each passing the copy on to the next in line
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> expire(id, now)))) {
+                    count++;
+                }
+            }
+            if (ids.size() < EXPIRY_CHUNK_SIZE) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        if (count > 0) {
+            expired.increment(count);
+            log.info("Expired {} holds that were not picked up", count);
+        }
+    }
+    
+    private boolean expire(Long holdId, LocalDateTime now) {
+        Hold hold = holdRepository.findByIdForUpdate(holdId).orElse(null);
+        // Re-checked under lock: the hold may have been picked up or cancelled since it was listed
+        if (hold == null || hold.getStatus() != HoldStatus.READY || !hold.getExpiresAt().isBefore(now)) {
+            return false;
+        }
+        hold.setStatus(HoldStatus.EXPIRED);
+        release(hold.getBook().getId());
+        return true;
+    }
+    
+    private void release(Long bookId) {
+        bookRepository.incrementAvailableCopies(bookId);
+        catalogueVersions.bookChanged(bookId);
+        allocate(bookId);
+    }
+    
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.library.service;
+
+import com.library.entity.ArchivedLoan;
+import com.library.entity.Loan;
+import com.library.repository.LoanArchiveShard;
+import com.library.repository.LoanArchiveShards;
+import com.library.repository.LoanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Moves loans returned more than {@code app.loans.archive.after-days} ago from the
+ * loans table to the archive store of their user. This keeps the table that
+ * checkouts and per-user limits query down to open and recent loans.
+ * <p>
+ * Loans are moved in keyset-ordered chunks. Each chunk is deleted in its own
+ * transaction, after its loans were written to their stores. Writes to the store
+ * in the application's database are part of that transaction. Writes to other
+ * databases commit first, so an interrupted chunk can leave a loan in both the
+ * loans table and a store until the next run writes it again and deletes it.
+ */
+@Component
+@Slf4j
+public class LoanArchiver {
+    
+    private final LoanRepository loanRepository;
+    private final LoanArchiveShards loanArchiveShards;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Counter archivedLoans;
+    
+    @Value("${app.loans.archive.after-days:30}")
+    private int afterDays;
+    
+    @Value("${app.loans.archive.chunk-size:1000}")
+    private int chunkSize;
+    
+    public LoanArchiver(LoanRepository loanRepository,
+                        LoanArchiveShards loanArchiveShards,
+                        TransactionTemplate transactionTemplate,
+                        MeterRegistry meterRegistry) {
+        this.loanRepository = loanRepository;
+        this.loanArchiveShards = loanArchiveShards;
+        this.transactionTemplate = transactionTemplate;
+        this.archivedLoans = Counter.builder("library.loans.archived")
+                .description("Returned loans moved to the archive")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(cron = "${app.loans.archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        archive();
+    }
+    
+    /**
+     * Runs an archive pass and returns the number of loans moved, or 0 if a pass is
+     * already in progress.
+     */
+    public int archive() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Loan archiving already in progress, skipping");
+            return 0;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            LocalDate before = LocalDate.now().minusDays(afterDays);
+            int moved = 0;
+            long afterId = 0;
+            while (true) {
+                List<Long> ids = loanRepository.findArchivableIds(before, afterId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                afterId = ids.get(ids.size() - 1);
+                moved += transactionTemplate.execute(status -> move(ids));
+            }
+            archivedLoans.increment(moved);
+            if (moved > 0) {
+                log.info("Archived {} returned loans in {} ms", moved, System.currentTimeMillis() - start);
+            }
+            return moved;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private int move(List<Long> ids) {
+        LocalDateTime archivedAt = LocalDateTime.now();
+        List<Loan> loans = loanRepository.findReturnedForArchive(ids);
+        Map<LoanArchiveShard, List<ArchivedLoan>> byShard = loans.stream()
+                .map(loan -> ArchivedLoan.from(loan, archivedAt))
+                .collect(Collectors.groupingBy(loan -> loanArchiveShards.forUser(loan.getUserId())));
+        byShard.forEach(LoanArchiveShard::saveAll);
+        int deleted = loanRepository.deleteReturned(loans.stream().map(Loan::getId).toList());
+        if (loans.size() != deleted) {
+            throw new IllegalStateException("Copied " + loans.size() + " loans to the archive but deleted " + deleted);
+        }
+        return deleted;
+    }
+}
@@ -1,9 +1,19 @@
 package com.library.service;
 
+import com.library.datasource.ReadYourWrites;
+import com.library.dto.request.KeysetCursor;
+import com.library.dto.response.BatchLoanResult;
+import com.library.dto.response.CursorPage;
+import com.library.dto.response.LoanResponse;
+import com.library.dto.response.LoanSummary;
 import com.library.entity.Book;
+import com.library.entity.Hold;
 import com.library.entity.Loan;
 import com.library.entity.User;
+import com.library.enums.DomainEventType;
 import com.library.enums.LoanStatus;
+import com.library.events.DomainEventPublisher;
+import com.library.events.LoanEventPayload;
 import com.library.exception.BusinessException;
 import com.library.exception.ResourceNotFoundException;
 import com.library.repository.BookRepository;
@@ -14,45 +24,93 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class LoanService {
     
     private final LoanRepository loanRepository;
+    private final LoanStore loanStore;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final BookInventoryGuard bookInventoryGuard;
+    private final CatalogueVersions catalogueVersions;
+    private final ReadYourWrites readYourWrites;
+    private final TransactionTemplate transactionTemplate;
+    private final OverdueLoanSweeper overdueLoanSweeper;
+    private final DomainEventPublisher domainEventPublisher;
+    private final HoldService holdService;
     
     private static final int MAX_LOANS_PER_USER = 5;
     private static final int LOAN_DURATION_DAYS = 14;
     
-    public Page<Loan> getAllLoans(Pageable pageable) {
-        return loanRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public Page<LoanSummary> getAllLoans(Pageable pageable) {
+        return loanStore.findAll(pageable);
     }
     
-    public Page<Loan> getLoansByUser(Long userId, Pageable pageable) {
-        return loanRepository.findByUserId(userId, pageable);
+    @Transactional(readOnly = true)
+    public Page<LoanSummary> getLoansByUser(Long userId, Pageable pageable) {
+        return loanStore.findByUser(userId, pageable);
     }
     
-    public Page<Loan> getLoansByStatus(LoanStatus status, Pageable pageable) {
-        return loanRepository.findByStatus(status, pageable);
+    @Transactional(readOnly = true)
+    public Page<LoanSummary> getLoansByStatus(LoanStatus status, Pageable pageable) {
+        return loanStore.findByStatus(status, pageable);
     }
     
-    public Loan getLoanById(Long id) {
-        return loanRepository.findById(id)
+    @Transactional(readOnly = true)
+    public CursorPage<LoanSummary> getLoansAfter(String after, int size) {
+        int limit = CursorPage.clampSize(size);
+        List<LoanSummary> rows = loanStore.findNextById(KeysetCursor.afterId(after), limit + 1);
+        return CursorPage.of(rows, limit, loan -> KeysetCursor.ofId(loan.getId()));
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<LoanSummary> getLoansByUserAfter(Long userId, String after, int size) {
+        int limit = CursorPage.clampSize(size);
+        List<LoanSummary> rows = loanStore.findNextByUserId(userId, KeysetCursor.afterId(after), limit + 1);
+        return CursorPage.of(rows, limit, loan -> KeysetCursor.ofId(loan.getId()));
+    }
+    
+    @Transactional(readOnly = true)
+    public CursorPage<LoanSummary> getLoansByStatusAfter(LoanStatus status, String after, int size) {
+        int limit = CursorPage.clampSize(size);
+        List<LoanSummary> rows = loanStore.findNextByStatus(status, KeysetCursor.afterId(after), limit + 1);
+        return CursorPage.of(rows, limit, loan -> KeysetCursor.ofId(loan.getId()));
+    }
+    
+    @Transactional(readOnly = true)
+    public LoanSummary getLoanById(Long id) {
+        return loanStore.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Loan not found with id: " + id));
     }
     
-    @Transactional
     public Loan createLoan(Long userId, Long bookId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        // Reject checkouts for titles known to be sold out before opening a transaction
+        if (!bookInventoryGuard.mightBeAvailable(bookId) && !holdService.hasReadyHold(userId, bookId)) {
+            throw new BusinessException("Book is not available for loan; place a hold to join the queue");
+        }
         
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
+        return transactionTemplate.execute(status -> checkout(userId, bookId));
+    }
+    
+    private Loan checkout(Long userId, Long bookId) {
+        User user = userRepository.findByIdForUpdate(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
         // Check if user has reached maximum loans
         long activeLoans = loanRepository.countActiveLoansByUser(userId);
@@ -60,16 +118,29 @@ public class LoanService {
             throw new BusinessException("User has reached maximum number of active loans");
         }
         
-        // Check if book is available
-        if (book.getAvailableCopies() <= 0) {
-            throw new BusinessException("Book is not available for loan");
-        }
-        
         // Check if user already has this book on loan
         if (loanRepository.findActiveLoanByUserAndBook(userId, bookId).isPresent()) {
             throw new BusinessException("User already has this book on loan");
         }
         
+        // A ready hold already has its copy set aside; otherwise take one with a
+        // conditional decrement so concurrent checkouts cannot oversell
+        Optional<Hold> readyHold = holdService.lockReadyHold(userId, bookId);
+        if (readyHold.isPresent()) {
+            holdService.fulfil(readyHold.get());
+        } else if (bookRepository.decrementAvailableCopies(bookId) == 0) {
+            if (!bookRepository.existsById(bookId)) {
+                throw new ResourceNotFoundException("Book not found with id: " + bookId);
+            }
+            bookInventoryGuard.recordSoldOut(bookId);
+            throw new BusinessException("Book is not available for loan; place a hold to join the queue");
+        }
+        
+        Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
+        bookInventoryGuard.recordAvailable(bookId, book.getAvailableCopies());
+        catalogueVersions.bookChanged(bookId);
+        
         // Create loan
         Loan loan = Loan.builder()
                 .user(user)
@@ -79,16 +150,167 @@ public class LoanService {
                 .status(LoanStatus.ACTIVE)
                 .build();
         
-        // Update book availability
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
+        Loan saved = loanRepository.save(loan);
+        readYourWrites.recordWrite(user.getEmail());
+        domainEventPublisher.publish(DomainEventType.LOAN_CREATED, saved.getId(), LoanEventPayload.from(saved));
+        return saved;
+    }
+    
+    /**
+     * Checks out several books for one user in a single transaction. The basket is
+     * validated with set-based queries and every book gets its own result, so books
+     * that cannot be lent do not stop the others.
+     */
+    public BatchLoanResult createLoans(Long userId, List<Long> bookIds) {
+        return transactionTemplate.execute(status -> checkoutBatch(userId, bookIds));
+    }
+    
+    private BatchLoanResult checkoutBatch(Long userId, List<Long> bookIds) {
+        User user = userRepository.findByIdForUpdate(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        
+        Set<Long> requested = new LinkedHashSet<>(bookIds);
+        long freeSlots = MAX_LOANS_PER_USER - loanRepository.countActiveLoansByUser(userId);
+        Set<Long> alreadyOnLoan = new HashSet<>(loanRepository.findActiveBookIdsByUser(userId, requested));
+        // Locked, so the availability read here holds until commit
+        Map<Long, Book> books = bookRepository.findAllByIdForUpdate(requested).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        Map<Long, Hold> readyHolds = holdService.lockReadyHolds(userId, requested);
         
-        return loanRepository.save(loan);
+        List<Loan> outcomes = new ArrayList<>(bookIds.size());
+        List<String> errors = new ArrayList<>(bookIds.size());
+        List<Loan> loans = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long bookId : bookIds) {
+            Book book = books.get(bookId);
+            String error = null;
+            if (!seen.add(bookId)) {
+                error = "Book is listed more than once";
+            } else if (book == null) {
+                error = "Book not found with id: " + bookId;
+            } else if (alreadyOnLoan.contains(bookId)) {
+                error = "User already has this book on loan";
+            } else if (book.getAvailableCopies() <= 0 && !readyHolds.containsKey(bookId)) {
+                error = "Book is not available for loan";
+            } else if (loans.size() >= freeSlots) {
+                error = "User has reached maximum number of active loans";
+            }
+            
+            Loan loan = null;
+            if (error == null) {
+                loan = Loan.builder()
+                        .user(user)
+                        .book(book)
+                        .loanDate(LocalDate.now())
+                        .dueDate(LocalDate.now().plusDays(LOAN_DURATION_DAYS))
+                        .status(LoanStatus.ACTIVE)
+                        .build();
+                loans.add(loan);
+            }
+            outcomes.add(loan);
+            errors.add(error);
+        }
+        
+        if (!loans.isEmpty()) {
+            // Copies of ready holds were set aside when the holds were served
+            List<Long> lentBookIds = loans.stream()
+                    .map(loan -> loan.getBook().getId())
+                    .filter(bookId -> !readyHolds.containsKey(bookId))
+                    .toList();
+            if (!lentBookIds.isEmpty() && bookRepository.decrementAvailableCopies(lentBookIds) != lentBookIds.size()) {
+                throw new IllegalStateException("Available copies changed while the books were locked");
+            }
+            catalogueVersions.booksChanged(lentBookIds);
+            loanRepository.saveAll(loans);
+            for (Loan loan : loans) {
+                Hold hold = readyHolds.get(loan.getBook().getId());
+                if (hold != null) {
+                    holdService.fulfil(hold);
+                } else {
+                    bookInventoryGuard.recordAvailable(loan.getBook().getId(), loan.getBook().getAvailableCopies() - 1);
+                }
+                domainEventPublisher.publish(DomainEventType.LOAN_CREATED, loan.getId(), LoanEventPayload.from(loan));
+            }
+        }
+        
+        List<BatchLoanResult.Item> items = new ArrayList<>(bookIds.size());
+        for (int i = 0; i < bookIds.size(); i++) {
+            items.add(outcomes.get(i) != null
+                    ? BatchLoanResult.Item.succeeded(LoanResponse.from(outcomes.get(i)))
+                    : BatchLoanResult.Item.failed(bookIds.get(i), null, errors.get(i)));
+        }
+        readYourWrites.recordWrite(user.getEmail());
+        return BatchLoanResult.of(items);
+    }
+    
+    /**
+     * Returns several loans in a single transaction, with one result per loan.
+     */
+    public BatchLoanResult returnBooks(List<Long> loanIds) {
+        return transactionTemplate.execute(status -> returnBatch(loanIds));
+    }
+    
+    private BatchLoanResult returnBatch(List<Long> loanIds) {
+        Map<Long, Loan> loans = loanRepository.findAllByIdForUpdate(new LinkedHashSet<>(loanIds)).stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+        // Archived loans were returned long ago; report them as such rather than as missing
+        Map<Long, LoanSummary> archived = loanStore.findArchived(loanIds.stream().filter(id -> !loans.containsKey(id)).toList())
+                .stream()
+                .collect(Collectors.toMap(LoanSummary::getId, Function.identity(), (first, second) -> first));
+        
+        List<BatchLoanResult.Item> items = new ArrayList<>(loanIds.size());
+        Map<Long, Integer> returnedPerBook = new HashMap<>();
+        Set<String> borrowers = new HashSet<>();
+        Set<Long> seen = new HashSet<>();
+        for (Long loanId : loanIds) {
+            Loan loan = loans.get(loanId);
+            if (!seen.add(loanId)) {
+                items.add(BatchLoanResult.Item.failed(null, loanId, "Loan is listed more than once"));
+            } else if (archived.containsKey(loanId)) {
+                items.add(BatchLoanResult.Item.failed(archived.get(loanId).getBookId(), loanId, "Loan is not active"));
+            } else if (loan == null) {
+                items.add(BatchLoanResult.Item.failed(null, loanId, "Loan not found with id: " + loanId));
+            } else if (loan.getStatus() != LoanStatus.ACTIVE) {
+                items.add(BatchLoanResult.Item.failed(loan.getBook().getId(), loanId, "Loan is not active"));
+            } else {
+                // Dirty checking writes the changed loans as one JDBC batch at commit
+                loan.setReturnDate(LocalDate.now());
+                loan.setStatus(LoanStatus.RETURNED);
+                returnedPerBook.merge(loan.getBook().getId(), 1, Integer::sum);
+                borrowers.add(loan.getUser().getEmail());
+                domainEventPublisher.publish(DomainEventType.LOAN_RETURNED, loanId, LoanEventPayload.from(loan));
+                items.add(BatchLoanResult.Item.succeeded(LoanResponse.from(loan)));
+            }
+        }
+        
+        // One UPDATE per distinct number of copies returned, usually a single statement
+        returnedPerBook.entrySet().stream()
+                .collect(Collectors.groupingBy(Map.Entry::getValue, Collectors.mapping(Map.Entry::getKey, Collectors.toList())))
+                .forEach((count, bookIds) -> bookRepository.incrementAvailableCopies(bookIds, count));
+        catalogueVersions.booksChanged(returnedPerBook.keySet());
+        returnedPerBook.keySet().forEach(holdService::allocate);
+        returnedPerBook.forEach((bookId, count) -> {
+            for (int i = 0; i < count; i++) {
+                bookInventoryGuard.recordReturned(bookId);
+            }
+        });
+        readYourWrites.recordWrite(borrowers);
+        return BatchLoanResult.of(items);
     }
     
     @Transactional
     public Loan returnBook(Long loanId) {
-        Loan loan = getLoanById(loanId);
+        // Locked like the batch return, so concurrent returns of one loan restore a single copy
+        Loan loan = loanRepository.findAllByIdForUpdate(List.of(loanId)).stream()
+                .findFirst()
+                .orElse(null);
+        if (loan == null) {
+            // Only returned loans are archived
+            if (!loanStore.findArchived(List.of(loanId)).isEmpty()) {
+                throw new BusinessException("Loan is not active");
+            }
+            throw new ResourceNotFoundException("Loan not found with id: " + loanId);
+        }
         
         if (loan.getStatus() != LoanStatus.ACTIVE) {
             throw new BusinessException("Loan is not active");
@@ -98,19 +320,19 @@ public class LoanService {
         loan.setStatus(LoanStatus.RETURNED);
         
         // Update book availability
-        Book book = loan.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepository.save(book);
+        Long bookId = loan.getBook().getId();
+        bookRepository.incrementAvailableCopies(bookId);
+        bookInventoryGuard.recordReturned(bookId);
+        catalogueVersions.bookChanged(bookId);
+        holdService.allocate(bookId);
         
-        return loanRepository.save(loan);
+        Loan saved = loanRepository.save(loan);
+        readYourWrites.recordWrite(saved.getUser().getEmail());
+        domainEventPublisher.publish(DomainEventType.LOAN_RETURNED, saved.getId(), LoanEventPayload.from(saved));
+        return saved;
     }
     
-    @Transactional
     public void updateOverdueLoans() {
-        List<Loan> overdueLoans = loanRepository.findOverdueLoans(LocalDate.now());
-        for (Loan loan : overdueLoans) {
-            loan.setStatus(LoanStatus.OVERDUE);
-        }
-        loanRepository.saveAll(overdueLoans);
+        overdueLoanSweeper.sweep();
     }
 }
@@ -0,0 +1,218 @@
+package com.library.service;
+
+import com.library.dto.response.LoanSummary;
+import com.library.entity.ArchivedLoan;
+import com.library.entity.Loan;
+import com.library.enums.LoanStatus;
+import com.library.exception.BusinessException;
+import com.library.repository.LoanArchiveShard;
+import com.library.repository.LoanArchiveShards;
+import com.library.repository.LoanRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Reads loans from everywhere they are kept: the {@code loans} table, with open
+ * and recently returned loans, and the archive stores {@link LoanArchiver} moves
+ * older returned loans to. Archived loans are spread over the stores by user, so
+ * a listing for one user reads the loans table and a single store, while
+ * listings across users gather from every store. Listings that can only match
+ * open loans read the loans table alone.
+ * <p>
+ * An offset page merges the parts in the requested order: each part streams its
+ * first offset + size rows in that order and the page is cut from the merged
+ * sequence, so it is the page a single table holding every loan would return.
+ * Ties are broken by id, and empty values sort last in either direction, alike
+ * in every database and in the merge. Cursor listings merge all parts by id.
+ */
+@Component
+@RequiredArgsConstructor
+public class LoanStore {
+    
+    private final LoanRepository loanRepository;
+    private final LoanArchiveShards loanArchiveShards;
+    
+    public Page<LoanSummary> findAll(Pageable pageable) {
+        return page(pageable, new Part(loanRepository::count, loanRepository::streamSummaries), loanArchiveShards.all(), shard -> new Part(shard::count,
+                        (sort, limit) -> shard.streamAll(sort, limit.max()).map(LoanSummary::from)));
+    }
+    
+    public Page<LoanSummary> findByUser(Long userId, Pageable pageable) {
+        return page(pageable, new Part(() -> loanRepository.countByUserId(userId),
+                        (sort, limit) -> loanRepository.streamSummariesByUserId(userId, sort, limit)),
+                List.of(loanArchiveShards.forUser(userId)), shard -> new Part(() -> shard.countByUserId(userId),
+                        (sort, limit) -> shard.streamByUserId(userId, sort, limit.max()).map(LoanSummary::from)));
+    }
+    
+    public Page<LoanSummary> findByStatus(LoanStatus status, Pageable pageable) {
+        return page(pageable, new Part(() -> loanRepository.countByStatus(status),
+                        (sort, limit) -> loanRepository.streamSummariesByStatus(status, sort, limit)),
+                isArchived(status) ? loanArchiveShards.all() : List.of(), shard -> new Part(() -> shard.countByStatus(status),
+                        (sort, limit) -> shard.streamByStatus(status, sort, limit.max()).map(LoanSummary::from)));
+    }
+    
+    public List<LoanSummary> findNextById(Long afterId, int limit) {
+        return merge(loanRepository.findNextById(afterId, Limit.of(limit)),
+                loanArchiveShards.all(), shard -> shard.findNextById(afterId, limit), limit);
+    }
+    
+    public List<LoanSummary> findNextByUserId(Long userId, Long afterId, int limit) {
+        return merge(loanRepository.findNextByUserId(userId, afterId, Limit.of(limit)),
+                List.of(loanArchiveShards.forUser(userId)), shard -> shard.findNextByUserId(userId, afterId, limit), limit);
+    }
+    
+    public List<LoanSummary> findNextByStatus(LoanStatus status, Long afterId, int limit) {
+        return merge(loanRepository.findNextByStatus(status, afterId, Limit.of(limit)),
+                isArchived(status) ? loanArchiveShards.all() : List.of(),
+                shard -> shard.findNextByStatus(status, afterId, limit), limit);
+    }
+    
+    /**
+     * Finds a loan by id in the loans table or, failing that, in the archive. The
+     * id does not tell which store holds it, so every store is asked.
+     */
+    public Optional<LoanSummary> findById(Long id) {
+        return loanRepository.findById(id)
+                .map(LoanSummary::from)
+                .or(() -> loanArchiveShards.all().stream()
+                        .flatMap(shard -> shard.findById(id).stream())
+                        .map(LoanSummary::from)
+                        .findFirst());
+    }
+    
+    /**
+     * Returns those of the given loans that have been archived.
+     */
+    public List<LoanSummary> findArchived(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return loanArchiveShards.all().stream()
+                .flatMap(shard -> shard.findAllById(ids).stream())
+                .map(LoanSummary::from)
+                .toList();
+    }
+    
+    private static boolean isArchived(LoanStatus status) {
+        return status == LoanStatus.RETURNED;
+    }
+    
+    private static List<LoanSummary> merge(List<Loan> open, List<LoanArchiveShard> shards,
+                                           Function<LoanArchiveShard, List<ArchivedLoan>> archived, int limit) {
+        return Stream.concat(open.stream().map(LoanSummary::from),
+                        shards.stream().flatMap(shard -> archived.apply(shard).stream()).map(LoanSummary::from))
+                .sorted(Comparator.comparing(LoanSummary::getId))
+                .limit(limit)
+                .toList();
+    }
+    
+    private static Page<LoanSummary> page(Pageable pageable, Part open, List<LoanArchiveShard> shards,
+                                          Function<LoanArchiveShard, Part> archived) {
+        if (pageable.isUnpaged()) {
+            throw new BusinessException("Loan listings must be paged");
+        }
+        Sort sort = mergeOrder(pageable.getSort());
+        List<Part> parts = new ArrayList<>();
+        parts.add(open);
+        shards.forEach(shard -> parts.add(archived.apply(shard)));
+        
+        long[] counts = parts.stream().mapToLong(part -> part.count().getAsLong()).toArray();
+        long total = LongStream.of(counts).sum();
+        if (pageable.getOffset() >= total) {
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+        // No part can contribute more rows than the page and everything before it
+        Limit window = Limit.of(Math.toIntExact(Math.min(pageable.getOffset() + pageable.getPageSize(), total)));
+        
+        List<Stream<LoanSummary>> streams = new ArrayList<>();
+        try {
+            PriorityQueue<Head> heads = new PriorityQueue<>(Comparator.comparing(Head::loan, comparator(sort)));
+            for (int i = 0; i < parts.size(); i++) {
+                if (counts[i] > 0) {
+                    Stream<LoanSummary> rows = parts.get(i).rows().apply(sort, window);
+                    streams.add(rows);
+                    Head.next(rows.iterator()).ifPresent(heads::add);
+                }
+            }
+            List<LoanSummary> content = new ArrayList<>(pageable.getPageSize());
+            for (long position = 0; position < window.max() && !heads.isEmpty(); position++) {
+                Head head = heads.poll();
+                if (position >= pageable.getOffset()) {
+                    content.add(head.loan());
+                }
+                Head.next(head.rest()).ifPresent(heads::add);
+            }
+            return new PageImpl<>(content, pageable, total);
+        } finally {
+            streams.forEach(Stream::close);
+        }
+    }
+    
+    /**
+     * The requested order as every part applies it: empty values last, which
+     * Hibernate is configured to default to since Spring Data drops the placement
+     * from the queries it sorts, and ties broken by id.
+     */
+    private static Sort mergeOrder(Sort requested) {
+        LoanArchiveShard.checkSort(requested);
+        Sort sort = Sort.by(requested.stream().map(Sort.Order::nullsLast).toList());
+        return sort.getOrderFor("id") != null ? sort : sort.and(Sort.by("id"));
+    }
+    
+    private static Comparator<LoanSummary> comparator(Sort sort) {
+        return sort.stream()
+                .map(LoanStore::comparator)
+                .reduce(Comparator::thenComparing)
+                .orElseThrow();
+    }
+    
+    private static Comparator<LoanSummary> comparator(Sort.Order order) {
+        return switch (order.getProperty()) {
+            case "id" -> comparing(LoanSummary::getId, order);
+            case "loanDate" -> comparing(LoanSummary::getLoanDate, order);
+            case "dueDate" -> comparing(LoanSummary::getDueDate, order);
+            case "returnDate" -> comparing(LoanSummary::getReturnDate, order);
+            // Statuses are stored by name, so the databases order them alphabetically
+            case "status" -> comparing(loan -> loan.getStatus().name(), order);
+            default -> throw new BusinessException("Unsupported sort: " + order.getProperty());
+        };
+    }
+    
+    private static <T extends Comparable<? super T>> Comparator<LoanSummary> comparing(Function<LoanSummary, T> key,
+                                                                                     Sort.Order order) {
+        Comparator<T> values = order.isAscending() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+        return Comparator.comparing(key, Comparator.nullsLast(values));
+    }
+    
+    /**
+     * One listing's rows in one place: the loans table or an archive store.
+     */
+    private record Part(LongSupplier count, BiFunction<Sort, Limit, Stream<LoanSummary>> rows) {
+    }
+    
+    // The next row of a part still to be merged, with the part's remaining rows
+    private record Head(LoanSummary loan, Iterator<LoanSummary> rest) {
+        
+        static Optional<Head> next(Iterator<LoanSummary> rows) {
+            return rows.hasNext() ? Optional.of(new Head(rows.next(), rows)) : Optional.empty();
+        }
+    }
+}
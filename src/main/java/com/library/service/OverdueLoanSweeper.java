@@ -0,0 +1,169 @@
+package com.library.service;
+
+import com.library.enums.DomainEventType;
+import com.library.events.DomainEventPublisher;
+import com.library.events.LoanEventPayload;
+import com.library.repository.LoanRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Marks active loans past their due date as overdue.
+ * <p>
+ * Overdue ids are read in keyset-ordered chunks and each chunk is flipped with a
+ * single bulk UPDATE in its own short transaction, so no run holds locks on the
+ * whole backlog. Because the UPDATE only touches loans that are still ACTIVE, a
+ * sweep interrupted by a crash simply picks up the remaining rows on the next run.
+ */
+@Component
+@Slf4j
+public class OverdueLoanSweeper {
+    
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncTaskExecutor applicationTaskExecutor;
+    private final DomainEventPublisher domainEventPublisher;
+    
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastRowsPerSecond = new AtomicLong();
+    private final AtomicLong lastCompletedAt = new AtomicLong(System.currentTimeMillis());
+    private final Counter sweptRows;
+    private final Timer sweepTimer;
+    
+    @Value("${app.loans.overdue-sweep.chunk-size:1000}")
+    private int chunkSize;
+    
+    @Value("${app.loans.overdue-sweep.parallelism:2}")
+    private int parallelism;
+    
+    public OverdueLoanSweeper(LoanRepository loanRepository,
+                              TransactionTemplate transactionTemplate,
+                              AsyncTaskExecutor applicationTaskExecutor,
+                              DomainEventPublisher domainEventPublisher,
+                              MeterRegistry meterRegistry) {
+        this.loanRepository = loanRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+        this.domainEventPublisher = domainEventPublisher;
+        this.sweptRows = Counter.builder("library.loans.overdue.sweep.rows")
+                .description("Loans marked overdue by the sweeper")
+                .register(meterRegistry);
+        this.sweepTimer = Timer.builder("library.loans.overdue.sweep.duration")
+                .description("Duration of overdue sweeps")
+                .register(meterRegistry);
+        Gauge.builder("library.loans.overdue.sweep.rate", lastRowsPerSecond, AtomicLong::get)
+                .description("Rows per second of the last overdue sweep that found work")
+                .register(meterRegistry);
+        Gauge.builder("library.loans.overdue.sweep.lag", lastCompletedAt,
+                        completedAt -> (System.currentTimeMillis() - completedAt.get()) / 1000.0)
+                .description("Seconds since the last completed overdue sweep")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+    
+    @Scheduled(cron = "${app.loans.overdue-sweep.cron:0 */15 * * * *}")
+    public void scheduledSweep() {
+        sweep();
+    }
+    
+    /**
+     * Runs a sweep and returns the number of loans marked overdue, or 0 if a sweep
+     * is already in progress.
+     */
+    public int sweep() {
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Overdue sweep already in progress, skipping");
+            return 0;
+        }
+        try {
+            long start = System.nanoTime();
+            int swept = sweepInChunks(LocalDate.now());
+            long elapsedNanos = System.nanoTime() - start;
+            
+            sweepTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            sweptRows.increment(swept);
+            lastCompletedAt.set(System.currentTimeMillis());
+            if (swept > 0) {
+                lastRowsPerSecond.set(swept * 1_000_000_000L / Math.max(elapsedNanos, 1));
+                log.info("Marked {} loans overdue in {} ms", swept, elapsedNanos / 1_000_000);
+            }
+            return swept;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    private int sweepInChunks(LocalDate today) {
+        Semaphore permits = new Semaphore(parallelism);
+        List<Future<Integer>> chunks = new ArrayList<>();
+        long afterId = 0;
+        try {
+            while (true) {
+                List<Long> ids = loanRepository.findOverdueLoanIds(today, afterId, PageRequest.of(0, chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                afterId = ids.get(ids.size() - 1);
+                
+                // Bound the number of chunk transactions in flight
+                permits.acquire();
+                chunks.add(applicationTaskExecutor.submit(() -> {
+                    try {
+                        return transactionTemplate.execute(status -> markOverdue(ids));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        int swept = 0;
+        for (Future<Integer> chunk : chunks) {
+            try {
+                swept += chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                // Rows of a failed chunk stay ACTIVE and are retried on the next run
+                log.error("Overdue sweep chunk failed: {}", e.getCause().getMessage());
+            }
+        }
+        return swept;
+    }
+    
+    private int markOverdue(List<Long> ids) {
+        // Re-read under lock: loans returned since the ids were listed must not be flagged
+        List<LoanEventPayload> loans = loanRepository.lockActiveLoans(ids);
+        if (loans.isEmpty()) {
+            return 0;
+        }
+        int updated = loanRepository.markOverdue(loans.stream().map(LoanEventPayload::loanId).toList(), LocalDateTime.now());
+        for (LoanEventPayload loan : loans) {
+            domainEventPublisher.publish(DomainEventType.LOAN_OVERDUE, loan.loanId(), loan);
+        }
+        return updated;
+    }
+}
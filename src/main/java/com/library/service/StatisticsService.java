@@ -0,0 +1,83 @@
+package com.library.service;
+
+import com.library.dto.response.CirculationDashboard;
+import com.library.entity.Book;
+import com.library.entity.Category;
+import com.library.repository.BookRepository;
+import com.library.repository.CategoryRepository;
+import com.library.stats.CirculationStats;
+import com.library.stats.TopK;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the circulation dashboard from the in-memory counters of
+ * {@link CirculationStats}. The only database reads are the titles of the top
+ * books and the category names.
+ */
+@Service
+@RequiredArgsConstructor
+public class StatisticsService {
+    
+    private static final int MAX_TOP = 100;
+    private static final int DASHBOARD_DAYS = 30;
+    
+    private final CirculationStats circulationStats;
+    private final BookRepository bookRepository;
+    private final CategoryRepository categoryRepository;
+    
+    @Transactional(readOnly = true)
+    public CirculationDashboard getDashboard(YearMonth month, int top) {
+        int k = Math.max(1, Math.min(top, MAX_TOP));
+        
+        List<TopK.Entry> topBooks = circulationStats.mostBorrowedBooks(month, k);
+        Map<Long, String> titles = bookRepository.findAllById(topBooks.stream().map(TopK.Entry::key).toList()).stream()
+                .collect(Collectors.toMap(Book::getId, Book::getTitle));
+        List<CirculationDashboard.BookCount> books = topBooks.stream()
+                .map(entry -> new CirculationDashboard.BookCount(entry.key(), titles.get(entry.key()), entry.count()))
+                .toList();
+        
+        Map<Long, String> categoryNames = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+        List<CirculationDashboard.CategoryCount> categories = circulationStats.activeLoansByCategory().entrySet().stream()
+                .filter(entry -> categoryNames.containsKey(entry.getKey()))
+                .map(entry -> new CirculationDashboard.CategoryCount(entry.getKey(), categoryNames.get(entry.getKey()), entry.getValue()))
+                .sorted(Comparator.comparingLong(CirculationDashboard.CategoryCount::getActiveLoans).reversed())
+                .toList();
+        
+        List<CirculationDashboard.UserCirculation> users = circulationStats.mostOverdueUsers(k).stream()
+                .map(entry -> getUserCirculation(entry.key()))
+                .toList();
+        
+        List<CirculationDashboard.DayCount> days = new ArrayList<>(DASHBOARD_DAYS);
+        LocalDate today = LocalDate.now();
+        for (int i = DASHBOARD_DAYS - 1; i >= 0; i--) {
+            LocalDate date = today.minusDays(i);
+            CirculationStats.Day day = circulationStats.day(date);
+            days.add(new CirculationDashboard.DayCount(date, day.checkouts(), day.returns(), day.overdue()));
+        }
+        
+        return CirculationDashboard.builder()
+                .month(month.toString())
+                .mostBorrowedBooks(books)
+                .activeLoansByCategory(categories)
+                .mostOverdueUsers(users)
+                .days(days)
+                .build();
+    }
+    
+    public CirculationDashboard.UserCirculation getUserCirculation(Long userId) {
+        return CirculationDashboard.UserCirculation.of(userId,
+                circulationStats.loansOf(userId), circulationStats.overdueOf(userId));
+    }
+}
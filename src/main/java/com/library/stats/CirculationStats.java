@@ -0,0 +1,319 @@
+package com.library.stats;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.enums.DomainEventType;
+import com.library.events.DomainEvent;
+import com.library.events.DomainEventConsumer;
+import com.library.events.LoanEventPayload;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Circulation counters kept up to date from loan events instead of aggregating the
+ * loans table on every dashboard read.
+ * <p>
+ * Each event costs a few map increments. The counters are checkpointed to the
+ * database every {@code app.stats.checkpoint-interval-ms} together with the ids of
+ * the events applied since the previous checkpoint; on startup the checkpoint is
+ * loaded and the delivered loan events it does not include are replayed, so a
+ * restart neither rescans the loans table nor loses or double counts events, even
+ * though they are not delivered in id order. Only the current and the
+ * previous month and the last {@code app.stats.days-kept} days are kept in memory.
+ */
+@Component
+@Slf4j
+public class CirculationStats implements DomainEventConsumer {
+    
+    static final String BOOK_LOANS = "BOOK_LOANS";
+    static final String CATEGORY_LOANS = "CATEGORY_LOANS";
+    static final String CATEGORY_ACTIVE = "CATEGORY_ACTIVE";
+    static final String USER_LOANS = "USER_LOANS";
+    static final String USER_OVERDUE = "USER_OVERDUE";
+    static final String DAY_CHECKOUTS = "DAY_CHECKOUTS";
+    static final String DAY_RETURNS = "DAY_RETURNS";
+    static final String DAY_OVERDUE = "DAY_OVERDUE";
+    
+    private final CirculationStatsStore store;
+    private final ObjectMapper objectMapper;
+    private final int topKCapacity;
+    private final int daysKept;
+    
+    // Snapshots take the write lock so a checkpoint never splits an event
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+    private final Cache<Long, Boolean> recentEventIds = Caffeine.newBuilder().maximumSize(100_000).build();
+    private final Queue<Long> appliedSinceCheckpoint = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    
+    private final Map<YearMonth, MonthlyCounts> months = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> activeByCategory = new ConcurrentHashMap<>();
+    private final Map<Long, UserCounts> users = new ConcurrentHashMap<>();
+    private final Map<LocalDate, DailyCounts> days = new ConcurrentHashMap<>();
+    private final TopK mostOverdueUsers;
+    
+    public CirculationStats(CirculationStatsStore store,
+                            ObjectMapper objectMapper,
+                            @Value("${app.stats.top-k-capacity:100}") int topKCapacity,
+                            @Value("${app.stats.days-kept:90}") int daysKept) {
+        this.store = store;
+        this.objectMapper = objectMapper;
+        this.topKCapacity = topKCapacity;
+        this.daysKept = daysKept;
+        this.mostOverdueUsers = new TopK(topKCapacity);
+    }
+    
+    @PostConstruct
+    void restore() {
+        long start = System.currentTimeMillis();
+        if (!store.hasCheckpoint()) {
+            // Events stored so far are already reflected in the loans table; pending ones will be redelivered
+            List<Long> eventIds = store.loanEventIds();
+            load(store.backfill(YearMonth.now().minusMonths(1), LocalDate.now().minusDays(daysKept)));
+            eventIds.forEach(id -> recentEventIds.put(id, Boolean.TRUE));
+            appliedSinceCheckpoint.addAll(eventIds);
+            dirty.set(true);
+            log.info("Backfilled circulation statistics from the loans table in {} ms", System.currentTimeMillis() - start);
+        } else {
+            load(store.loadRows());
+            store.appliedPendingEventIds().forEach(id -> recentEventIds.put(id, Boolean.TRUE));
+            int replayed = store.replay(this::handle);
+            log.info("Restored circulation statistics from checkpoint and replayed {} events in {} ms",
+                    replayed, System.currentTimeMillis() - start);
+        }
+    }
+    
+    @Override
+    public boolean supports(DomainEventType type) {
+        return type == DomainEventType.LOAN_CREATED || type == DomainEventType.LOAN_RETURNED
+                || type == DomainEventType.LOAN_OVERDUE;
+    }
+    
+    @Override
+    public void handle(DomainEvent event) {
+        if (recentEventIds.asMap().putIfAbsent(event.id(), Boolean.TRUE) != null) {
+            return;
+        }
+        LoanEventPayload loan;
+        try {
+            loan = objectMapper.treeToValue(event.payload(), LoanEventPayload.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable loan payload in event " + event.id(), e);
+        }
+        
+        checkpointLock.readLock().lock();
+        try {
+            switch (event.type()) {
+                case LOAN_CREATED -> loanCreated(loan);
+                case LOAN_RETURNED -> loanReturned(loan);
+                case LOAN_OVERDUE -> loanOverdue(loan, event.occurredAt().toLocalDate());
+                default -> {
+                }
+            }
+            appliedSinceCheckpoint.add(event.id());
+            dirty.set(true);
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+    
+    private void loanCreated(LoanEventPayload loan) {
+        MonthlyCounts month = months.computeIfAbsent(YearMonth.from(loan.loanDate()), key -> new MonthlyCounts(topKCapacity));
+        month.bookLoaned(loan.bookId());
+        if (loan.categoryId() != null) {
+            counter(month.byCategory, loan.categoryId()).incrementAndGet();
+            counter(activeByCategory, loan.categoryId()).incrementAndGet();
+        }
+        users.computeIfAbsent(loan.userId(), key -> new UserCounts()).loans.incrementAndGet();
+        countsOf(loan.loanDate()).checkouts.incrementAndGet();
+    }
+    
+    private void loanReturned(LoanEventPayload loan) {
+        if (loan.categoryId() != null) {
+            counter(activeByCategory, loan.categoryId()).decrementAndGet();
+        }
+        countsOf(loan.returnDate() != null ? loan.returnDate() : LocalDate.now()).returns.incrementAndGet();
+    }
+    
+    private void loanOverdue(LoanEventPayload loan, LocalDate date) {
+        long overdue = users.computeIfAbsent(loan.userId(), key -> new UserCounts()).overdue.incrementAndGet();
+        mostOverdueUsers.offer(loan.userId(), overdue);
+        countsOf(date).overdue.incrementAndGet();
+    }
+    
+    private DailyCounts countsOf(LocalDate date) {
+        return days.computeIfAbsent(date, key -> new DailyCounts());
+    }
+    
+    private static AtomicLong counter(Map<Long, AtomicLong> counters, Long key) {
+        return counters.computeIfAbsent(key, k -> new AtomicLong());
+    }
+    
+    /**
+     * The most borrowed books of the month, most loans first.
+     */
+    public List<TopK.Entry> mostBorrowedBooks(YearMonth month, int k) {
+        MonthlyCounts counts = months.get(month);
+        return counts != null ? counts.topBooks.top(k) : List.of();
+    }
+    
+    public Map<Long, Long> activeLoansByCategory() {
+        Map<Long, Long> active = new HashMap<>();
+        activeByCategory.forEach((categoryId, count) -> active.put(categoryId, count.get()));
+        return active;
+    }
+    
+    /**
+     * The users with the most loans marked overdue, worst first.
+     */
+    public List<TopK.Entry> mostOverdueUsers(int k) {
+        return mostOverdueUsers.top(k);
+    }
+    
+    public long loansOf(long userId) {
+        UserCounts counts = users.get(userId);
+        return counts != null ? counts.loans.get() : 0;
+    }
+    
+    public long overdueOf(long userId) {
+        UserCounts counts = users.get(userId);
+        return counts != null ? counts.overdue.get() : 0;
+    }
+    
+    public Day day(LocalDate date) {
+        DailyCounts counts = days.get(date);
+        return counts != null
+                ? new Day(counts.checkouts.get(), counts.returns.get(), counts.overdue.get())
+                : new Day(0, 0, 0);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.stats.checkpoint-interval-ms:60000}")
+    public void checkpoint() {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        List<StatRow> rows;
+        List<Long> eventIds = new ArrayList<>();
+        checkpointLock.writeLock().lock();
+        try {
+            prune();
+            rows = snapshot();
+            Long eventId;
+            while ((eventId = appliedSinceCheckpoint.poll()) != null) {
+                eventIds.add(eventId);
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+        try {
+            store.save(rows, eventIds);
+            log.debug("Checkpointed {} circulation counters and {} events", rows.size(), eventIds.size());
+        } catch (RuntimeException e) {
+            appliedSinceCheckpoint.addAll(eventIds);
+            dirty.set(true);
+            log.error("Circulation statistics checkpoint failed: {}", e.getMessage());
+        }
+    }
+    
+    private void prune() {
+        YearMonth oldestMonth = YearMonth.now().minusMonths(1);
+        months.keySet().removeIf(month -> month.isBefore(oldestMonth));
+        LocalDate oldestDay = LocalDate.now().minusDays(daysKept);
+        days.keySet().removeIf(day -> day.isBefore(oldestDay));
+    }
+    
+    private List<StatRow> snapshot() {
+        List<StatRow> rows = new ArrayList<>();
+        months.forEach((month, counts) -> {
+            String period = month.toString();
+            counts.byBook.forEach((bookId, count) -> rows.add(new StatRow(BOOK_LOANS, period, bookId, count.get())));
+            counts.byCategory.forEach((categoryId, count) -> rows.add(new StatRow(CATEGORY_LOANS, period, categoryId, count.get())));
+        });
+        activeByCategory.forEach((categoryId, count) -> rows.add(new StatRow(CATEGORY_ACTIVE, "", categoryId, count.get())));
+        users.forEach((userId, counts) -> {
+            rows.add(new StatRow(USER_LOANS, "", userId, counts.loans.get()));
+            rows.add(new StatRow(USER_OVERDUE, "", userId, counts.overdue.get()));
+        });
+        days.forEach((date, counts) -> {
+            String period = date.toString();
+            rows.add(new StatRow(DAY_CHECKOUTS, period, 0, counts.checkouts.get()));
+            rows.add(new StatRow(DAY_RETURNS, period, 0, counts.returns.get()));
+            rows.add(new StatRow(DAY_OVERDUE, period, 0, counts.overdue.get()));
+        });
+        return rows;
+    }
+    
+    private void load(List<StatRow> rows) {
+        for (StatRow row : rows) {
+            long value = row.value();
+            switch (row.metric()) {
+                case BOOK_LOANS -> {
+                    MonthlyCounts month = months.computeIfAbsent(YearMonth.parse(row.period()), key -> new MonthlyCounts(topKCapacity));
+                    counter(month.byBook, row.dimensionId()).set(value);
+                    month.topBooks.offer(row.dimensionId(), value);
+                }
+                case CATEGORY_LOANS -> counter(months.computeIfAbsent(YearMonth.parse(row.period()),
+                        key -> new MonthlyCounts(topKCapacity)).byCategory, row.dimensionId()).set(value);
+                case CATEGORY_ACTIVE -> counter(activeByCategory, row.dimensionId()).set(value);
+                case USER_LOANS -> users.computeIfAbsent(row.dimensionId(), key -> new UserCounts()).loans.set(value);
+                case USER_OVERDUE -> {
+                    users.computeIfAbsent(row.dimensionId(), key -> new UserCounts()).overdue.set(value);
+                    mostOverdueUsers.offer(row.dimensionId(), value);
+                }
+                case DAY_CHECKOUTS -> countsOf(LocalDate.parse(row.period())).checkouts.set(value);
+                case DAY_RETURNS -> countsOf(LocalDate.parse(row.period())).returns.set(value);
+                case DAY_OVERDUE -> countsOf(LocalDate.parse(row.period())).overdue.set(value);
+                default -> log.warn("Ignoring unknown circulation metric {}", row.metric());
+            }
+        }
+    }
+    
+    public record Day(long checkouts, long returns, long overdue) {
+    }
+    
+    private static final class MonthlyCounts {
+        
+        private final Map<Long, AtomicLong> byBook = new ConcurrentHashMap<>();
+        private final Map<Long, AtomicLong> byCategory = new ConcurrentHashMap<>();
+        private final TopK topBooks;
+        
+        MonthlyCounts(int topKCapacity) {
+            this.topBooks = new TopK(topKCapacity);
+        }
+        
+        void bookLoaned(long bookId) {
+            topBooks.offer(bookId, counter(byBook, bookId).incrementAndGet());
+        }
+    }
+    
+    private static final class UserCounts {
+        
+        private final AtomicLong loans = new AtomicLong();
+        private final AtomicLong overdue = new AtomicLong();
+    }
+    
+    private static final class DailyCounts {
+        
+        private final AtomicLong checkouts = new AtomicLong();
+        private final AtomicLong returns = new AtomicLong();
+        private final AtomicLong overdue = new AtomicLong();
+    }
+}
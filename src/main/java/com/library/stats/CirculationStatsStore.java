@@ -0,0 +1,197 @@
+package com.library.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.OutboxEvent;
+import com.library.events.DomainEvent;
+import com.library.repository.LoanArchiveShards;
+import com.library.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Persistence for {@link CirculationStats}: checkpoints of its counters together
+ * with the ids of the events they include, replay of the delivered loan events the
+ * checkpoint does not include, and the one-off backfill from the loans table when
+ * there is no checkpoint yet.
+ */
+@Component
+@RequiredArgsConstructor
+class CirculationStatsStore {
+    
+    private static final String LOAN_EVENT_TYPES = "('LOAN_CREATED', 'LOAN_RETURNED', 'LOAN_OVERDUE')";
+    private static final int REPLAY_PAGE_SIZE = 1000;
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxEventRepository outboxEventRepository;
+    private final LoanArchiveShards loanArchiveShards;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * Returns whether a checkpoint has been written yet.
+     */
+    boolean hasCheckpoint() {
+        return !jdbcTemplate.queryForList("SELECT id FROM circulation_stats_checkpoint WHERE id = 1", Integer.class).isEmpty();
+    }
+    
+    List<StatRow> loadRows() {
+        return jdbcTemplate.query("SELECT metric, period, dimension_id, stat_value FROM circulation_stats",
+                (rs, rowNum) -> new StatRow(rs.getString(1), rs.getString(2), rs.getLong(3), rs.getLong(4)));
+    }
+    
+    /**
+     * Replaces the counters and adds the ids of the events applied since the previous
+     * checkpoint. Ids of events purged from the outbox are dropped, since those events
+     * can no longer be replayed.
+     */
+    void save(List<StatRow> rows, List<Long> appliedEventIds) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM circulation_stats");
+            jdbcTemplate.batchUpdate("INSERT INTO circulation_stats (metric, period, dimension_id, stat_value) VALUES (?, ?, ?, ?)",
+                    rows, 500, (ps, row) -> {
+                        ps.setString(1, row.metric());
+                        ps.setString(2, row.period());
+                        ps.setLong(3, row.dimensionId());
+                        ps.setLong(4, row.value());
+                    });
+            jdbcTemplate.batchUpdate("INSERT INTO circulation_stats_events (event_id) VALUES (?)",
+                    appliedEventIds, 500, (ps, eventId) -> ps.setLong(1, eventId));
+            jdbcTemplate.update("DELETE FROM circulation_stats_events a " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM outbox_events e WHERE e.id = a.event_id)");
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            if (jdbcTemplate.update("UPDATE circulation_stats_checkpoint SET checkpointed_at = ? WHERE id = 1", now) == 0) {
+                jdbcTemplate.update("INSERT INTO circulation_stats_checkpoint (id, checkpointed_at) VALUES (1, ?)", now);
+            }
+        });
+    }
+    
+    /**
+     * Feeds the delivered loan events that are not in the checkpoint to the handler,
+     * in id order, and returns how many there were. Relies on delivered events being
+     * kept longer than the checkpoint interval ({@code app.events.retention-hours}).
+     */
+    int replay(Consumer<DomainEvent> handler) {
+        int replayed = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> ids = jdbcTemplate.queryForList("SELECT e.id FROM outbox_events e " +
+                    "WHERE e.status = 'PROCESSED' AND e.type IN " + LOAN_EVENT_TYPES + " AND e.id > ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM circulation_stats_events a WHERE a.event_id = e.id) " +
+                    "ORDER BY e.id LIMIT ?", Long.class, afterId, REPLAY_PAGE_SIZE);
+            List<OutboxEvent> page = new ArrayList<>(outboxEventRepository.findAllById(ids));
+            page.sort(Comparator.comparing(OutboxEvent::getId));
+            for (OutboxEvent event : page) {
+                handler.accept(DomainEvent.from(event, objectMapper));
+            }
+            replayed += page.size();
+            if (ids.size() < REPLAY_PAGE_SIZE) {
+                return replayed;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+    }
+    
+    /**
+     * Returns the ids of the events in the checkpoint that are still waiting to be
+     * acknowledged, and so will be delivered again.
+     */
+    List<Long> appliedPendingEventIds() {
+        return jdbcTemplate.queryForList("SELECT a.event_id FROM circulation_stats_events a " +
+                "JOIN outbox_events e ON e.id = a.event_id WHERE e.status = 'PENDING'", Long.class);
+    }
+    
+    List<Long> loanEventIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM outbox_events WHERE type IN " + LOAN_EVENT_TYPES, Long.class);
+    }
+    
+    /**
+     * Computes the counters from the loans table and every loan archive store. This
+     * scans every loan, so it only runs once, when statistics are first enabled on
+     * an existing database. The stores need not share a database, so each source is
+     * aggregated on its own and the results are added up.
+     */
+    List<StatRow> backfill(YearMonth fromMonth, LocalDate fromDay) {
+        Map<StatKey, Long> counts = new LinkedHashMap<>();
+        // Loans of deleted books are left out, as the book's category is unknown
+        Map<Long, Long> bookCategories = new HashMap<>();
+        jdbcTemplate.query("SELECT id, category_id FROM books", rs -> {
+            long categoryId = rs.getLong(2);
+            bookCategories.put(rs.getLong(1), rs.wasNull() ? null : categoryId);
+        });
+        
+        for (LoanSource source : loanSources()) {
+            source.jdbcTemplate().query("SELECT book_id, EXTRACT(YEAR FROM loan_date), EXTRACT(MONTH FROM loan_date), COUNT(*) " +
+                            "FROM " + source.table() + " WHERE loan_date >= ? " +
+                            "GROUP BY book_id, EXTRACT(YEAR FROM loan_date), EXTRACT(MONTH FROM loan_date)",
+                    rs -> {
+                        long bookId = rs.getLong(1);
+                        if (!bookCategories.containsKey(bookId)) {
+                            return;
+                        }
+                        String period = YearMonth.of(rs.getInt(2), rs.getInt(3)).toString();
+                        add(counts, CirculationStats.BOOK_LOANS, period, bookId, rs.getLong(4));
+                        Long categoryId = bookCategories.get(bookId);
+                        if (categoryId != null) {
+                            add(counts, CirculationStats.CATEGORY_LOANS, period, categoryId, rs.getLong(4));
+                        }
+                    }, Date.valueOf(fromMonth.atDay(1)));
+            source.jdbcTemplate().query("SELECT user_id, COUNT(*), SUM(CASE WHEN status = 'OVERDUE' THEN 1 ELSE 0 END) " +
+                            "FROM " + source.table() + " GROUP BY user_id",
+                    rs -> {
+                        add(counts, CirculationStats.USER_LOANS, "", rs.getLong(1), rs.getLong(2));
+                        add(counts, CirculationStats.USER_OVERDUE, "", rs.getLong(1), rs.getLong(3));
+                    });
+            source.jdbcTemplate().query("SELECT loan_date, COUNT(*) FROM " + source.table() + " WHERE loan_date >= ? GROUP BY loan_date",
+                    rs -> {
+                        add(counts, CirculationStats.DAY_CHECKOUTS, rs.getDate(1).toLocalDate().toString(), 0, rs.getLong(2));
+                    }, Date.valueOf(fromDay));
+            source.jdbcTemplate().query("SELECT return_date, COUNT(*) FROM " + source.table() + " WHERE return_date >= ? GROUP BY return_date",
+                    rs -> {
+                        add(counts, CirculationStats.DAY_RETURNS, rs.getDate(1).toLocalDate().toString(), 0, rs.getLong(2));
+                    }, Date.valueOf(fromDay));
+        }
+        
+        // Archived loans are all returned, so open loans are only in the loans table
+        jdbcTemplate.query("SELECT b.category_id, COUNT(*) FROM loans l JOIN books b ON b.id = l.book_id " +
+                        "WHERE l.status IN ('ACTIVE', 'OVERDUE') AND b.category_id IS NOT NULL GROUP BY b.category_id",
+                rs -> {
+                    add(counts, CirculationStats.CATEGORY_ACTIVE, "", rs.getLong(1), rs.getLong(2));
+                });
+        
+        List<StatRow> rows = new ArrayList<>(counts.size());
+        counts.forEach((key, value) -> rows.add(new StatRow(key.metric(), key.period(), key.dimensionId(), value)));
+        return rows;
+    }
+    
+    private List<LoanSource> loanSources() {
+        List<LoanSource> sources = new ArrayList<>();
+        sources.add(new LoanSource(jdbcTemplate, "loans"));
+        loanArchiveShards.all().forEach(shard -> sources.add(new LoanSource(shard.getJdbcTemplate(), "loan_archive")));
+        return sources;
+    }
+    
+    private static void add(Map<StatKey, Long> counts, String metric, String period, long dimensionId, long value) {
+        counts.merge(new StatKey(metric, period, dimensionId), value, Long::sum);
+    }
+    
+    private record LoanSource(JdbcTemplate jdbcTemplate, String table) {
+    }
+    
+    private record StatKey(String metric, String period, long dimensionId) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.library.stats;
+
+/**
+ * One counter in the {@code circulation_stats} checkpoint table. {@code period} is
+ * empty for all-time counters, and {@code dimensionId} is 0 for counters that are
+ * not kept per book, category or user.
+ */
+record StatRow(String metric, String period, long dimensionId, long value) {
+}
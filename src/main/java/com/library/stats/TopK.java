@@ -0,0 +1,68 @@
+package com.library.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code capacity} keys with the highest counts, maintained as counts grow.
+ * Counts must only increase, which lets an update be decided against the smallest
+ * member alone: most updates are rejected by a lock-free check of that threshold,
+ * and reading the top k costs O(k).
+ */
+public final class TopK {
+    
+    private static final Comparator<Entry> BY_COUNT_DESC =
+            Comparator.comparingLong(Entry::count).reversed().thenComparingLong(Entry::key);
+    
+    private final int capacity;
+    private final Map<Long, Long> members = new ConcurrentHashMap<>();
+    private final TreeSet<Entry> ranking = new TreeSet<>(BY_COUNT_DESC);
+    private volatile long threshold;
+    
+    TopK(int capacity) {
+        this.capacity = capacity;
+    }
+    
+    void offer(long key, long count) {
+        if (count <= threshold && !members.containsKey(key)) {
+            return;
+        }
+        synchronized (this) {
+            Long previous = members.get(key);
+            if (previous != null) {
+                if (previous >= count) {
+                    return;
+                }
+                ranking.remove(new Entry(key, previous));
+            } else if (members.size() >= capacity) {
+                Entry last = ranking.last();
+                if (count <= last.count()) {
+                    return;
+                }
+                ranking.pollLast();
+                members.remove(last.key());
+            }
+            ranking.add(new Entry(key, count));
+            members.put(key, count);
+            threshold = members.size() >= capacity ? ranking.last().count() : 0;
+        }
+    }
+    
+    synchronized List<Entry> top(int k) {
+        List<Entry> top = new ArrayList<>(Math.min(k, ranking.size()));
+        for (Entry entry : ranking) {
+            if (top.size() == k) {
+                break;
+            }
+            top.add(entry);
+        }
+        return top;
+    }
+    
+    public record Entry(long key, long count) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.library.web;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.entity.Book;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serialized JSON of recently written books, keyed by the book's id, update time,
+ * available copies and category so that any change to the row misses. Available
+ * copies are part of the key because loans change them with bulk updates that
+ * leave the update time alone.
+ */
+@Component
+public class BookJsonCache {
+    
+    private final Cache<Key, SerializableString> cache;
+    
+    public BookJsonCache(MeterRegistry meterRegistry,
+                         @Value("${app.serialization.book-cache-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "bookJson");
+    }
+    
+    SerializableString get(Book book) {
+        return cache.getIfPresent(Key.of(book));
+    }
+    
+    SerializableString put(Book book, String json) {
+        SerializableString serialized = new SerializedString(json);
+        cache.put(Key.of(book), serialized);
+        return serialized;
+    }
+    
+    // Entries for older versions of a book are never hit again and age out by size
+    private record Key(Long id, LocalDateTime updatedAt, Integer availableCopies, Long categoryId) {
+        
+        static Key of(Book book) {
+            return new Key(book.getId(), book.getUpdatedAt(), book.getAvailableCopies(),
+                    book.getCategory() != null ? book.getCategory().getId() : null);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.library.web;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ContextualSerializer;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.library.entity.Book;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * Writes books from {@link BookJsonCache} when the cached JSON is still current,
+ * so unchanged books are copied out as raw bytes instead of being serialized
+ * again. Filtered, pretty-printed and binary output always goes through the
+ * regular bean serializer.
+ */
+@Component
+public class BookJsonModule extends SimpleModule {
+    
+    public BookJsonModule(BookJsonCache bookJsonCache) {
+        super("BookJsonModule");
+        setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                                                      JsonSerializer<?> serializer) {
+                return beanDesc.getBeanClass() == Book.class
+                        ? new CachedBookSerializer(bookJsonCache, serializer)
+                        : serializer;
+            }
+        });
+    }
+    
+    private static final class CachedBookSerializer extends StdSerializer<Book>
+            implements ContextualSerializer, ResolvableSerializer {
+        
+        private static final JsonFactory JSON = new JsonFactory();
+        
+        private final BookJsonCache cache;
+        private final JsonSerializer<Object> delegate;
+        
+        @SuppressWarnings("unchecked")
+        CachedBookSerializer(BookJsonCache cache, JsonSerializer<?> delegate) {
+            super(Book.class);
+            this.cache = cache;
+            this.delegate = (JsonSerializer<Object>) delegate;
+        }
+        
+        @Override
+        public void serialize(Book book, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (book.getId() == null || gen.canWriteBinaryNatively() || gen.getPrettyPrinter() != null
+                    || provider.getFilterProvider() != SparseFields.ALL) {
+                delegate.serialize(book, gen, provider);
+                return;
+            }
+            SerializableString json = cache.get(book);
+            if (json == null) {
+                StringWriter out = new StringWriter(512);
+                try (JsonGenerator buffer = JSON.createGenerator(out)) {
+                    delegate.serialize(book, buffer, provider);
+                }
+                json = cache.put(book, out.toString());
+            }
+            gen.writeRawValue(json);
+        }
+        
+        @Override
+        public JsonSerializer<?> createContextual(SerializerProvider provider, BeanProperty property)
+                throws JsonMappingException {
+            if (delegate instanceof ContextualSerializer contextual) {
+                JsonSerializer<?> resolved = contextual.createContextual(provider, property);
+                return resolved == delegate ? this : new CachedBookSerializer(cache, resolved);
+            }
+            return this;
+        }
+        
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (delegate instanceof ResolvableSerializer resolvable) {
+                resolvable.resolve(provider);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.dto.response.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the number of API requests in flight so they never outnumber the database
+ * connections left over for them. With virtual threads there is no worker pool
+ * left to do this, and excess requests would otherwise pile up inside Hikari until
+ * they time out. Requests that cannot get a permit within
+ * {@code app.bulkhead.acquire-timeout-ms} are rejected with 503.
+ * <p>
+ * The pool is shared with scheduled jobs and background workers, so requests get
+ * the pool size minus {@code app.bulkhead.background-connections}. A request that
+ * goes async, such as a streaming export, keeps its permit until the async
+ * processing completes rather than until the request thread returns.
+ * <p>
+ * Runs ahead of Spring Security, whose JWT filter may already need a connection.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER - 1)
+@ConditionalOnProperty(name = "app.bulkhead.enabled", havingValue = "true")
+public class BulkheadFilter extends OncePerRequestFilter {
+    
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final ObjectMapper objectMapper;
+    private final Counter rejected;
+    
+    public BulkheadFilter(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                          @Value("${app.bulkhead.background-connections}") int backgroundConnections,
+                          @Value("${app.bulkhead.acquire-timeout-ms:1000}") long acquireTimeoutMs,
+                          ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        int maxConcurrentRequests = poolSize - backgroundConnections;
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalStateException("app.bulkhead.background-connections (" + backgroundConnections
+                    + ") leaves no connections of the " + poolSize + " in the pool for requests");
+        }
+        this.permits = new Semaphore(maxConcurrentRequests, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.objectMapper = objectMapper;
+        this.rejected = Counter.builder("library.bulkhead.rejected")
+                .description("Requests rejected because the bulkhead was full")
+                .register(meterRegistry);
+        Gauge.builder("library.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Free bulkhead permits")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("Server is busy, please retry"));
+            return;
+        }
+        Permit permit = new Permit();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+    
+    int availablePermits() {
+        return permits.availablePermits();
+    }
+    
+    // Released once, whichever of complete, error or timeout comes first
+    private final class Permit implements AsyncListener {
+        
+        private final AtomicBoolean released = new AtomicBoolean();
+        
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+        
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+        
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Async processing restarted on the same request; keep waiting for its completion
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
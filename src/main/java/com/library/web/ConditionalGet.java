@@ -0,0 +1,36 @@
+package com.library.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.Objects;
+
+/**
+ * Conditional GET against a version obtained before the handler loads the resource.
+ * The ETag is the version plus a hash of the query string and {@code Accept}
+ * header, so pages, {@code fields=} selections and JSON and CBOR bodies of the
+ * same resource never share a tag.
+ */
+public final class ConditionalGet {
+    
+    private static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+    
+    private ConditionalGet() {
+    }
+    
+    /**
+     * Sets the ETag and returns {@code true} if the client's copy is current, in
+     * which case the response is a 304 and the handler should return {@code null}.
+     */
+    public static boolean notModified(ServletWebRequest request, String version) {
+        HttpServletRequest servletRequest = request.getRequest();
+        int variant = Objects.hash(servletRequest.getQueryString(), servletRequest.getHeader(HttpHeaders.ACCEPT));
+        if (request.getResponse() != null) {
+            // Revalidate on every use instead of Spring Security's no-store default
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified("\"" + version + "-" + Integer.toHexString(variant) + "\"");
+    }
+}
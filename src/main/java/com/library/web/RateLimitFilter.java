@@ -0,0 +1,211 @@
+package com.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.library.dto.response.ApiResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per caller, and per caller and route for the prefixes listed in
+ * {@code app.web.rate-limit.routes}. The caller is the authenticated user, or the
+ * client address for anonymous requests, so the filter runs after Spring Security
+ * has resolved the JWT. Requests over either limit get 429 with {@code Retry-After}
+ * and take no token from the other bucket, so a caller hammering a limited route
+ * keeps its allowance for the rest of the API.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} updated with compare-and-set (the
+ * generic cell rate algorithm, equivalent to a token bucket), held in a bounded
+ * Caffeine map that drops idle callers.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@ConditionalOnProperty(name = "app.web.rate-limit.enabled", havingValue = "true")
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private final Cache<String, Bucket> buckets;
+    private final Limit callerLimit;
+    private final List<RouteLimit> routeLimits;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    
+    public RateLimitFilter(@Value("${app.web.rate-limit.requests-per-second:50}") double requestsPerSecond,
+                           @Value("${app.web.rate-limit.burst:100}") int burst,
+                           @Value("${app.web.rate-limit.routes:}") String routes,
+                           @Value("${app.web.rate-limit.max-tracked-keys:100000}") long maxTrackedKeys,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry) {
+        this.callerLimit = new Limit(requestsPerSecond, burst);
+        this.routeLimits = parseRoutes(routes);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxTrackedKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+    
+    /**
+     * Parses {@code /api/books/search:20,/api/export:1} into limits of that many
+     * requests per second with a burst of one second's worth, longest prefix first.
+     */
+    private static List<RouteLimit> parseRoutes(String routes) {
+        List<RouteLimit> limits = new ArrayList<>();
+        for (String route : StringUtils.commaDelimitedListToStringArray(routes)) {
+            int separator = route.lastIndexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected <path-prefix>:<requests-per-second> in app.web.rate-limit.routes: " + route);
+            }
+            double rate = Double.parseDouble(route.substring(separator + 1).trim());
+            limits.add(new RouteLimit(route.substring(0, separator).trim(), new Limit(rate, (int) Math.max(1, Math.ceil(rate)))));
+        }
+        limits.sort(Comparator.comparingInt((RouteLimit limit) -> limit.prefix().length()).reversed());
+        return limits;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String caller = caller(request);
+        long now = System.nanoTime();
+        
+        Bucket callerBucket = bucket(caller, callerLimit);
+        RouteLimit route = routeFor(request.getRequestURI());
+        Bucket routeBucket = route != null ? bucket(caller + " " + route.prefix(), route.limit()) : null;
+        
+        // Check both buckets before taking from either
+        long waitNanos = callerBucket.waitNanos(now);
+        String rejectedBy = "caller";
+        if (waitNanos == 0 && routeBucket != null) {
+            waitNanos = routeBucket.waitNanos(now);
+            rejectedBy = route.prefix();
+        }
+        if (waitNanos == 0) {
+            waitNanos = callerBucket.tryAcquire(now);
+            rejectedBy = "caller";
+            if (waitNanos == 0 && routeBucket != null) {
+                waitNanos = routeBucket.tryAcquire(now);
+                rejectedBy = route.prefix();
+                if (waitNanos > 0) {
+                    // A concurrent request took the route's last token since the check
+                    callerBucket.release();
+                }
+            }
+        }
+        if (waitNanos > 0) {
+            meterRegistry.counter("library.web.rate-limit.rejected", "limit", rejectedBy).increment();
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), ApiResponse.error("Too many requests, please retry later"));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    private Bucket bucket(String key, Limit limit) {
+        return buckets.get(key, k -> new Bucket(limit));
+    }
+    
+    private RouteLimit routeFor(String uri) {
+        for (RouteLimit route : routeLimits) {
+            if (uri.startsWith(route.prefix())) {
+                return route;
+            }
+        }
+        return null;
+    }
+    
+    private static String caller(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+    
+    private record Limit(double requestsPerSecond, int burst) {
+        
+        long intervalNanos() {
+            return (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        }
+    }
+    
+    private record RouteLimit(String prefix, Limit limit) {
+    }
+    
+    static final class Bucket {
+        
+        // Theoretical arrival time: when the bucket will be full again at the current rate
+        private final AtomicLong tat = new AtomicLong(Long.MIN_VALUE);
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        
+        Bucket(Limit limit) {
+            this.intervalNanos = limit.intervalNanos();
+            this.toleranceNanos = intervalNanos * limit.burst();
+        }
+        
+        /**
+         * Returns 0 if a token is available, or how long until one is, without taking it.
+         */
+        long waitNanos(long now) {
+            long excess = Math.max(tat.get(), now) + intervalNanos - now - toleranceNanos;
+            return Math.max(0, excess);
+        }
+        
+        /**
+         * Takes a token and returns 0, or returns how long until one is available.
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long excess = next - now - toleranceNanos;
+                if (excess > 0) {
+                    return excess;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+        
+        /**
+         * Gives back a token taken by {@link #tryAcquire(long)}.
+         */
+        void release() {
+            tat.addAndGet(-intervalNanos);
+        }
+    }
+}
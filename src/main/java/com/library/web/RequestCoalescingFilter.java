@@ -0,0 +1,193 @@
+package com.library.web;
+
+import com.library.datasource.ReadYourWrites;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Single-flight for identical concurrent GETs under {@code app.web.coalescing.paths}:
+ * the first request runs normally and the ones that arrive while it is in flight
+ * wait for its response and replay it, so N simultaneous identical reads cost one
+ * query.
+ * <p>
+ * Requests are identical when they share the URI, query string, {@code Accept}
+ * header and the caller's roles; the roles are part of the key because method
+ * security is checked inside the controller. Only list paths whose responses do
+ * not depend on the caller beyond that. A waiter whose leader fails or takes longer
+ * than {@code app.web.coalescing.wait-timeout-ms} runs the request itself. Callers
+ * who have just written are never coalesced, since a leader that started before
+ * their write could hand them a response without it.
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 2)
+@ConditionalOnProperty(name = "app.web.coalescing.enabled", havingValue = "true")
+public class RequestCoalescingFilter extends OncePerRequestFilter {
+    
+    private final String[] paths;
+    private final long waitTimeoutMs;
+    private final ReadYourWrites readYourWrites;
+    private final Map<String, CompletableFuture<CapturedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaders;
+    private final Counter followers;
+    private final Counter fallbacks;
+    
+    public RequestCoalescingFilter(@Value("${app.web.coalescing.paths:/api/books}") String paths,
+                                   @Value("${app.web.coalescing.wait-timeout-ms:5000}") long waitTimeoutMs,
+                                   ReadYourWrites readYourWrites,
+                                   MeterRegistry meterRegistry) {
+        this.paths = StringUtils.commaDelimitedListToStringArray(paths.replace(" ", ""));
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.readYourWrites = readYourWrites;
+        this.leaders = requests(meterRegistry, "leader", "Requests that ran and shared their response");
+        this.followers = requests(meterRegistry, "follower", "Requests answered with a concurrent identical request's response");
+        this.fallbacks = requests(meterRegistry, "fallback", "Requests that waited for a leader that failed or timed out");
+    }
+    
+    private static Counter requests(MeterRegistry meterRegistry, String role, String description) {
+        return Counter.builder("library.web.coalescing.requests")
+                .tag("role", role)
+                .description(description)
+                .register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return true;
+        }
+        // Conditional GETs are answered without a query, and a 304 must not be replayed to other callers
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            return true;
+        }
+        if (readYourWrites.isRecentWriter()) {
+            return true;
+        }
+        String uri = request.getRequestURI();
+        for (String path : paths) {
+            if (uri.startsWith(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = key(request);
+        CompletableFuture<CapturedResponse> flight = new CompletableFuture<>();
+        CompletableFuture<CapturedResponse> leader = inFlight.putIfAbsent(key, flight);
+        if (leader == null) {
+            lead(key, flight, request, response, filterChain);
+            return;
+        }
+        
+        CapturedResponse captured = null;
+        try {
+            captured = leader.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Fall through and run the request ourselves
+        }
+        if (captured == null) {
+            fallbacks.increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+        followers.increment();
+        captured.writeTo(response);
+    }
+    
+    private void lead(String key, CompletableFuture<CapturedResponse> flight, HttpServletRequest request,
+                      HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        leaders.increment();
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, wrapper);
+            if (request.isAsyncStarted()) {
+                // Asynchronous responses are still being written; let waiters run on their own
+                flight.completeExceptionally(new IllegalStateException("Asynchronous response"));
+            } else {
+                flight.complete(CapturedResponse.of(wrapper));
+            }
+        } catch (IOException | ServletException | RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+            if (!request.isAsyncStarted()) {
+                wrapper.copyBodyToResponse();
+            }
+        }
+    }
+    
+    private static String key(HttpServletRequest request) {
+        StringBuilder key = new StringBuilder(request.getRequestURI());
+        if (request.getQueryString() != null) {
+            key.append('?').append(request.getQueryString());
+        }
+        key.append(' ').append(request.getHeader(HttpHeaders.ACCEPT));
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null) {
+            TreeSet<String> roles = new TreeSet<>();
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                roles.add(authority.getAuthority());
+            }
+            key.append(' ').append(roles);
+        }
+        return key.toString();
+    }
+    
+    private record CapturedResponse(int status, String contentType, List<String[]> headers, byte[] body) {
+        
+        static CapturedResponse of(ContentCachingResponseWrapper wrapper) {
+            List<String[]> headers = new ArrayList<>();
+            for (String name : wrapper.getHeaderNames()) {
+                if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name) && !HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+                    headers.add(new String[]{name, String.join(",", wrapper.getHeaders(name))});
+                }
+            }
+            return new CapturedResponse(wrapper.getStatus(), wrapper.getContentType(), headers, wrapper.getContentAsByteArray());
+        }
+        
+        void writeTo(HttpServletResponse response) throws IOException {
+            response.setStatus(status);
+            for (String[] header : headers) {
+                response.setHeader(header[0], header[1]);
+            }
+            if (contentType != null) {
+                response.setContentType(contentType);
+            }
+            response.setContentLength(body.length);
+            response.getOutputStream().write(body);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.library.web;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Jackson filter behind the {@code fields} request parameter. Types annotated with
+ * {@code @JsonFilter(SparseFields.FILTER)} serialize every property unless the
+ * request names the ones it wants; {@code id} is always kept.
+ */
+public final class SparseFields {
+    
+    public static final String FILTER = "fields";
+    public static final String PARAMETER = "fields";
+    
+    /**
+     * The application-wide provider, which writes every property.
+     */
+    public static final FilterProvider ALL = new SimpleFilterProvider()
+            .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+    
+    private SparseFields() {
+    }
+    
+    static FilterProvider only(Set<String> fields) {
+        Set<String> kept = new LinkedHashSet<>(fields);
+        kept.add("id");
+        return new SimpleFilterProvider()
+                .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll())
+                .addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(kept));
+    }
+}
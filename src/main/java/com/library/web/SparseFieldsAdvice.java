@@ -0,0 +1,41 @@
+package com.library.web;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies {@code ?fields=title,author} to the response body, trimming every
+ * filterable object in it to the named properties.
+ */
+@RestControllerAdvice
+public class SparseFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+    
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType,
+                                           MethodParameter returnType, ServerHttpRequest request,
+                                           ServerHttpResponse response) {
+        if (!(request instanceof ServletServerHttpRequest servletRequest)) {
+            return;
+        }
+        String fields = servletRequest.getServletRequest().getParameter(SparseFields.PARAMETER);
+        if (!StringUtils.hasText(fields)) {
+            return;
+        }
+        Set<String> names = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toSet());
+        bodyContainer.setFilters(SparseFields.only(names));
+    }
+}
@@ -0,0 +1,19 @@
+-- Schema of an additional loan archive store, the same as loan_archive in the
+-- application's database (V6 there)
+
+CREATE TABLE loan_archive (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    book_title VARCHAR(255) NOT NULL,
+    loan_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('ACTIVE', 'RETURNED', 'OVERDUE', 'CANCELLED')),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    archived_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_loan_archive_user_id ON loan_archive (user_id, id);
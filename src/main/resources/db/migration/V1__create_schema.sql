@@ -0,0 +1,66 @@
+-- Initial schema. Hibernate only validates it (ddl-auto=validate), so entity
+-- changes need a new migration.
+
+CREATE TABLE categories (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255) NOT NULL UNIQUE,
+    description TEXT,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    first_name VARCHAR(255) NOT NULL,
+    last_name VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    role VARCHAR(255) NOT NULL CHECK (role IN ('ADMIN', 'LIBRARIAN', 'USER')),
+    active BOOLEAN NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+-- Book ids are handed out by Hibernate in blocks of 50 (allocationSize on Book)
+CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE books (
+    id BIGINT NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    isbn VARCHAR(255) NOT NULL UNIQUE,
+    description TEXT,
+    total_copies INTEGER NOT NULL,
+    available_copies INTEGER NOT NULL,
+    category_id BIGINT,
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_books_category FOREIGN KEY (category_id) REFERENCES categories (id)
+);
+
+CREATE INDEX idx_books_available_copies ON books (available_copies, id);
+CREATE INDEX idx_books_title ON books (title, id);
+CREATE INDEX idx_books_category_id ON books (category_id);
+
+CREATE TABLE loans (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    loan_date DATE NOT NULL,
+    due_date DATE NOT NULL,
+    return_date DATE,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('ACTIVE', 'RETURNED', 'OVERDUE', 'CANCELLED')),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_loans_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_loans_book FOREIGN KEY (book_id) REFERENCES books (id)
+);
+
+CREATE INDEX idx_loans_status_due_date ON loans (status, due_date);
+CREATE INDEX idx_loans_user_status ON loans (user_id, status);
+CREATE INDEX idx_loans_user_book_status ON loans (user_id, book_id, status);
+CREATE INDEX idx_loans_book_id ON loans (book_id);
@@ -0,0 +1,18 @@
+-- Transactional outbox for domain events, drained by OutboxDispatcher
+
+CREATE SEQUENCE outbox_events_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE outbox_events (
+    id BIGINT NOT NULL,
+    type VARCHAR(255) NOT NULL CHECK (type IN ('LOAN_CREATED', 'LOAN_RETURNED', 'LOAN_OVERDUE', 'BOOK_CREATED', 'BOOK_UPDATED', 'BOOK_DELETED')),
+    aggregate_id BIGINT NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('PENDING', 'PROCESSED', 'FAILED')),
+    attempts INTEGER NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP(6) NOT NULL,
+    processed_at TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_outbox_events_status_id ON outbox_events (status, id);
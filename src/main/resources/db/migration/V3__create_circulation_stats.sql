@@ -0,0 +1,16 @@
+-- Checkpoints of the counters maintained by CirculationStats
+
+CREATE TABLE circulation_stats (
+    metric VARCHAR(32) NOT NULL,
+    period VARCHAR(10) NOT NULL,
+    dimension_id BIGINT NOT NULL,
+    stat_value BIGINT NOT NULL,
+    PRIMARY KEY (metric, period, dimension_id)
+);
+
+CREATE TABLE circulation_stats_checkpoint (
+    id INTEGER NOT NULL,
+    last_event_id BIGINT NOT NULL,
+    checkpointed_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
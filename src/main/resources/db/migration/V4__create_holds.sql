@@ -0,0 +1,19 @@
+-- Hold queues for titles with no copies available
+
+CREATE TABLE holds (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    user_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    status VARCHAR(255) NOT NULL CHECK (status IN ('WAITING', 'READY', 'FULFILLED', 'CANCELLED', 'EXPIRED')),
+    ready_at TIMESTAMP(6),
+    expires_at TIMESTAMP(6),
+    created_at TIMESTAMP(6) NOT NULL,
+    updated_at TIMESTAMP(6),
+    PRIMARY KEY (id),
+    CONSTRAINT fk_holds_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_holds_book FOREIGN KEY (book_id) REFERENCES books (id)
+);
+
+CREATE INDEX idx_holds_book_status_id ON holds (book_id, status, id);
+CREATE INDEX idx_holds_user_book_status ON holds (user_id, book_id, status);
+CREATE INDEX idx_holds_status_expires_at ON holds (status, expires_at);
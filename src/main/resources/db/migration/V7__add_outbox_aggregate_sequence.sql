@@ -0,0 +1,24 @@
+-- Per-aggregate sequence numbers for outbox events. Event ids come from a pooled
+-- sequence and say nothing about commit order; aggregate_sequence does, because
+-- it is taken from outbox_aggregates under a row lock held until commit.
+
+ALTER TABLE outbox_events ADD COLUMN aggregate_key VARCHAR(64);
+ALTER TABLE outbox_events ADD COLUMN aggregate_sequence BIGINT;
+
+UPDATE outbox_events
+SET aggregate_key = CASE WHEN type LIKE 'LOAN_%' THEN 'Loan:' ELSE 'Book:' END || aggregate_id,
+    aggregate_sequence = id;
+
+ALTER TABLE outbox_events ALTER COLUMN aggregate_key SET NOT NULL;
+ALTER TABLE outbox_events ALTER COLUMN aggregate_sequence SET NOT NULL;
+
+CREATE INDEX idx_outbox_events_aggregate ON outbox_events (aggregate_key, aggregate_sequence);
+
+CREATE TABLE outbox_aggregates (
+    aggregate_key VARCHAR(64) NOT NULL,
+    last_sequence BIGINT NOT NULL,
+    PRIMARY KEY (aggregate_key)
+);
+
+INSERT INTO outbox_aggregates (aggregate_key, last_sequence)
+SELECT aggregate_key, MAX(aggregate_sequence) FROM outbox_events GROUP BY aggregate_key;
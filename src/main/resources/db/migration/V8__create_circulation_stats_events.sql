@@ -0,0 +1,14 @@
+-- Loan events already counted in the circulation_stats checkpoint. Event ids are
+-- not delivered in id order, so a single "last event id" cannot tell which of the
+-- delivered events a restart still has to replay.
+
+CREATE TABLE circulation_stats_events (
+    event_id BIGINT NOT NULL,
+    PRIMARY KEY (event_id)
+);
+
+INSERT INTO circulation_stats_events (event_id)
+SELECT e.id FROM outbox_events e, circulation_stats_checkpoint c
+WHERE c.id = 1 AND e.id <= c.last_event_id AND e.type IN ('LOAN_CREATED', 'LOAN_RETURNED', 'LOAN_OVERDUE');
+
+ALTER TABLE circulation_stats_checkpoint DROP COLUMN last_event_id;
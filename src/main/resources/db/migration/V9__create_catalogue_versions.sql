@@ -0,0 +1,12 @@
+-- Change counter of the catalogue listings, split over rows so concurrent writes
+-- rarely update the same one; the version is the sum of all rows
+
+CREATE TABLE catalogue_versions (
+    stripe INT NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (stripe)
+);
+
+INSERT INTO catalogue_versions (stripe, version) VALUES
+    (0, 0), (1, 0), (2, 0), (3, 0), (4, 0), (5, 0), (6, 0), (7, 0),
+    (8, 0), (9, 0), (10, 0), (11, 0), (12, 0), (13, 0), (14, 0), (15, 0);
@@ -13,9 +13,9 @@ INSERT INTO users (email, first_name, last_name, password, role, active, created
 ('user@library.com', 'Jane', 'User', '$2a$10$92IXUNpkjO0rOQ5byMi.Ye4oKoEa3Ro9llC/.og/at2uheWG/igi.', 'USER', true, NOW(), NOW());
 
 -- Insert Books
-INSERT INTO books (title, author, isbn, description, total_copies, available_copies, category_id, created_at, updated_at) VALUES
-('The Great Gatsby', 'F. Scott Fitzgerald', '978-0-7432-7356-5', 'A classic American novel', 5, 5, 1, NOW(), NOW()),
-('To Kill a Mockingbird', 'Harper Lee', '978-0-06-112008-4', 'A gripping tale of racial injustice', 3, 3, 1, NOW(), NOW()),
-('1984', 'George Orwell', '978-0-452-28423-4', 'A dystopian social science fiction novel', 4, 4, 1, NOW(), NOW()),
-('Clean Code', 'Robert C. Martin', '978-0-13-235088-4', 'A handbook of agile software craftsmanship', 2, 2, 3, NOW(), NOW()),
-('The Origin of Species', 'Charles Darwin', '978-0-14-043205-1', 'On the origin of species by means of natural selection', 2, 2, 2, NOW(), NOW());
+INSERT INTO books (id, title, author, isbn, description, total_copies, available_copies, category_id, created_at, updated_at) VALUES
+(NEXT VALUE FOR books_seq, 'The Great Gatsby', 'F. Scott Fitzgerald', '978-0-7432-7356-5', 'A classic American novel', 5, 5, 1, NOW(), NOW()),
+(NEXT VALUE FOR books_seq, 'To Kill a Mockingbird', 'Harper Lee', '978-0-06-112008-4', 'A gripping tale of racial injustice', 3, 3, 1, NOW(), NOW()),
+(NEXT VALUE FOR books_seq, '1984', 'George Orwell', '978-0-452-28423-4', 'A dystopian social science fiction novel', 4, 4, 1, NOW(), NOW()),
+(NEXT VALUE FOR books_seq, 'Clean Code', 'Robert C. Martin', '978-0-13-235088-4', 'A handbook of agile software craftsmanship', 2, 2, 3, NOW(), NOW()),
+(NEXT VALUE FOR books_seq, 'The Origin of Species', 'Charles Darwin', '978-0-14-043205-1', 'On the origin of species by means of natural selection', 2, 2, 2, NOW(), NOW());
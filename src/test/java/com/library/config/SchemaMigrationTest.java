@@ -0,0 +1,47 @@
+package com.library.config;
+
+import com.library.repository.UserRepository;
+import com.library.support.IntegrationTest;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.MigrationState;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The context only starts if Hibernate validates the entities against the schema
+ * the migrations built, so these tests check the migration history itself.
+ */
+@IntegrationTest
+class SchemaMigrationTest {
+    
+    @Autowired
+    private Flyway flyway;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void appliesEveryMigration() throws IOException {
+        Resource[] scripts = new PathMatchingResourcePatternResolver().getResources("classpath:db/migration/V*.sql");
+        
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(flyway.info().applied())
+                .hasSize(scripts.length)
+                .extracting(MigrationInfo::getState)
+                .containsOnly(MigrationState.SUCCESS);
+        assertThat(flyway.info().current().getVersion().getVersion())
+                .isEqualTo(String.valueOf(scripts.length));
+    }
+    
+    @Test
+    void leavesOutTheSeedDataWithoutTheSeedProfile() {
+        assertThat(userRepository.findByEmail("admin@library.com")).isEmpty();
+    }
+}
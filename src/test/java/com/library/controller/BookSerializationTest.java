@@ -0,0 +1,98 @@
+package com.library.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.library.entity.Book;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class BookSerializationTest {
+    
+    private static final String CBOR = "application/cbor";
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private TestData testData;
+    
+    @Test
+    void returnsOnlyTheRequestedFieldsAndTheId() throws Exception {
+        Book book = testData.book("Sparse Fields", 2);
+        
+        mockMvc.perform(get("/api/books/{id}", book.getId()).param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id").value(book.getId()))
+                .andExpect(jsonPath("$.data.title").value("Sparse Fields"))
+                .andExpect(jsonPath("$.data.author").doesNotExist())
+                .andExpect(jsonPath("$.data.availableCopies").doesNotExist())
+                .andExpect(jsonPath("$.success").exists());
+    }
+    
+    @Test
+    void trimsEveryItemOfAListing() throws Exception {
+        testData.book("Sparse Listing", 1);
+        
+        mockMvc.perform(get("/api/books").param("fields", "title,availableCopies").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.content[0].id").exists())
+                .andExpect(jsonPath("$.data.content[0].title").exists())
+                .andExpect(jsonPath("$.data.content[0].availableCopies").exists())
+                .andExpect(jsonPath("$.data.content[0].author").doesNotExist())
+                .andExpect(jsonPath("$.data.content[0].isbn").doesNotExist());
+    }
+    
+    @Test
+    void returnsEveryFieldWithoutTheParameter() throws Exception {
+        Book book = testData.book("All Fields", 2);
+        
+        mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.title").value("All Fields"))
+                .andExpect(jsonPath("$.data.author").value("Test Author"))
+                .andExpect(jsonPath("$.data.isbn").value(book.getIsbn()))
+                .andExpect(jsonPath("$.data.availableCopies").value(2));
+    }
+    
+    @Test
+    void writesCborWhenAskedFor() throws Exception {
+        Book book = testData.book("Binary Book", 4);
+        
+        byte[] body = mockMvc.perform(get("/api/books/{id}", book.getId()).accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        
+        JsonNode data = new CBORMapper().readTree(body).get("data");
+        assertThat(data.get("id").asLong()).isEqualTo(book.getId());
+        assertThat(data.get("title").asText()).isEqualTo("Binary Book");
+        assertThat(data.get("availableCopies").asInt()).isEqualTo(4);
+    }
+    
+    @Test
+    void appliesSparseFieldsToCborToo() throws Exception {
+        Book book = testData.book("Sparse Binary", 1);
+        
+        byte[] body = mockMvc.perform(get("/api/books/{id}", book.getId()).param("fields", "title").accept(CBOR))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        
+        JsonNode data = new CBORMapper().readTree(body).get("data");
+        assertThat(data.size()).isEqualTo(2);
+        assertThat(data.get("title").asText()).isEqualTo("Sparse Binary");
+    }
+}
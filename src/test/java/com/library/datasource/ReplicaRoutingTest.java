@@ -0,0 +1,130 @@
+package com.library.datasource;
+
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.enums.Role;
+import com.library.security.UserPrincipal;
+import com.library.service.BookService;
+import com.library.service.LoanService;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against two separate databases with nothing replicated between them, so a
+ * read shows which one served it: the replica holds a book the primary lacks and
+ * none of the loans written during the test.
+ */
+@IntegrationTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:replicaprimary;LOCK_TIMEOUT=10000",
+        "app.reactive.url=r2dbc:h2:mem:///replicaprimary",
+        "app.events.dispatcher.enabled=false",
+        "app.datasource.replica.enabled=true",
+        "app.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        // Checked by the tests only
+        "app.datasource.replica.heartbeat-interval-ms=3600000"
+})
+class ReplicaRoutingTest {
+    
+    static final String REPLICA_URL = "jdbc:h2:mem:replicacopy;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_ONLY = "Replica Only";
+    
+    private static JdbcTemplate replica;
+    
+    @Autowired
+    private ReplicaLagMonitor replicaLagMonitor;
+    
+    @Autowired
+    private BookService bookService;
+    
+    @Autowired
+    private LoanService loanService;
+    
+    @Autowired
+    private TestData testData;
+    
+    @BeforeAll
+    static void createReplica() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "password");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        replica = new JdbcTemplate(dataSource);
+        replica.update("INSERT INTO books (id, title, author, isbn, total_copies, available_copies, created_at) " +
+                "VALUES (-1, ?, 'Replica', 'REPLICA-1', 1, 1, CURRENT_TIMESTAMP)", REPLICA_ONLY);
+    }
+    
+    @AfterEach
+    void signOut() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        replicaInSync();
+        
+        assertThat(firstBookTitle()).isEqualTo(REPLICA_ONLY);
+    }
+    
+    @Test
+    void readsStayOnThePrimaryWhileTheReplicaLags() {
+        testData.book(1);
+        replica.update("UPDATE replica_heartbeat SET beat_at = DATEADD('MINUTE', -10, CURRENT_TIMESTAMP) WHERE id = 1");
+        replicaLagMonitor.check();
+        
+        assertThat(replicaLagMonitor.isReplicaUsable()).isFalse();
+        assertThat(firstBookTitle()).isNotEqualTo(REPLICA_ONLY);
+    }
+    
+    @Test
+    void patronReadsTheirOwnLoanRightAfterALibrarianChecksItOut() {
+        replicaInSync();
+        User librarian = testData.user(Role.LIBRARIAN);
+        User patron = testData.user();
+        User bystander = testData.user();
+        Book book = testData.book(1);
+        
+        signIn(librarian);
+        loanService.createLoan(patron.getId(), book.getId());
+        assertThat(loansOf(patron)).isEqualTo(1);
+        
+        signIn(patron);
+        assertThat(loansOf(patron)).isEqualTo(1);
+        
+        // Someone who wrote nothing is served by the replica, which never saw the loan
+        signIn(bystander);
+        assertThat(loansOf(patron)).isZero();
+    }
+    
+    private void replicaInSync() {
+        replica.update("UPDATE replica_heartbeat SET beat_at = DATEADD('YEAR', 1, CURRENT_TIMESTAMP) WHERE id = 1");
+        replicaLagMonitor.check();
+        assertThat(replicaLagMonitor.isReplicaUsable()).isTrue();
+    }
+    
+    private String firstBookTitle() {
+        return bookService.getAllBooks(PageRequest.of(0, 1, Sort.by("id"))).getContent().get(0).getTitle();
+    }
+    
+    private long loansOf(User user) {
+        return loanService.getLoansByUser(user.getId(), PageRequest.of(0, 10)).getTotalElements();
+    }
+    
+    private static void signIn(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,41 @@
+package com.library.dto.request;
+
+import com.library.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetCursorTest {
+    
+    @Test
+    void roundTripsAnIdCursor() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.ofId(42).encode());
+        
+        assertThat(cursor.getId()).isEqualTo(42);
+        assertThat(cursor.getSortKey()).isNull();
+    }
+    
+    @Test
+    void roundTripsSortKeysContainingTheSeparator() {
+        KeysetCursor cursor = KeysetCursor.decode(new KeysetCursor("Either|Or: ünïcode", 7).encode());
+        
+        assertThat(cursor.getSortKey()).isEqualTo("Either|Or: ünïcode");
+        assertThat(cursor.getId()).isEqualTo(7);
+    }
+    
+    @Test
+    void startsFromTheBeginningWithoutACursor() {
+        assertThat(KeysetCursor.afterId(null)).isZero();
+        assertThat(KeysetCursor.afterId("")).isZero();
+    }
+    
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor!"))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> KeysetCursor.afterId("YWJj"))
+                .isInstanceOf(BusinessException.class);
+    }
+}
@@ -0,0 +1,131 @@
+package com.library.events;
+
+import com.library.entity.OutboxEvent;
+import com.library.enums.DomainEventType;
+import com.library.enums.OutboxStatus;
+import com.library.repository.OutboxEventRepository;
+import com.library.support.IntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A database of its own with the dispatcher switched off, so only this test drains the outbox
+@IntegrationTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outboxordering;LOCK_TIMEOUT=10000",
+        "app.reactive.url=r2dbc:h2:mem:///outboxordering",
+        "app.events.dispatcher.enabled=false"
+})
+class OutboxDispatcherOrderingTest {
+    
+    private static final AtomicLong AGGREGATE_IDS = new AtomicLong(1_000_000);
+    
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+    
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private RecordingConsumer recordingConsumer;
+    
+    @BeforeEach
+    void drainOutbox() {
+        ReflectionTestUtils.setField(outboxDispatcher, "batchSize", 200);
+        outboxDispatcher.drain();
+        recordingConsumer.events.clear();
+    }
+    
+    @Test
+    void publishNumbersEventsPerAggregate() {
+        long first = AGGREGATE_IDS.incrementAndGet();
+        long second = AGGREGATE_IDS.incrementAndGet();
+        transactionTemplate.executeWithoutResult(status -> {
+            domainEventPublisher.publish(DomainEventType.BOOK_CREATED, first, Map.of());
+            domainEventPublisher.publish(DomainEventType.BOOK_UPDATED, first, Map.of());
+            domainEventPublisher.publish(DomainEventType.BOOK_CREATED, second, Map.of());
+        });
+        transactionTemplate.executeWithoutResult(status ->
+                domainEventPublisher.publish(DomainEventType.BOOK_DELETED, first, Map.of()));
+        
+        assertThat(sequences("Book:" + first)).containsExactly(1L, 2L, 3L);
+        assertThat(sequences("Book:" + second)).containsExactly(1L);
+    }
+    
+    @Test
+    void deliversAnAggregateInSequenceOrderWhenIdsAreNot() {
+        long aggregateId = AGGREGATE_IDS.incrementAndGet();
+        // The later event gets the lower id, as with two instances drawing from pooled id blocks
+        save(aggregateId, DomainEventType.BOOK_DELETED, 2);
+        save(aggregateId, DomainEventType.BOOK_UPDATED, 1);
+        // A batch of one reads only the later event, which must wait for the earlier one
+        ReflectionTestUtils.setField(outboxDispatcher, "batchSize", 1);
+        
+        outboxDispatcher.drain();
+        
+        assertThat(recordingConsumer.events)
+                .filteredOn(event -> event.aggregateId() == aggregateId)
+                .extracting(DomainEvent::sequence)
+                .containsExactly(1L, 2L);
+        assertThat(outboxEventRepository.countByStatus(OutboxStatus.PENDING)).isZero();
+    }
+    
+    private void save(long aggregateId, DomainEventType type, long sequence) {
+        outboxEventRepository.save(OutboxEvent.builder()
+                .type(type)
+                .aggregateId(aggregateId)
+                .aggregateKey(DomainEvent.aggregateKey(type, aggregateId))
+                .aggregateSequence(sequence)
+                .payload("{}")
+                .status(OutboxStatus.PENDING)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+    
+    private List<Long> sequences(String aggregateKey) {
+        return jdbcTemplate.queryForList("SELECT aggregate_sequence FROM outbox_events WHERE aggregate_key = ? " +
+                "ORDER BY aggregate_sequence", Long.class, aggregateKey);
+    }
+    
+    @TestConfiguration
+    static class RecordingConsumerConfig {
+        
+        @Bean
+        RecordingConsumer recordingConsumer() {
+            return new RecordingConsumer();
+        }
+    }
+    
+    static class RecordingConsumer implements DomainEventConsumer {
+        
+        private final List<DomainEvent> events = new CopyOnWriteArrayList<>();
+        
+        @Override
+        public void handle(DomainEvent event) {
+            events.add(event);
+        }
+    }
+}
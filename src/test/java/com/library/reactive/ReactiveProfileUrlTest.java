@@ -0,0 +1,62 @@
+package com.library.reactive;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultBootstrapContext;
+import org.springframework.boot.context.config.ConfigDataEnvironmentPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * The reactive server starts by default, so a profile with a malformed
+ * {@code app.reactive.url} cannot boot. Each shipped profile's URL is resolved the
+ * way Spring Boot resolves it and parsed the way {@link ReactiveBookRepository}
+ * parses it.
+ */
+class ReactiveProfileUrlTest {
+    
+    @Test
+    void everyShippedProfileHasAValidReactiveUrl() throws IOException {
+        List<String> profiles = shippedProfiles();
+        assertThat(profiles).contains("h2-file");
+        
+        for (String profile : profiles) {
+            String url = reactiveUrl(profile);
+            assertThatCode(() -> ConnectionFactories.get(ConnectionFactoryOptions.parse(url)))
+                    .as("app.reactive.url of profile %s: %s", profile, url)
+                    .doesNotThrowAnyException();
+        }
+    }
+    
+    // The default configuration plus every application-<profile>.properties of the application
+    private static List<String> shippedProfiles() throws IOException {
+        List<String> profiles = new ArrayList<>();
+        profiles.add("default");
+        for (Resource resource : new PathMatchingResourcePatternResolver().getResources("classpath*:application-*.properties")) {
+            String name = resource.getFilename();
+            String profile = name.substring("application-".length(), name.length() - ".properties".length());
+            if (!profile.equals("test")) {
+                profiles.add(profile);
+            }
+        }
+        return profiles;
+    }
+    
+    private static String reactiveUrl(String profile) {
+        StandardEnvironment environment = new StandardEnvironment();
+        ConfigDataEnvironmentPostProcessor.applyTo(environment, new DefaultResourceLoader(), new DefaultBootstrapContext(),
+                profile.equals("default") ? new String[0] : new String[] {profile});
+        return Binder.get(environment).bind("app.reactive.url", String.class).get();
+    }
+}
@@ -0,0 +1,86 @@
+package com.library.reactive.web;
+
+import com.library.entity.Book;
+import com.library.security.JwtUtils;
+import com.library.security.UserPrincipal;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@IntegrationTest
+class ReactiveServerTest {
+    
+    @Autowired
+    private ReactiveServer reactiveServer;
+    
+    @Autowired
+    private JwtUtils jwtUtils;
+    
+    @Autowired
+    private TestData testData;
+    
+    private WebTestClient client;
+    private String token;
+    
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToServer().baseUrl("http://localhost:" + reactiveServer.getPort()).build();
+        UserPrincipal principal = UserPrincipal.create(testData.user());
+        token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+    
+    @Test
+    void rejectsRequestsWithoutAValidToken() {
+        client.get().uri("/api/reactive/books").exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.error").isEqualTo("Unauthorized");
+        client.get().uri("/api/reactive/books").header(HttpHeaders.AUTHORIZATION, "Bearer " + token + "x").exchange()
+                .expectStatus().isUnauthorized();
+    }
+    
+    @Test
+    void servesBooksWrittenThroughJpa() {
+        Book book = testData.book("Reactive " + System.nanoTime(), 2);
+        
+        client.get().uri("/api/reactive/books/{id}", book.getId()).header(HttpHeaders.AUTHORIZATION, "Bearer " + token).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.success").isEqualTo(true)
+                .jsonPath("$.data.title").isEqualTo(book.getTitle())
+                .jsonPath("$.data.availableCopies").isEqualTo(2);
+    }
+    
+    @Test
+    void streamsListsAsNdjsonWhenAsked() {
+        testData.book(1);
+        testData.book(1);
+        
+        String body = client.get().uri("/api/reactive/books?size=2")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class).returnResult().getResponseBody();
+        
+        assertThat(body.lines()).hasSize(2).allSatisfy(line -> assertThat(line).startsWith("{\"id\":"));
+    }
+    
+    @Test
+    void mapsErrorsToApiResponses() {
+        client.get().uri("/api/reactive/books/{id}", Long.MAX_VALUE).header(HttpHeaders.AUTHORIZATION, "Bearer " + token).exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.success").isEqualTo(false);
+        client.get().uri("/api/reactive/books?page=x").header(HttpHeaders.AUTHORIZATION, "Bearer " + token).exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Invalid value for page: x");
+    }
+}
@@ -0,0 +1,138 @@
+package com.library.repository;
+
+import com.library.enums.LoanStatus;
+import com.library.monitoring.StatementCounter;
+import com.library.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the hot repository queries, captures the SQL Hibernate generates for them
+ * and fails if H2 plans a full table scan for any of it, so a dropped index or a
+ * query that can no longer use one breaks the build.
+ */
+@IntegrationTest
+class QueryPlanTest {
+    
+    private static final String TABLE_SCAN = ".tableScan";
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private LoanRepository loanRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private StatementCounter statementCounter;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Test
+    void hotQueriesUseIndexes() {
+        LocalDate today = LocalDate.now();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("BookRepository.findByIsbn", () -> bookRepository.findByIsbn("978-0-00-000000-0"));
+        queries.put("BookRepository.findAvailableBooks", () -> bookRepository.findAvailableBooks(PAGE));
+        queries.put("BookRepository.findNextByTitle", () -> bookRepository.findNextByTitle("M", 0L, Limit.of(20)));
+        queries.put("BookRepository.findByCategoryId", () -> bookRepository.findByCategoryId(1L, PAGE));
+        queries.put("LoanRepository.countActiveLoansByUser", () -> loanRepository.countActiveLoansByUser(1L));
+        queries.put("LoanRepository.findActiveLoanByUserAndBook", () -> loanRepository.findActiveLoanByUserAndBook(1L, 1L));
+        queries.put("LoanRepository.findActiveBookIdsByUser", () -> loanRepository.findActiveBookIdsByUser(1L, Set.of(1L, 2L)));
+        queries.put("LoanRepository.findOverdueLoans", () -> loanRepository.findOverdueLoans(today));
+        queries.put("LoanRepository.findOverdueLoanIds", () -> loanRepository.findOverdueLoanIds(today, 0L, PAGE));
+        queries.put("LoanRepository.countByUserId", () -> loanRepository.countByUserId(1L));
+        queries.put("LoanRepository.streamSummariesByUserId",
+                () -> loanRepository.streamSummariesByUserId(1L, Sort.by("id"), Limit.of(20)).toList());
+        queries.put("LoanRepository.streamSummariesByStatus",
+                () -> loanRepository.streamSummariesByStatus(LoanStatus.OVERDUE, Sort.by("id"), Limit.of(20)).toList());
+        queries.put("LoanRepository.findNextByUserId", () -> loanRepository.findNextByUserId(1L, 0L, Limit.of(20)));
+        queries.put("LoanRepository.findArchivableIds", () -> loanRepository.findArchivableIds(today, 0L, PAGE));
+        queries.put("LoanRepository.findReturnedForArchive", () -> loanRepository.findReturnedForArchive(Set.of(1L, 2L)));
+        queries.put("UserRepository.findByEmail", () -> userRepository.findByEmail("user@library.com"));
+        
+        // Archive stores are queried with JDBC, so their statements are checked as written
+        Map<String, String> archiveQueries = new LinkedHashMap<>();
+        archiveQueries.put("LoanArchiveShard.streamByUserId", LoanArchiveShard.FIND_BY_USER_ID.formatted("id ASC"));
+        archiveQueries.put("LoanArchiveShard.countByUserId", LoanArchiveShard.COUNT_BY_USER_ID);
+        archiveQueries.put("LoanArchiveShard.findNextByUserId", LoanArchiveShard.FIND_NEXT_BY_USER_ID);
+        archiveQueries.put("LoanArchiveShard.findById", LoanArchiveShard.FIND_BY_ID);
+        
+        List<String> scans = new ArrayList<>();
+        queries.forEach((name, query) -> {
+            for (String sql : capture(query)) {
+                check(name, sql, scans);
+            }
+        });
+        archiveQueries.forEach((name, sql) -> check(name, sql, scans));
+        
+        assertThat(scans).isEmpty();
+    }
+    
+    private void check(String name, String sql, List<String> scans) {
+        String plan = explain(sql);
+        if (plan.contains(TABLE_SCAN)) {
+            scans.add(name + ": " + plan.replaceAll("\\s+", " "));
+        }
+    }
+    
+    private Set<String> capture(Runnable query) {
+        Set<String> statements;
+        statementCounter.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> query.run());
+        } finally {
+            statements = statementCounter.stop().keySet();
+        }
+        assertThat(statements).isNotEmpty();
+        return statements;
+    }
+    
+    // Binds a sample value of the inferred type to every parameter so H2 can plan the statement
+    private String explain(String sql) {
+        return jdbcTemplate.execute("EXPLAIN " + sql, (PreparedStatement statement) -> {
+            ParameterMetaData parameters = statement.getParameterMetaData();
+            for (int i = 1; i <= parameters.getParameterCount(); i++) {
+                switch (parameters.getParameterType(i)) {
+                    case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR -> statement.setString(i, "X");
+                    case Types.DATE -> statement.setDate(i, Date.valueOf(LocalDate.now()));
+                    case Types.TIMESTAMP -> statement.setTimestamp(i, Timestamp.valueOf(LocalDateTime.now()));
+                    case Types.BOOLEAN -> statement.setBoolean(i, true);
+                    default -> statement.setLong(i, 1);
+                }
+            }
+            try (ResultSet plan = statement.executeQuery()) {
+                plan.next();
+                return plan.getString(1);
+            }
+        });
+    }
+}
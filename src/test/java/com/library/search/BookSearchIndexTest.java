@@ -0,0 +1,98 @@
+package com.library.search;
+
+import com.library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookSearchIndexTest {
+    
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final BookSearchIndex index = new BookSearchIndex(bookRepository);
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "maxCandidates", 2);
+        ReflectionTestUtils.setField(index, "rebuildBatchSize", 100);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "The Great Gatsby", "F. Scott Fitzgerald"});
+        rows.add(new Object[]{2L, "Great Expectations", "Charles Dickens"});
+        rows.add(new Object[]{3L, "Moby Dick", "Herman Melville"});
+        rows.add(new Object[]{4L, "A Tale of Two Cities", "Charles Dickens"});
+        when(bookRepository.findSearchIndexRows(eq(0L), any(Pageable.class))).thenReturn(rows);
+        index.rebuild();
+    }
+    
+    @Test
+    void returnsBooksContainingEveryQueryTrigram() {
+        assertThat(index.findCandidates("moby", null)).containsExactly(3);
+        assertThat(index.findCandidates("GREAT", null)).containsExactly(1, 2);
+        assertThat(index.findCandidates(null, "melville")).containsExactly(3);
+    }
+    
+    @Test
+    void intersectsTitleAndAuthorFilters() {
+        assertThat(index.findCandidates("tale", "dickens")).containsExactly(4);
+        assertThat(index.findCandidates("moby", "dickens")).isEmpty();
+    }
+    
+    @Test
+    void returnsNoCandidatesWhenAQueryTrigramIsUnknown() {
+        assertThat(index.findCandidates("xyz", null)).isEmpty();
+    }
+    
+    @Test
+    void fallsBackForShortQueries() {
+        assertThat(index.findCandidates("mo", null)).isNull();
+        assertThat(index.findCandidates("", "di")).isNull();
+    }
+    
+    @Test
+    void fallsBackForWildcards() {
+        assertThat(index.findCandidates("mo%y", null)).isNull();
+        assertThat(index.findCandidates("mob_", null)).isNull();
+    }
+    
+    @Test
+    void fallsBackWhenTooManyBooksMatch() {
+        ReflectionTestUtils.setField(index, "maxCandidates", 1);
+        
+        assertThat(index.findCandidates("great", null)).isNull();
+        assertThat(index.findCandidates("gatsby", null)).containsExactly(1);
+    }
+    
+    @Test
+    void fallsBackUntilBuilt() {
+        BookSearchIndex unbuilt = new BookSearchIndex(bookRepository);
+        
+        assertThat(unbuilt.findCandidates("moby", null)).isNull();
+    }
+    
+    @Test
+    void followsTitleChanges() {
+        index.update(3L, "Moby Dick", "Herman Melville", "The Whale", "Herman Melville");
+        
+        assertThat(index.findCandidates("moby", null)).isEmpty();
+        assertThat(index.findCandidates("whale", null)).containsExactly(3);
+        assertThat(index.findCandidates(null, "melville")).containsExactly(3);
+    }
+    
+    @Test
+    void followsAddsAndRemoves() {
+        index.add(5L, "Moby Dick Annotated", "Herman Melville");
+        assertThat(index.findCandidates("moby", null)).containsExactly(3, 5);
+        
+        index.remove(3L, "Moby Dick", "Herman Melville");
+        assertThat(index.findCandidates("moby", null)).containsExactly(5);
+    }
+}
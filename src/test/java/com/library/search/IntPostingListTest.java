@@ -0,0 +1,85 @@
+package com.library.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IntPostingListTest {
+    
+    @Test
+    void addKeepsIdsSortedAndUnique() {
+        IntPostingList list = of(5, 1, 9, 5, 3, 1, 7, 2);
+        
+        assertThat(list.toArray()).containsExactly(1, 2, 3, 5, 7, 9);
+        assertThat(list.size()).isEqualTo(6);
+    }
+    
+    @Test
+    void addingTwoListsGivesTheirUnion() {
+        IntPostingList list = of(1, 4, 6, 10);
+        for (int id : new int[]{2, 4, 8, 10, 12}) {
+            list.add(id);
+        }
+        
+        assertThat(list.toArray()).containsExactly(1, 2, 4, 6, 8, 10, 12);
+    }
+    
+    @Test
+    void removeDropsOnlyTheGivenId() {
+        IntPostingList list = of(1, 2, 3, 4);
+        list.remove(2);
+        list.remove(42);
+        
+        assertThat(list.toArray()).containsExactly(1, 3, 4);
+        list.remove(1);
+        list.remove(3);
+        list.remove(4);
+        assertThat(list.isEmpty()).isTrue();
+    }
+    
+    @Test
+    void retainAllWritesTheIntersectionToTheFront() {
+        IntPostingList list = of(2, 3, 5, 7, 11, 13, 17, 19, 23);
+        int[] candidates = {1, 2, 4, 7, 8, 19, 20, 30};
+        
+        int matched = list.retainAll(candidates, candidates.length);
+        
+        assertThat(Arrays.copyOf(candidates, matched)).containsExactly(2, 7, 19);
+    }
+    
+    @Test
+    void retainAllOnlyReadsTheGivenLength() {
+        IntPostingList list = of(1, 2, 3, 4);
+        int[] candidates = {1, 3, 4};
+        
+        assertThat(list.retainAll(candidates, 2)).isEqualTo(2);
+        assertThat(Arrays.copyOf(candidates, 2)).containsExactly(1, 3);
+    }
+    
+    @Test
+    void retainAllMatchesABruteForceIntersection() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            int[] a = random.ints(random.nextInt(50), 0, 100).sorted().distinct().toArray();
+            int[] b = random.ints(random.nextInt(500), 0, 1000).sorted().distinct().toArray();
+            IntPostingList list = of(b);
+            int[] expected = Arrays.stream(a).filter(id -> Arrays.binarySearch(b, id) >= 0).toArray();
+            
+            int[] candidates = a.clone();
+            int matched = list.retainAll(candidates, candidates.length);
+            
+            assertThat(Arrays.copyOf(candidates, matched)).containsExactly(expected);
+        }
+    }
+    
+    private static IntPostingList of(int... ids) {
+        IntPostingList list = new IntPostingList();
+        for (int id : ids) {
+            list.add(id);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,24 @@
+package com.library.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BCryptCalibrationTest {
+    
+    @Test
+    void neverGoesBelowTheMinimum() {
+        assertThat(BCryptCalibration.strengthFor(0, 6, 12)).isEqualTo(6);
+        assertThat(BCryptCalibration.strengthFor(-1, 4, 4)).isEqualTo(4);
+    }
+    
+    @Test
+    void neverGoesAboveTheMaximum() {
+        assertThat(BCryptCalibration.strengthFor(Long.MAX_VALUE, 4, 6)).isEqualTo(6);
+    }
+    
+    @Test
+    void staysWithinTheBoundsForARealisticTarget() {
+        assertThat(BCryptCalibration.strengthFor(50, 4, 10)).isBetween(4, 10);
+    }
+}
@@ -0,0 +1,43 @@
+package com.library.security;
+
+import com.library.entity.User;
+import com.library.enums.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class JwtUtilsTest {
+    
+    @Test
+    void rejectsSecretsTooShortForHs512() {
+        JwtUtils jwtUtils = withSecret("mySecretKey");
+        
+        assertThatIllegalStateException()
+                .isThrownBy(jwtUtils::init)
+                .withMessageContaining("app.jwtSecret is 11 bytes")
+                .withMessageContaining("at least 64 bytes");
+    }
+    
+    @Test
+    void signsAndVerifiesWithALongEnoughSecret() {
+        JwtUtils jwtUtils = withSecret("x".repeat(JwtUtils.MIN_SECRET_BYTES));
+        jwtUtils.init();
+        User user = User.builder().id(1L).email("a@test.local").password("x").role(Role.USER).active(true).build();
+        UserPrincipal principal = UserPrincipal.create(user);
+        
+        String token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        
+        assertThat(jwtUtils.getEmailFromJwtToken(token)).isEqualTo("a@test.local");
+        assertThat(jwtUtils.parseClaims(token + "x")).isEmpty();
+    }
+    
+    private static JwtUtils withSecret(String secret) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", secret);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,137 @@
+package com.library.security;
+
+import com.library.exception.TooManyRequestsException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginAttemptThrottleTest {
+    
+    private static final long WINDOW = TimeUnit.SECONDS.toNanos(1);
+    
+    @Test
+    void allowsUpToTheLimitWithinOneWindow() {
+        LoginAttemptThrottle.SlidingWindow window = new LoginAttemptThrottle.SlidingWindow();
+        long now = System.nanoTime();
+        
+        assertThat(acquired(window, 10, now, 15)).isEqualTo(10);
+    }
+    
+    @Test
+    void weightsThePreviousWindowByItsRemainingOverlap() {
+        LoginAttemptThrottle.SlidingWindow window = new LoginAttemptThrottle.SlidingWindow();
+        long start = System.nanoTime();
+        assertThat(acquired(window, 10, start, 10)).isEqualTo(10);
+        
+        // A quarter into the next window, 75% of the previous ten still count
+        assertThat(acquired(window, 10, start + WINDOW + WINDOW / 4, 10)).isEqualTo(3);
+    }
+    
+    @Test
+    void forgetsAttemptsOnceTwoWindowsHavePassed() {
+        LoginAttemptThrottle.SlidingWindow window = new LoginAttemptThrottle.SlidingWindow();
+        long start = System.nanoTime();
+        acquired(window, 10, start, 10);
+        
+        assertThat(acquired(window, 10, start + 2 * WINDOW + 1, 15)).isEqualTo(10);
+    }
+    
+    @Test
+    void rejectedAttemptsAreNotCounted() {
+        LoginAttemptThrottle.SlidingWindow window = new LoginAttemptThrottle.SlidingWindow();
+        long start = System.nanoTime();
+        acquired(window, 4, start, 1000);
+        
+        // Only the four accepted attempts carry over: 4 * 0.375 = 1.5
+        assertThat(acquired(window, 4, start + WINDOW + 5 * WINDOW / 8, 10)).isEqualTo(3);
+    }
+    
+    @Test
+    void concurrentAttemptsNeverExceedTheLimit() throws Exception {
+        LoginAttemptThrottle.SlidingWindow window = new LoginAttemptThrottle.SlidingWindow();
+        long now = System.nanoTime();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return acquired(window, 50, now, 100);
+                }));
+            }
+            start.countDown();
+            
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(10, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(50);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void limitsLoginsPerEmailFromOneAddressAndClearsThemOnSuccess() {
+        LoginAttemptThrottle throttle = throttle(2, 100);
+        
+        throttle.checkLogin("A@test.local", "10.0.0.1");
+        throttle.checkLogin("a@test.local ", "10.0.0.1");
+        assertThatThrownBy(() -> throttle.checkLogin("a@test.local", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+        
+        throttle.loginSucceeded("a@test.local", "10.0.0.1");
+        throttle.checkLogin("a@test.local", "10.0.0.1");
+    }
+    
+    @Test
+    void failedLoginsFromAnotherAddressDoNotLockTheUserOut() {
+        LoginAttemptThrottle throttle = throttle(2, 100);
+        throttle.checkLogin("victim@test.local", "10.0.0.66");
+        throttle.checkLogin("victim@test.local", "10.0.0.66");
+        assertThatThrownBy(() -> throttle.checkLogin("victim@test.local", "10.0.0.66"))
+                .isInstanceOf(TooManyRequestsException.class);
+        
+        throttle.checkLogin("victim@test.local", "10.0.0.1");
+    }
+    
+    @Test
+    void limitsLoginsPerAddressAcrossEmails() {
+        LoginAttemptThrottle throttle = throttle(100, 3);
+        for (int i = 0; i < 3; i++) {
+            throttle.checkLogin("user" + i + "@test.local", "10.0.0.1");
+        }
+        
+        assertThatThrownBy(() -> throttle.checkLogin("other@test.local", "10.0.0.1"))
+                .isInstanceOf(TooManyRequestsException.class);
+    }
+    
+    private static LoginAttemptThrottle throttle(int maxAttemptsPerEmail, int maxAttemptsPerIp) {
+        LoginAttemptThrottle throttle = new LoginAttemptThrottle(60, 1000);
+        ReflectionTestUtils.setField(throttle, "maxAttemptsPerEmail", maxAttemptsPerEmail);
+        ReflectionTestUtils.setField(throttle, "maxAttemptsPerIp", maxAttemptsPerIp);
+        return throttle;
+    }
+    
+    private static int acquired(LoginAttemptThrottle.SlidingWindow window, int limit, long now, int attempts) {
+        int acquired = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (window.tryAcquire(limit, now, WINDOW)) {
+                acquired++;
+            }
+        }
+        return acquired;
+    }
+}
@@ -0,0 +1,71 @@
+package com.library.service;
+
+import com.library.dto.response.CursorPage;
+import com.library.entity.Book;
+import com.library.repository.BookRepository;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@IntegrationTest
+class BookCursorPaginationTest {
+    
+    @Autowired
+    private BookService bookService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private TestData testData;
+    
+    @BeforeEach
+    void setUp() {
+        // Equal titles make the id tie-breaker matter at page boundaries
+        for (int i = 0; i < 5; i++) {
+            testData.book("Cursor Duplicate", 1);
+            testData.book("Cursor Title " + i, 1);
+        }
+    }
+    
+    @Test
+    void walksAllBooksInIdOrder() {
+        assertThat(walk("id")).isEqualTo(ids(Sort.by("id")));
+    }
+    
+    @Test
+    void walksAllBooksInTitleOrderWithoutGapsOrRepeats() {
+        assertThat(walk("title")).isEqualTo(ids(Sort.by("title", "id")));
+    }
+    
+    @Test
+    void marksTheLastPage() {
+        CursorPage<Book> page = bookService.getBooksAfter(null, (int) bookRepository.count(), "id");
+        
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+    
+    private List<Long> walk(String sort) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Book> page = bookService.getBooksAfter(cursor, 3, sort);
+            page.getContent().forEach(book -> ids.add(book.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return ids;
+    }
+    
+    private List<Long> ids(Sort sort) {
+        return bookRepository.findAll(sort).stream().map(Book::getId).toList();
+    }
+}
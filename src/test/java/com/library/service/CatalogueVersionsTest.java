@@ -0,0 +1,177 @@
+package com.library.service;
+
+import com.library.dto.request.BookRequest;
+import com.library.entity.Book;
+import com.library.entity.Category;
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.BookRepository;
+import com.library.repository.CategoryRepository;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@IntegrationTest
+class CatalogueVersionsTest {
+    
+    @Autowired
+    private CatalogueVersions catalogueVersions;
+    
+    @Autowired
+    private BookService bookService;
+    
+    @Autowired
+    private LoanService loanService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private CategoryRepository categoryRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private TestData testData;
+    
+    @Test
+    void bookVersionIsStableWhileTheBookIsUnchanged() {
+        Book book = testData.book(2);
+        String version = catalogueVersions.bookVersion(book.getId());
+        
+        Book other = testData.book(1);
+        bookService.updateBook(other.getId(), request(other));
+        loanService.createLoan(testData.user().getId(), other.getId());
+        
+        assertThat(catalogueVersions.bookVersion(book.getId())).isEqualTo(version);
+    }
+    
+    @Test
+    void bookVersionIsSharedByEveryInstance() {
+        Book book = testData.book(2);
+        CatalogueVersions otherInstance = otherInstance();
+        
+        assertThat(otherInstance.bookVersion(book.getId())).isEqualTo(catalogueVersions.bookVersion(book.getId()));
+    }
+    
+    @Test
+    void bookVersionChangesWithACheckout() {
+        Book book = testData.book(2);
+        String version = catalogueVersions.bookVersion(book.getId());
+        
+        loanService.createLoan(testData.user().getId(), book.getId());
+        
+        assertThat(catalogueVersions.bookVersion(book.getId())).isNotEqualTo(version);
+    }
+    
+    @Test
+    void bookVersionChangesWithAnUpdate() {
+        Book book = testData.book(2);
+        String version = catalogueVersions.bookVersion(book.getId());
+        
+        BookRequest request = request(book);
+        request.setDescription("Revised");
+        bookService.updateBook(book.getId(), request);
+        
+        assertThat(catalogueVersions.bookVersion(book.getId())).isNotEqualTo(version);
+    }
+    
+    @Test
+    void rejectsUnknownBooks() {
+        assertThatThrownBy(() -> catalogueVersions.bookVersion(Long.MAX_VALUE))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+    
+    @Test
+    void collectionVersionChangesOnlyOnceTheWriteCommits() {
+        Book book = testData.book(2);
+        String before = catalogueVersions.collectionVersion();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogueVersions.bookChanged(book.getId());
+            assertThat(catalogueVersions.collectionVersion()).isEqualTo(before);
+        });
+        
+        assertThat(catalogueVersions.collectionVersion()).isNotEqualTo(before);
+    }
+    
+    @Test
+    void collectionVersionIsKeptOnRollback() {
+        Book book = testData.book(2);
+        String before = catalogueVersions.collectionVersion();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogueVersions.bookChanged(book.getId());
+            status.setRollbackOnly();
+        });
+        
+        assertThat(catalogueVersions.collectionVersion()).isEqualTo(before);
+    }
+    
+    @Test
+    void collectionVersionChangesWithWritesThroughAnotherInstance() {
+        Book book = testData.book(2);
+        String before = catalogueVersions.collectionVersion();
+        CatalogueVersions otherInstance = otherInstance();
+        
+        transactionTemplate.executeWithoutResult(status -> otherInstance.bookChanged(book.getId()));
+        
+        assertThat(catalogueVersions.collectionVersion())
+                .isNotEqualTo(before)
+                .isEqualTo(otherInstance.collectionVersion());
+    }
+    
+    @Test
+    void collectionVersionIsBumpedOncePerTransaction() {
+        Book first = testData.book(2);
+        Book second = testData.book(2);
+        long before = Long.parseLong(catalogueVersions.collectionVersion(), 36);
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            catalogueVersions.bookChanged(first.getId());
+            catalogueVersions.booksChanged(List.of(first.getId(), second.getId()));
+        });
+        
+        assertThat(Long.parseLong(catalogueVersions.collectionVersion(), 36)).isEqualTo(before + 1);
+    }
+    
+    @Test
+    void collectionVersionChangesWithACheckout() {
+        Book book = testData.book(2);
+        String before = catalogueVersions.collectionVersion();
+        
+        loanService.createLoan(testData.user().getId(), book.getId());
+        
+        assertThat(catalogueVersions.collectionVersion()).isNotEqualTo(before);
+    }
+    
+    private CatalogueVersions otherInstance() {
+        return new CatalogueVersions(bookRepository, jdbcTemplate, entityManager);
+    }
+    
+    private BookRequest request(Book book) {
+        Category category = categoryRepository.save(Category.builder().name("Versions " + System.nanoTime()).build());
+        BookRequest request = new BookRequest();
+        request.setTitle(book.getTitle());
+        request.setAuthor(book.getAuthor());
+        request.setIsbn(book.getIsbn());
+        request.setTotalCopies(book.getTotalCopies());
+        request.setCategoryId(category.getId());
+        return request;
+    }
+}
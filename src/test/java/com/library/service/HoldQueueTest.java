@@ -0,0 +1,171 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.entity.Hold;
+import com.library.entity.Loan;
+import com.library.entity.User;
+import com.library.enums.HoldStatus;
+import com.library.exception.BusinessException;
+import com.library.repository.BookRepository;
+import com.library.repository.HoldRepository;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@IntegrationTest
+class HoldQueueTest {
+    
+    @Autowired
+    private HoldService holdService;
+    
+    @Autowired
+    private LoanService loanService;
+    
+    @Autowired
+    private HoldQueues holdQueues;
+    
+    @Autowired
+    private HoldRepository holdRepository;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TestData testData;
+    
+    @Test
+    void returnedCopyGoesToTheOldestWaitingHold() {
+        Book book = testData.book(1);
+        Loan loan = loanService.createLoan(testData.user().getId(), book.getId());
+        Hold first = placeHold(book);
+        Hold second = placeHold(book);
+        Hold third = placeHold(book);
+        assertThat(positions(book, first, second, third)).containsExactly(1, 2, 3);
+        
+        loanService.returnBook(loan.getId());
+        
+        assertThat(status(first)).isEqualTo(HoldStatus.READY);
+        assertThat(status(second)).isEqualTo(HoldStatus.WAITING);
+        assertThat(status(third)).isEqualTo(HoldStatus.WAITING);
+        assertThat(positions(book, first, second, third)).containsExactly(0, 1, 2);
+        assertThat(holdQueues.length(book.getId())).isEqualTo(2);
+        assertThat(availableCopies(book)).isZero();
+    }
+    
+    @Test
+    void walkUpCheckoutIsRejectedWhileTheCopyIsSetAside() {
+        Book book = testData.book(1);
+        Loan loan = loanService.createLoan(testData.user().getId(), book.getId());
+        placeHold(book);
+        loanService.returnBook(loan.getId());
+        
+        User walkUp = testData.user();
+        
+        assertThatThrownBy(() -> loanService.createLoan(walkUp.getId(), book.getId()))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageStartingWith("Book is not available for loan");
+        assertThat(availableCopies(book)).isZero();
+    }
+    
+    @Test
+    void holderChecksOutTheCopySetAsideWithNoneAvailable() {
+        Book book = testData.book(1);
+        Loan loan = loanService.createLoan(testData.user().getId(), book.getId());
+        Hold hold = placeHold(book);
+        loanService.returnBook(loan.getId());
+        assertThat(availableCopies(book)).isZero();
+        
+        Loan picked = loanService.createLoan(hold.getUser().getId(), book.getId());
+        
+        assertThat(picked.getBook().getId()).isEqualTo(book.getId());
+        assertThat(status(hold)).isEqualTo(HoldStatus.FULFILLED);
+        assertThat(availableCopies(book)).isZero();
+    }
+    
+    @Test
+    void expiredHoldPassesTheCopyToTheNextInLine() {
+        Book book = testData.book(1);
+        Loan loan = loanService.createLoan(testData.user().getId(), book.getId());
+        Hold first = placeHold(book);
+        Hold second = placeHold(book);
+        loanService.returnBook(loan.getId());
+        expireNow(first);
+        
+        holdService.expireHolds();
+        
+        assertThat(status(first)).isEqualTo(HoldStatus.EXPIRED);
+        assertThat(status(second)).isEqualTo(HoldStatus.READY);
+        assertThat(holdQueues.length(book.getId())).isZero();
+        assertThat(availableCopies(book)).isZero();
+        
+        expireNow(second);
+        holdService.expireHolds();
+        
+        assertThat(status(second)).isEqualTo(HoldStatus.EXPIRED);
+        assertThat(availableCopies(book)).isEqualTo(1);
+    }
+    
+    @Test
+    void queuePositionsChangeOnlyWhenTheTransactionCommits() {
+        Book book = testData.book(1);
+        loanService.createLoan(testData.user().getId(), book.getId());
+        Hold first = placeHold(book);
+        User late = testData.user();
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            holdService.placeHold(late.getId(), book.getId());
+            status.setRollbackOnly();
+        });
+        assertThat(holdQueues.length(book.getId())).isEqualTo(1);
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            holdService.cancelHold(first.getId());
+            status.setRollbackOnly();
+        });
+        assertThat(status(first)).isEqualTo(HoldStatus.WAITING);
+        assertThat(holdQueues.position(book.getId(), first.getId())).isEqualTo(1);
+        
+        Hold second = holdService.placeHold(late.getId(), book.getId());
+        assertThat(positions(book, first, second)).containsExactly(1, 2);
+        
+        holdService.cancelHold(first.getId());
+        assertThat(positions(book, first, second)).containsExactly(0, 1);
+        assertThat(holdQueues.length(book.getId())).isEqualTo(1);
+    }
+    
+    private Hold placeHold(Book book) {
+        return holdService.placeHold(testData.user().getId(), book.getId());
+    }
+    
+    private void expireNow(Hold hold) {
+        jdbcTemplate.update("UPDATE holds SET expires_at = ? WHERE id = ?", LocalDateTime.now().minusMinutes(1), hold.getId());
+    }
+    
+    private HoldStatus status(Hold hold) {
+        return holdRepository.findById(hold.getId()).orElseThrow().getStatus();
+    }
+    
+    private int availableCopies(Book book) {
+        return bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies();
+    }
+    
+    private List<Integer> positions(Book book, Hold... holds) {
+        return Arrays.stream(holds).map(hold -> holdQueues.position(book.getId(), hold.getId())).toList();
+    }
+}
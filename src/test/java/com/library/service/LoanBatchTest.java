@@ -0,0 +1,184 @@
+package com.library.service;
+
+import com.library.dto.response.BatchLoanResult;
+import com.library.entity.Book;
+import com.library.entity.User;
+import com.library.repository.BookRepository;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@IntegrationTest
+class LoanBatchTest {
+    
+    private static final int MAX_LOANS = 5;
+    
+    @Autowired
+    private LoanService loanService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TestData testData;
+    
+    @Test
+    void concurrentBasketsOfOneUserNeverExceedTheLoanLimit() throws Exception {
+        int users = 8;
+        List<Supplier<BatchLoanResult>> baskets = new ArrayList<>();
+        List<User> borrowers = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            User user = testData.user();
+            borrowers.add(user);
+            // Two baskets of four books each, eight in total against a limit of five
+            for (int basket = 0; basket < 2; basket++) {
+                List<Long> bookIds = new ArrayList<>();
+                for (int j = 0; j < 4; j++) {
+                    bookIds.add(testData.book(1).getId());
+                }
+                baskets.add(() -> loanService.createLoans(user.getId(), bookIds));
+            }
+        }
+        
+        List<BatchLoanResult> results = runConcurrently(baskets);
+        
+        for (int i = 0; i < users; i++) {
+            BatchLoanResult first = results.get(2 * i);
+            BatchLoanResult second = results.get(2 * i + 1);
+            assertThat(first.getSucceeded() + second.getSucceeded()).isEqualTo(MAX_LOANS);
+            assertThat(activeLoans(borrowers.get(i))).isEqualTo(MAX_LOANS);
+            assertThat(failedWith(first, "User has reached maximum number of active loans")
+                    + failedWith(second, "User has reached maximum number of active loans")).isEqualTo(3);
+        }
+    }
+    
+    @Test
+    void reportsEachBookThatCannotBeLent() {
+        User user = testData.user();
+        Book onLoan = testData.book(2);
+        loanService.createLoan(user.getId(), onLoan.getId());
+        Book available = testData.book(1);
+        Book soldOut = testData.book(0);
+        Book second = testData.book(1);
+        Book third = testData.book(1);
+        Book fourth = testData.book(1);
+        Book overLimit = testData.book(1);
+        
+        BatchLoanResult result = loanService.createLoans(user.getId(), List.of(available.getId(), available.getId(),
+                Long.MAX_VALUE, soldOut.getId(), onLoan.getId(), second.getId(), third.getId(), fourth.getId(),
+                overLimit.getId()));
+        
+        assertThat(result.getItems()).extracting(BatchLoanResult.Item::getError).containsExactly(
+                null,
+                "Book is listed more than once",
+                "Book not found with id: " + Long.MAX_VALUE,
+                "Book is not available for loan",
+                "User already has this book on loan",
+                null,
+                null,
+                null,
+                "User has reached maximum number of active loans");
+        assertThat(result.getSucceeded()).isEqualTo(4);
+        assertThat(result.getFailed()).isEqualTo(5);
+        assertThat(activeLoans(user)).isEqualTo(MAX_LOANS);
+        assertThat(availableCopies(available)).isZero();
+        assertThat(availableCopies(soldOut)).isZero();
+        assertThat(availableCopies(onLoan)).isEqualTo(1);
+        assertThat(availableCopies(overLimit)).isEqualTo(1);
+    }
+    
+    @Test
+    void batchReturnRestoresOneCopyPerLoan() {
+        Book shared = testData.book(2);
+        Book single = testData.book(1);
+        User first = testData.user();
+        User second = testData.user();
+        Long sharedFirst = loanService.createLoan(first.getId(), shared.getId()).getId();
+        Long sharedSecond = loanService.createLoan(second.getId(), shared.getId()).getId();
+        Long singleFirst = loanService.createLoan(first.getId(), single.getId()).getId();
+        
+        BatchLoanResult result = loanService.returnBooks(List.of(sharedFirst, sharedSecond, singleFirst, sharedFirst, Long.MAX_VALUE));
+        
+        assertThat(result.getItems()).extracting(BatchLoanResult.Item::getError).containsExactly(
+                null, null, null, "Loan is listed more than once", "Loan not found with id: " + Long.MAX_VALUE);
+        assertThat(availableCopies(shared)).isEqualTo(2);
+        assertThat(availableCopies(single)).isEqualTo(1);
+        
+        BatchLoanResult again = loanService.returnBooks(List.of(sharedFirst, singleFirst));
+        
+        assertThat(again.getItems()).extracting(BatchLoanResult.Item::getError)
+                .containsExactly("Loan is not active", "Loan is not active");
+        assertThat(availableCopies(shared)).isEqualTo(2);
+        assertThat(availableCopies(single)).isEqualTo(1);
+    }
+    
+    @Test
+    void concurrentBatchReturnsOfTheSameLoansRestoreOneCopyEach() throws Exception {
+        Book book = testData.book(3);
+        List<Long> loanIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            loanIds.add(loanService.createLoan(testData.user().getId(), book.getId()).getId());
+        }
+        List<Supplier<BatchLoanResult>> returns = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            returns.add(() -> loanService.returnBooks(loanIds));
+        }
+        
+        List<BatchLoanResult> results = runConcurrently(returns);
+        
+        assertThat(results.stream().mapToInt(BatchLoanResult::getSucceeded).sum()).isEqualTo(3);
+        assertThat(availableCopies(book)).isEqualTo(3);
+    }
+    
+    private long activeLoans(User user) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loans WHERE user_id = ? AND status = 'ACTIVE'",
+                Long.class, user.getId());
+    }
+    
+    private int availableCopies(Book book) {
+        return bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies();
+    }
+    
+    private static long failedWith(BatchLoanResult result, String error) {
+        return result.getItems().stream().filter(item -> error.equals(item.getError())).count();
+    }
+    
+    private static <T> List<T> runConcurrently(List<Supplier<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Supplier<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.get();
+                }));
+            }
+            start.countDown();
+            
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.library.service;
+
+import com.library.entity.Book;
+import com.library.exception.BusinessException;
+import com.library.repository.BookRepository;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@IntegrationTest
+class LoanCheckoutConcurrencyTest {
+    
+    private static final int THREADS = 32;
+    private static final int COPIES = 5;
+    
+    @Autowired
+    private LoanService loanService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TestData testData;
+    
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Book book = testData.book(COPIES);
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            userIds.add(testData.user().getId());
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (Long userId : userIds) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        loanService.createLoan(userId, book.getId());
+                        return true;
+                    } catch (BusinessException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+            
+            assertThat(succeeded).isEqualTo(COPIES);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loans WHERE book_id = ? AND status = 'ACTIVE'",
+                    Long.class, book.getId())).isEqualTo(COPIES);
+            assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void concurrentReturnsOfOneLoanRestoreOneCopy() throws Exception {
+        Book book = testData.book(1);
+        Long loanId = loanService.createLoan(testData.user().getId(), book.getId()).getId();
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        loanService.returnBook(loanId);
+                        return true;
+                    } catch (BusinessException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    succeeded++;
+                }
+            }
+            
+            assertThat(succeeded).isEqualTo(1);
+            assertThat(bookRepository.findById(book.getId()).orElseThrow().getAvailableCopies()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.library.service;
+
+import com.library.dto.response.CursorPage;
+import com.library.dto.response.LoanSummary;
+import com.library.entity.User;
+import com.library.enums.LoanStatus;
+import com.library.monitoring.StatementCounter;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the loan listings against N+1 selects: the number of statements for a
+ * page must not grow with the number of loans on it.
+ */
+@IntegrationTest
+class LoanListingStatementCountTest {
+    
+    private static final int LOANS = 100;
+    
+    @Autowired
+    private LoanService loanService;
+    
+    @Autowired
+    private StatementCounter statementCounter;
+    
+    @Autowired
+    private TestData testData;
+    
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        user = testData.user();
+        for (int i = 0; i < LOANS; i++) {
+            // Every loan has its own book, so lazy book loads would show up as extra statements
+            testData.loan(user, testData.book(1), i % 2 == 0 ? LoanStatus.ACTIVE : LoanStatus.RETURNED, LocalDate.now());
+        }
+    }
+    
+    @Test
+    void userLoanPageUsesAConstantNumberOfStatements() {
+        int small = count(() -> loanService.getLoansByUser(user.getId(), PageRequest.of(0, 10)), 10);
+        int full = count(() -> loanService.getLoansByUser(user.getId(), PageRequest.of(0, LOANS)), LOANS);
+        
+        assertThat(full).isEqualTo(small).isLessThanOrEqualTo(4);
+    }
+    
+    @Test
+    void userLoanCursorUsesAConstantNumberOfStatements() {
+        int small = countCursor(() -> loanService.getLoansByUserAfter(user.getId(), null, 10), 10);
+        int full = countCursor(() -> loanService.getLoansByUserAfter(user.getId(), null, LOANS), LOANS);
+        
+        assertThat(full).isEqualTo(small).isLessThanOrEqualTo(2);
+    }
+    
+    private int count(Supplier<Page<LoanSummary>> listing, int expectedRows) {
+        statementCounter.start();
+        Page<LoanSummary> page = listing.get();
+        Map<String, Integer> statements = statementCounter.stop();
+        
+        assertThat(page.getContent()).hasSize(expectedRows).allSatisfy(loan -> assertThat(loan.getBookTitle()).isNotNull());
+        return total(statements);
+    }
+    
+    private int countCursor(Supplier<CursorPage<LoanSummary>> listing, int expectedRows) {
+        statementCounter.start();
+        CursorPage<LoanSummary> page = listing.get();
+        Map<String, Integer> statements = statementCounter.stop();
+        
+        assertThat(page.getContent()).hasSize(expectedRows).allSatisfy(loan -> assertThat(loan.getBookTitle()).isNotNull());
+        return total(statements);
+    }
+    
+    private static int total(Map<String, Integer> statements) {
+        return statements.values().stream().mapToInt(Integer::intValue).sum();
+    }
+}
@@ -0,0 +1,289 @@
+package com.library.service;
+
+import com.library.dto.response.BatchLoanResult;
+import com.library.dto.response.LoanSummary;
+import com.library.entity.Book;
+import com.library.entity.Loan;
+import com.library.entity.User;
+import com.library.enums.LoanStatus;
+import com.library.exception.BusinessException;
+import com.library.exception.ResourceNotFoundException;
+import com.library.repository.LoanArchiveShard;
+import com.library.repository.LoanArchiveShards;
+import com.library.repository.LoanRepository;
+import com.library.support.IntegrationTest;
+import com.library.support.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs with the archive spread over three stores: the application's database and
+ * two more in-memory databases.
+ */
+@IntegrationTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loanstore;LOCK_TIMEOUT=10000",
+        "app.reactive.url=r2dbc:h2:mem:///loanstore",
+        "app.events.dispatcher.enabled=false",
+        "app.loans.archive.shard-urls=jdbc:h2:mem:loanstore1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:loanstore2;DB_CLOSE_DELAY=-1"
+})
+class LoanStoreTest {
+    
+    private static final LocalDate LONG_AGO = LocalDate.now().minusYears(1);
+    
+    @Autowired
+    private LoanService loanService;
+    
+    @Autowired
+    private LoanStore loanStore;
+    
+    @Autowired
+    private LoanArchiver loanArchiver;
+    
+    @Autowired
+    private LoanArchiveShards loanArchiveShards;
+    
+    @Autowired
+    private LoanRepository loanRepository;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private TestData testData;
+    
+    @Test
+    void archivesEachUsersLoansInTheirOwnStore() {
+        List<User> users = new ArrayList<>();
+        List<Loan> loans = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            User user = testData.user();
+            users.add(user);
+            loans.add(returnedLongAgo(user));
+        }
+        
+        loanArchiver.archive();
+        
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < users.size(); i++) {
+            Long loanId = loans.get(i).getId();
+            LoanArchiveShard home = loanArchiveShards.forUser(users.get(i).getId());
+            usedShards.add(home.getIndex());
+            assertThat(loanRepository.existsById(loanId)).isFalse();
+            for (LoanArchiveShard shard : loanArchiveShards.all()) {
+                assertThat(shard.findById(loanId)).as("store %d", shard.getIndex()).matches(found -> found.isPresent() == (shard == home));
+            }
+        }
+        assertThat(usedShards).hasSizeGreaterThan(1);
+    }
+    
+    @Test
+    void userPagesMergeOpenAndArchivedLoansInSortOrder() {
+        User user = testData.user();
+        for (int i = 0; i < 3; i++) {
+            testData.loan(user, testData.book(1), LoanStatus.RETURNED, LONG_AGO.minusDays(10 * i));
+        }
+        loanArchiver.archive();
+        testData.loan(user, testData.book(1), LoanStatus.ACTIVE, LocalDate.now());
+        testData.loan(user, testData.book(1), LoanStatus.ACTIVE, LONG_AGO.minusDays(15));
+        testData.loan(user, testData.book(1), LoanStatus.RETURNED, LocalDate.now().minusDays(3));
+        
+        for (Sort sort : List.of(Sort.by("id"), Sort.by(Sort.Direction.DESC, "loanDate"), Sort.by("returnDate"),
+                Sort.by(Sort.Direction.DESC, "returnDate"), Sort.by("status", "dueDate"))) {
+            List<LoanSummary> all = loanService.getLoansByUser(user.getId(), PageRequest.of(0, 6, sort)).getContent();
+            assertThat(all).as("%s", sort).hasSize(6).isSortedAccordingTo(order(sort));
+            assertThat(walkInOrder(page -> loanService.getLoansByUser(user.getId(), page), sort, 6)).as("%s", sort)
+                    .isEqualTo(ids(all));
+        }
+    }
+    
+    @Test
+    void pagesAcrossStoresFollowTheSortOrder() {
+        for (int i = 0; i < 7; i++) {
+            User user = testData.user();
+            testData.loan(user, testData.book(1), LoanStatus.RETURNED, LONG_AGO.minusDays(i));
+            testData.loan(user, testData.book(1), LoanStatus.RETURNED, LONG_AGO.minusDays(20 - i));
+        }
+        loanArchiver.archive();
+        testData.loan(testData.user(), testData.book(1), LoanStatus.ACTIVE, LONG_AGO.minusDays(5));
+        testData.loan(testData.user(), testData.book(1), LoanStatus.RETURNED, LocalDate.now());
+        int loans = everyLoanId().size();
+        
+        for (Sort sort : List.of(Sort.by(Sort.Direction.DESC, "loanDate"), Sort.by("returnDate"))) {
+            List<Long> walked = walkInOrder(page -> loanService.getAllLoans(page), sort, loans);
+            List<LoanSummary> all = loanService.getAllLoans(PageRequest.of(0, loans, sort)).getContent();
+            assertThat(all).as("%s", sort).isSortedAccordingTo(order(sort));
+            assertThat(walked).as("%s", sort).isEqualTo(ids(all));
+        }
+    }
+    
+    @Test
+    void pagesAcrossAllStoresCoverEveryLoanOnce() {
+        for (int i = 0; i < 7; i++) {
+            User user = testData.user();
+            returnedLongAgo(user);
+            returnedLongAgo(user);
+        }
+        loanArchiver.archive();
+        testData.loan(testData.user(), testData.book(1), LoanStatus.RETURNED, LocalDate.now());
+        
+        Set<Long> expected = everyLoanId();
+        Set<Long> listed = walk(page -> loanService.getAllLoans(page), expected.size());
+        assertThat(listed).isEqualTo(expected);
+        
+        Set<Long> returned = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM loans WHERE status = 'RETURNED'", Long.class));
+        loanArchiveShards.all().forEach(shard -> returned.addAll(
+                shard.getJdbcTemplate().queryForList("SELECT id FROM loan_archive", Long.class)));
+        assertThat(walk(page -> loanService.getLoansByStatus(LoanStatus.RETURNED, page), returned.size())).isEqualTo(returned);
+    }
+    
+    @Test
+    void pagesPastTenThousandRowsAreServed() {
+        Page<LoanSummary> page = loanService.getAllLoans(PageRequest.of(1_000, 20, Sort.by(Sort.Direction.DESC, "loanDate")));
+        
+        assertThat(page.getContent()).isEmpty();
+        assertThat(page.getTotalElements()).isEqualTo(everyLoanId().size());
+    }
+    
+    @Test
+    void rejectsSortsTheArchiveCannotApply() {
+        assertThatThrownBy(() -> loanService.getAllLoans(PageRequest.of(0, 20, Sort.by("book.title"))))
+                .isInstanceOf(BusinessException.class);
+    }
+    
+    @Test
+    void cursorListingsMergeEveryStoreById() {
+        for (int i = 0; i < 5; i++) {
+            returnedLongAgo(testData.user());
+        }
+        loanArchiver.archive();
+        
+        List<Long> walked = new ArrayList<>();
+        Long afterId = 0L;
+        List<LoanSummary> batch;
+        while (!(batch = loanStore.findNextById(afterId, 4)).isEmpty()) {
+            batch.forEach(loan -> walked.add(loan.getId()));
+            afterId = batch.get(batch.size() - 1).getId();
+        }
+        
+        assertThat(walked).isSorted().doesNotHaveDuplicates();
+        assertThat(new HashSet<>(walked)).isEqualTo(everyLoanId());
+    }
+    
+    @Test
+    void resolvesArchivedLoansById() {
+        User user = testData.user();
+        Loan loan = returnedLongAgo(user);
+        loanArchiver.archive();
+        
+        LoanSummary found = loanService.getLoanById(loan.getId());
+        
+        assertThat(found.getUserId()).isEqualTo(user.getId());
+        assertThat(found.getStatus()).isEqualTo(LoanStatus.RETURNED);
+        assertThatThrownBy(() -> loanService.getLoanById(Long.MAX_VALUE)).isInstanceOf(ResourceNotFoundException.class);
+    }
+    
+    @Test
+    void returningAnArchivedLoanIsRejectedAsNotActive() {
+        Loan loan = returnedLongAgo(testData.user());
+        loanArchiver.archive();
+        
+        assertThatThrownBy(() -> loanService.returnBook(loan.getId()))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Loan is not active");
+        BatchLoanResult result = loanService.returnBooks(List.of(loan.getId(), Long.MAX_VALUE));
+        assertThat(result.getItems()).extracting(BatchLoanResult.Item::getError)
+                .containsExactly("Loan is not active", "Loan not found with id: " + Long.MAX_VALUE);
+    }
+    
+    @Test
+    void exportsEveryStore() {
+        returnedLongAgo(testData.user());
+        loanArchiver.archive();
+        long archived = loanArchiveShards.all().stream().mapToLong(LoanArchiveShard::count).sum();
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = exportService.exportArchivedLoans(out);
+        
+        assertThat(written).isEqualTo(archived);
+        assertThat(out.toString().lines()).hasSize((int) archived);
+    }
+    
+    private Loan returnedLongAgo(User user) {
+        Book book = testData.book(1);
+        return testData.loan(user, book, LoanStatus.RETURNED, LONG_AGO);
+    }
+    
+    private Set<Long> everyLoanId() {
+        Set<Long> ids = new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM loans", Long.class));
+        loanArchiveShards.all().forEach(shard -> ids.addAll(
+                shard.getJdbcTemplate().queryForList("SELECT id FROM loan_archive", Long.class)));
+        return ids;
+    }
+    
+    private static Set<Long> walk(Function<Pageable, Page<LoanSummary>> listing, int expected) {
+        List<Long> ids = new ArrayList<>();
+        for (int page = 0; page * 3 < expected; page++) {
+            ids.addAll(ids(listing.apply(PageRequest.of(page, 3))));
+        }
+        assertThat(ids).doesNotHaveDuplicates();
+        return new HashSet<>(ids);
+    }
+    
+    private static List<Long> walkInOrder(Function<Pageable, Page<LoanSummary>> listing, Sort sort, int expected) {
+        List<Long> ids = new ArrayList<>();
+        for (int page = 0; page * 4 < expected; page++) {
+            ids.addAll(ids(listing.apply(PageRequest.of(page, 4, sort))));
+        }
+        return ids;
+    }
+    
+    // The order a single table would return, with empty values last in either direction
+    private static Comparator<LoanSummary> order(Sort sort) {
+        Comparator<LoanSummary> order = null;
+        for (Sort.Order property : sort.and(Sort.by("id"))) {
+            Comparator<LoanSummary> next = switch (property.getProperty()) {
+                case "id" -> Comparator.comparing(LoanSummary::getId);
+                case "loanDate" -> Comparator.comparing(LoanSummary::getLoanDate);
+                case "dueDate" -> Comparator.comparing(LoanSummary::getDueDate);
+                case "returnDate" -> Comparator.comparing(LoanSummary::getReturnDate, Comparator.nullsLast(
+                        property.isDescending() ? Comparator.<LocalDate>reverseOrder() : Comparator.<LocalDate>naturalOrder()));
+                case "status" -> Comparator.comparing(loan -> loan.getStatus().name());
+                default -> throw new IllegalArgumentException(property.getProperty());
+            };
+            next = property.isDescending() && !property.getProperty().equals("returnDate") ? next.reversed() : next;
+            order = order == null ? next : order.thenComparing(next);
+        }
+        return order;
+    }
+    
+    private static List<Long> ids(List<LoanSummary> loans) {
+        return loans.stream().map(LoanSummary::getId).collect(Collectors.toList());
+    }
+    
+    private static List<Long> ids(Page<LoanSummary> page) {
+        return ids(page.getContent());
+    }
+}
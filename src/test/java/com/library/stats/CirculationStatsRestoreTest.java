@@ -0,0 +1,93 @@
+package com.library.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.library.entity.OutboxEvent;
+import com.library.enums.DomainEventType;
+import com.library.enums.OutboxStatus;
+import com.library.events.DomainEvent;
+import com.library.events.LoanEventPayload;
+import com.library.repository.OutboxEventRepository;
+import com.library.support.IntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A database of its own with the dispatcher switched off, so only this test writes checkpoints
+@IntegrationTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:circulationstats;LOCK_TIMEOUT=10000",
+        "app.reactive.url=r2dbc:h2:mem:///circulationstats",
+        "app.events.dispatcher.enabled=false"
+})
+class CirculationStatsRestoreTest {
+    
+    private static final AtomicLong IDS = new AtomicLong(2_000_000);
+    
+    @Autowired
+    private CirculationStatsStore store;
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Test
+    void restoreReplaysEventsDeliveredOutOfIdOrderExactlyOnce() {
+        long userId = IDS.incrementAndGet();
+        CirculationStats stats = restoredStats();
+        OutboxEvent earlier = save(userId);
+        OutboxEvent later = save(userId);
+        
+        stats.handle(DomainEvent.from(later, objectMapper));
+        stats.checkpoint();
+        // Delivered after the checkpoint despite its lower id, then the instance stops
+        stats.handle(DomainEvent.from(earlier, objectMapper));
+        
+        assertThat(restoredStats().loansOf(userId)).isEqualTo(2);
+    }
+    
+    @Test
+    void checkpointForgetsEventsPurgedFromTheOutbox() {
+        long userId = IDS.incrementAndGet();
+        CirculationStats stats = restoredStats();
+        OutboxEvent event = save(userId);
+        stats.handle(DomainEvent.from(event, objectMapper));
+        stats.checkpoint();
+        assertThat(store.appliedPendingEventIds()).doesNotContain(event.getId());
+        
+        outboxEventRepository.delete(event);
+        stats.handle(DomainEvent.from(save(userId), objectMapper));
+        stats.checkpoint();
+        
+        assertThat(restoredStats().loansOf(userId)).isEqualTo(2);
+    }
+    
+    private CirculationStats restoredStats() {
+        CirculationStats stats = new CirculationStats(store, objectMapper, 10, 90);
+        stats.restore();
+        return stats;
+    }
+    
+    private OutboxEvent save(long userId) {
+        long loanId = IDS.incrementAndGet();
+        LoanEventPayload payload = new LoanEventPayload(loanId, userId, IDS.incrementAndGet(), null, LocalDate.now(),
+                LocalDate.now().plusDays(14), null);
+        return outboxEventRepository.save(OutboxEvent.builder()
+                .type(DomainEventType.LOAN_CREATED)
+                .aggregateId(loanId)
+                .aggregateKey(DomainEvent.aggregateKey(DomainEventType.LOAN_CREATED, loanId))
+                .aggregateSequence(1L)
+                .payload(objectMapper.valueToTree(payload).toString())
+                .status(OutboxStatus.PROCESSED)
+                .createdAt(LocalDateTime.now())
+                .processedAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,118 @@
+package com.library.stats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.library.enums.DomainEventType;
+import com.library.events.DomainEvent;
+import com.library.events.LoanEventPayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CirculationStatsTest {
+    
+    private static final long USER = 1;
+    private static final long BOOK = 10;
+    private static final long CATEGORY = 100;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private CirculationStatsStore store;
+    private CirculationStats stats;
+    
+    @BeforeEach
+    void setUp() {
+        store = mock(CirculationStatsStore.class);
+        when(store.hasCheckpoint()).thenReturn(true);
+        when(store.loadRows()).thenReturn(List.of());
+        when(store.appliedPendingEventIds()).thenReturn(List.of());
+        stats = new CirculationStats(store, objectMapper, 10, 90);
+        stats.restore();
+    }
+    
+    @Test
+    void countsLoansAndActiveLoansPerCategory() {
+        stats.handle(event(1, DomainEventType.LOAN_CREATED, null));
+        stats.handle(event(2, DomainEventType.LOAN_CREATED, null));
+        stats.handle(event(3, DomainEventType.LOAN_RETURNED, LocalDate.now()));
+        
+        assertThat(stats.loansOf(USER)).isEqualTo(2);
+        assertThat(stats.activeLoansByCategory()).containsEntry(CATEGORY, 1L);
+        assertThat(stats.mostBorrowedBooks(YearMonth.now(), 5)).containsExactly(new TopK.Entry(BOOK, 2));
+        assertThat(stats.day(LocalDate.now())).isEqualTo(new CirculationStats.Day(2, 1, 0));
+    }
+    
+    @Test
+    void ignoresRedeliveredEvents() {
+        stats.handle(event(1, DomainEventType.LOAN_OVERDUE, null));
+        stats.handle(event(1, DomainEventType.LOAN_OVERDUE, null));
+        
+        assertThat(stats.overdueOf(USER)).isEqualTo(1);
+        assertThat(stats.mostOverdueUsers(5)).containsExactly(new TopK.Entry(USER, 1));
+    }
+    
+    @Test
+    void checkpointRecordsEventsAppliedAfterAHigherOne() {
+        stats.handle(event(50, DomainEventType.LOAN_CREATED, null));
+        stats.checkpoint();
+        // Delivered after the checkpoint although its id is lower
+        stats.handle(event(7, DomainEventType.LOAN_CREATED, null));
+        stats.checkpoint();
+        
+        ArgumentCaptor<List<Long>> eventIds = eventIdsCaptor();
+        verify(store, times(2)).save(anyList(), eventIds.capture());
+        assertThat(eventIds.getAllValues()).containsExactly(List.of(50L), List.of(7L));
+    }
+    
+    @Test
+    void failedCheckpointKeepsItsEventsForTheNextOne() {
+        stats.handle(event(1, DomainEventType.LOAN_CREATED, null));
+        doThrow(new IllegalStateException("down")).when(store).save(anyList(), eq(List.of(1L)));
+        stats.checkpoint();
+        stats.handle(event(2, DomainEventType.LOAN_CREATED, null));
+        stats.checkpoint();
+        
+        ArgumentCaptor<List<Long>> eventIds = eventIdsCaptor();
+        verify(store, times(2)).save(anyList(), eventIds.capture());
+        assertThat(eventIds.getValue()).containsExactlyInAnyOrder(1L, 2L);
+    }
+    
+    @Test
+    void restoreSkipsRedeliveriesOfEventsInTheCheckpoint() {
+        when(store.loadRows()).thenReturn(List.of(new StatRow(CirculationStats.USER_LOANS, "", USER, 3)));
+        when(store.appliedPendingEventIds()).thenReturn(List.of(8L));
+        CirculationStats restored = new CirculationStats(store, objectMapper, 10, 90);
+        restored.restore();
+        
+        restored.handle(event(8, DomainEventType.LOAN_CREATED, null));
+        restored.handle(event(9, DomainEventType.LOAN_CREATED, null));
+        
+        assertThat(restored.loansOf(USER)).isEqualTo(4);
+        verify(store, times(2)).replay(any());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<Long>> eventIdsCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+    
+    private DomainEvent event(long id, DomainEventType type, LocalDate returnDate) {
+        LoanEventPayload payload = new LoanEventPayload(id, USER, BOOK, CATEGORY, LocalDate.now(),
+                LocalDate.now().plusDays(14), returnDate);
+        return new DomainEvent(id, type, id, 1, objectMapper.valueToTree(payload), LocalDateTime.now());
+    }
+}
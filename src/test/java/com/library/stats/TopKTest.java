@@ -0,0 +1,50 @@
+package com.library.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TopKTest {
+    
+    @Test
+    void keepsTheHighestCountsInDescendingOrder() {
+        TopK topK = new TopK(3);
+        topK.offer(1, 5);
+        topK.offer(2, 9);
+        topK.offer(3, 1);
+        topK.offer(4, 7);
+        
+        assertThat(topK.top(10)).containsExactly(new TopK.Entry(2, 9), new TopK.Entry(4, 7), new TopK.Entry(1, 5));
+    }
+    
+    @Test
+    void rejectsCountsNotAboveTheSmallestMemberOnceFull() {
+        TopK topK = new TopK(2);
+        topK.offer(1, 5);
+        topK.offer(2, 6);
+        topK.offer(3, 5);
+        
+        assertThat(topK.top(2)).extracting(TopK.Entry::key).containsExactly(2L, 1L);
+    }
+    
+    @Test
+    void movesAMemberWhenItsCountGrows() {
+        TopK topK = new TopK(2);
+        topK.offer(1, 5);
+        topK.offer(2, 6);
+        topK.offer(1, 8);
+        topK.offer(1, 7);
+        
+        assertThat(topK.top(2)).containsExactly(new TopK.Entry(1, 8), new TopK.Entry(2, 6));
+    }
+    
+    @Test
+    void breaksTiesByKeyAndReturnsAtMostK() {
+        TopK topK = new TopK(5);
+        topK.offer(7, 3);
+        topK.offer(4, 3);
+        topK.offer(9, 3);
+        
+        assertThat(topK.top(2)).extracting(TopK.Entry::key).containsExactly(4L, 7L);
+    }
+}
@@ -0,0 +1,72 @@
+package com.library.support;
+
+import com.library.entity.Book;
+import com.library.entity.Loan;
+import com.library.entity.User;
+import com.library.enums.LoanStatus;
+import com.library.enums.Role;
+import com.library.repository.BookRepository;
+import com.library.repository.LoanRepository;
+import com.library.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Creates users and books with unique emails and ISBNs, and loans between them
+ * without going through the checkout rules.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestData {
+    
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000);
+    
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    
+    public User user() {
+        return user(Role.USER);
+    }
+    
+    public User user(Role role) {
+        long n = SEQUENCE.incrementAndGet();
+        return userRepository.save(User.builder()
+                .email("user" + n + "@test.local")
+                .firstName("Test")
+                .lastName("User" + n)
+                .password("x")
+                .role(role)
+                .active(true)
+                .build());
+    }
+    
+    public Book book(int copies) {
+        return book("Test Book " + SEQUENCE.incrementAndGet(), copies);
+    }
+    
+    public Book book(String title, int copies) {
+        long n = SEQUENCE.incrementAndGet();
+        return bookRepository.save(Book.builder()
+                .title(title)
+                .author("Test Author")
+                .isbn("TEST-" + n)
+                .totalCopies(copies)
+                .availableCopies(copies)
+                .build());
+    }
+    
+    public Loan loan(User user, Book book, LoanStatus status, LocalDate loanDate) {
+        return loanRepository.save(Loan.builder()
+                .user(user)
+                .book(book)
+                .loanDate(loanDate)
+                .dueDate(loanDate.plusDays(14))
+                .returnDate(status == LoanStatus.RETURNED ? loanDate.plusDays(7) : null)
+                .status(status)
+                .build());
+    }
+}
@@ -0,0 +1,109 @@
+package com.library.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.library.entity.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookJsonModuleTest {
+    
+    private static final String STALE = "{\"id\":1,\"title\":\"From the cache\"}";
+    
+    private final BookJsonCache cache = new BookJsonCache(new SimpleMeterRegistry(), 100);
+    private final ObjectMapper mapper = configure(new ObjectMapper());
+    private final ObjectMapper plain = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .setFilterProvider(SparseFields.ALL);
+    
+    @Test
+    void writesTheSameJsonAsThePlainSerializerAndCachesIt() throws Exception {
+        Book book = book();
+        
+        String json = mapper.writeValueAsString(book);
+        
+        assertThat(json).isEqualTo(plain.writeValueAsString(book));
+        assertThat(cache.get(book)).isNotNull();
+        assertThat(cache.get(book).getValue()).isEqualTo(json);
+    }
+    
+    @Test
+    void servesAnUnchangedBookFromTheCache() throws Exception {
+        Book book = book();
+        cache.put(book, STALE);
+        
+        assertThat(mapper.writeValueAsString(book)).isEqualTo(STALE);
+    }
+    
+    @Test
+    void reserializesWhenAvailabilityOrTheUpdateTimeChanges() throws Exception {
+        Book book = book();
+        cache.put(book, STALE);
+        
+        book.setAvailableCopies(1);
+        assertThat(mapper.readTree(mapper.writeValueAsString(book)).get("availableCopies").asInt()).isEqualTo(1);
+        
+        cache.put(book, STALE);
+        book.setUpdatedAt(book.getUpdatedAt().plusSeconds(1));
+        assertThat(mapper.readTree(mapper.writeValueAsString(book)).get("title").asText()).isEqualTo("Dune");
+    }
+    
+    @Test
+    void sparseFieldsBypassTheCacheAndKeepTheId() throws Exception {
+        Book book = book();
+        cache.put(book, STALE);
+        
+        JsonNode json = mapper.readTree(mapper.writer(SparseFields.only(Set.of("title"))).writeValueAsString(book));
+        
+        assertThat(json.size()).isEqualTo(2);
+        assertThat(json.get("id").asLong()).isEqualTo(1L);
+        assertThat(json.get("title").asText()).isEqualTo("Dune");
+    }
+    
+    @Test
+    void binaryOutputBypassesTheCache() throws Exception {
+        Book book = book();
+        cache.put(book, STALE);
+        ObjectMapper cbor = configure(new CBORMapper());
+        
+        JsonNode decoded = cbor.readTree(cbor.writeValueAsBytes(book));
+        
+        assertThat(decoded.get("title").asText()).isEqualTo("Dune");
+        assertThat(decoded.get("availableCopies").asInt()).isEqualTo(3);
+    }
+    
+    @Test
+    void unsavedBooksAreNotCached() throws Exception {
+        Book book = book();
+        book.setId(null);
+        
+        mapper.writeValueAsString(book);
+        
+        assertThat(cache.get(book)).isNull();
+    }
+    
+    private ObjectMapper configure(ObjectMapper target) {
+        return target.registerModule(new JavaTimeModule())
+                .registerModule(new BookJsonModule(cache))
+                .setFilterProvider(SparseFields.ALL);
+    }
+    
+    private static Book book() {
+        return Book.builder()
+                .id(1L)
+                .title("Dune")
+                .author("Frank Herbert")
+                .isbn("9780441172719")
+                .totalCopies(3)
+                .availableCopies(3)
+                .updatedAt(LocalDateTime.of(2024, 1, 1, 12, 0))
+                .build();
+    }
+}
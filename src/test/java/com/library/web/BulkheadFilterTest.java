@@ -0,0 +1,74 @@
+package com.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+class BulkheadFilterTest {
+    
+    private final BulkheadFilter filter = new BulkheadFilter(10, 8, 0, new ObjectMapper(), new SimpleMeterRegistry());
+    
+    @Test
+    void admitsThePoolSizeMinusTheBackgroundReserve() {
+        assertThat(filter.availablePermits()).isEqualTo(2);
+    }
+    
+    @Test
+    void refusesAReserveThatLeavesNothingForRequests() {
+        assertThatIllegalStateException()
+                .isThrownBy(() -> new BulkheadFilter(10, 10, 0, new ObjectMapper(), new SimpleMeterRegistry()));
+    }
+    
+    @Test
+    void releasesThePermitWhenASynchronousRequestReturns() throws Exception {
+        filter.doFilter(request(), new MockHttpServletResponse(),
+                (req, res) -> assertThat(filter.availablePermits()).isEqualTo(1));
+        
+        assertThat(filter.availablePermits()).isEqualTo(2);
+    }
+    
+    @Test
+    void holdsThePermitUntilAsyncProcessingCompletes() throws Exception {
+        MockHttpServletRequest request = request();
+        FilterChain startsAsync = (req, res) -> req.startAsync();
+        
+        filter.doFilter(request, new MockHttpServletResponse(), startsAsync);
+        assertThat(filter.availablePermits()).isEqualTo(1);
+        
+        AsyncContext asyncContext = request.getAsyncContext();
+        ((MockAsyncContext) asyncContext).complete();
+        assertThat(filter.availablePermits()).isEqualTo(2);
+    }
+    
+    @Test
+    void rejectsRequestsOnceThePermitsAreTaken() throws Exception {
+        MockHttpServletRequest first = request();
+        MockHttpServletRequest second = request();
+        filter.doFilter(first, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        filter.doFilter(second, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+        
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request(), rejected, (req, res) -> {
+            throw new AssertionError("Request should not have been admitted");
+        });
+        
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        ((MockAsyncContext) first.getAsyncContext()).complete();
+        assertThat(filter.availablePermits()).isEqualTo(1);
+    }
+    
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/export/books");
+        request.setAsyncSupported(true);
+        return request;
+    }
+}
@@ -0,0 +1,52 @@
+package com.library.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+    
+    // One request per 1000 s, so no token comes back while the test runs
+    private final RateLimitFilter filter = new RateLimitFilter(0.001, 3, "/api/export:0.001", 1000,
+            new ObjectMapper(), new SimpleMeterRegistry());
+    
+    @Test
+    void rejectsOnceTheCallerBurstIsUsed() throws Exception {
+        assertThat(status("/api/books")).isEqualTo(200);
+        assertThat(status("/api/books")).isEqualTo(200);
+        assertThat(status("/api/books")).isEqualTo(200);
+        
+        MockHttpServletResponse response = send("/api/books");
+        assertThat(response.getStatus()).isEqualTo(429);
+        assertThat(response.getHeader("Retry-After")).isNotNull();
+    }
+    
+    @Test
+    void requestsRejectedByARouteLimitKeepTheCallerTokens() throws Exception {
+        assertThat(status("/api/export/loans")).isEqualTo(200);
+        assertThat(status("/api/export/loans")).isEqualTo(429);
+        assertThat(status("/api/export/loans")).isEqualTo(429);
+        
+        // Only the admitted export took a caller token
+        assertThat(status("/api/books")).isEqualTo(200);
+        assertThat(status("/api/books")).isEqualTo(200);
+        assertThat(status("/api/books")).isEqualTo(429);
+    }
+    
+    private int status(String uri) throws Exception {
+        return send(uri).getStatus();
+    }
+    
+    private MockHttpServletResponse send(String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRemoteAddr("192.0.2.1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+        });
+        return response;
+    }
+}
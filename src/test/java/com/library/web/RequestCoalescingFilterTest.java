@@ -0,0 +1,120 @@
+package com.library.web;
+
+import com.library.datasource.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestCoalescingFilterTest {
+    
+    private static final long WAIT_TIMEOUT_MS = 200;
+    
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(60_000);
+    private final RequestCoalescingFilter filter =
+            new RequestCoalescingFilter("/api/books", WAIT_TIMEOUT_MS, readYourWrites, meterRegistry);
+    
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void identicalRequestWaitsForTheOneInFlight() throws Exception {
+        withLeaderInFlight(() -> {
+            authenticate("reader");
+            MockHttpServletResponse response = send();
+            
+            assertThat(response.getContentAsString()).isEqualTo("own");
+            // It waited for the leader and gave up after the timeout
+            assertThat(requests("fallback")).isEqualTo(1);
+        });
+    }
+    
+    @Test
+    void recentWriterIsNeverCoalesced() throws Exception {
+        withLeaderInFlight(() -> {
+            authenticate("writer");
+            readYourWrites.recordWrite("writer");
+            long start = System.nanoTime();
+            MockHttpServletResponse response = send();
+            
+            assertThat(response.getContentAsString()).isEqualTo("own");
+            assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(WAIT_TIMEOUT_MS);
+            assertThat(requests("fallback")).isZero();
+            assertThat(requests("leader")).isEqualTo(1);
+        });
+    }
+    
+    /**
+     * Runs the check while another caller with the same role holds an identical
+     * request open.
+     */
+    private void withLeaderInFlight(CheckedRunnable check) throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> leader = executor.submit(() -> {
+                authenticate("leader");
+                MockHttpServletRequest request = request();
+                filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                    entered.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    res.getWriter().write("stale");
+                });
+                return null;
+            });
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+            check.run();
+            release.countDown();
+            leader.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+    
+    private MockHttpServletResponse send() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(), response, (req, res) -> res.getWriter().write("own"));
+        return response;
+    }
+    
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+        request.setQueryString("page=0");
+        return request;
+    }
+    
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                username, null, AuthorityUtils.createAuthorityList("ROLE_USER")));
+    }
+    
+    private double requests(String role) {
+        return meterRegistry.get("library.web.coalescing.requests").tag("role", role).counter().count();
+    }
+    
+    private interface CheckedRunnable {
+        
+        void run() throws Exception;
+    }
+}